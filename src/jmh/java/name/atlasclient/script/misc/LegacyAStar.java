@@ -0,0 +1,226 @@
+package name.atlasclient.script.misc;
+
+import name.atlasclient.pathing.AStar;
+import name.atlasclient.pathing.NavGrid;
+import name.atlasclient.pathing.PassabilityTable;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Baseline for PlannerBenchmark: the original object-based A* (HashMap<BlockPos, Node>, duplicate
+ * PriorityQueue entries, a Neighbor list and BlockPos objects per expansion).
+ *
+ * The search bookkeeping is kept as it was. Only the block queries changed: the original read
+ * collision shapes from a BlockView, which the offline scenarios do not have, so it reads the same
+ * PassabilityTable flags through NavGrid (an empty shape is HEAD_PASSABLE, a low one BODY_PASSABLE).
+ */
+final class LegacyAStar {
+
+    // The planner settings PathfindScript and AStar use, not copies, so the baseline cannot drift from them.
+    private static final int MAX_ITERATIONS = PathfindScript.MAX_ITERATIONS;
+    private static final int MAX_RANGE = PathfindScript.MAX_RANGE;
+    private static final int MAX_DROP_DOWN = AStar.MAX_DROP_DOWN;
+    private static final int DROP_ESCAPE_SEARCH_LIMIT = AStar.DROP_ESCAPE_SEARCH_LIMIT;
+    private static final int DROP_ESCAPE_MAX_RADIUS = AStar.DROP_ESCAPE_MAX_RADIUS;
+
+    static int lastExpansions;
+
+    private static final class Node {
+        final BlockPos pos;
+        final Node parent;
+        final double g;
+        final double f;
+
+        Node(BlockPos pos, Node parent, double g, double f) {
+            this.pos = pos;
+            this.parent = parent;
+            this.g = g;
+            this.f = f;
+        }
+    }
+
+    private static final class Neighbor {
+        final BlockPos pos;
+        final double cost;
+        Neighbor(BlockPos pos, double cost) { this.pos = pos; this.cost = cost; }
+    }
+
+    private LegacyAStar() {}
+
+    static List<BlockPos> find(NavGrid world, BlockPos start, BlockPos goal) {
+        lastExpansions = 0;
+        if (manhattan(start, goal) > MAX_RANGE * 2) return Collections.emptyList();
+        if (!isStandable(world, start) || !isStandable(world, goal)) return Collections.emptyList();
+
+        PriorityQueue<Node> open = new PriorityQueue<>(Comparator.comparingDouble(n -> n.f));
+        Map<BlockPos, Node> best = new HashMap<>();
+        Set<BlockPos> closed = new HashSet<>();
+
+        Node s = new Node(start, null, 0.0, heuristic(start, goal));
+        open.add(s);
+        best.put(start, s);
+
+        int it = 0;
+        while (!open.isEmpty() && it++ < MAX_ITERATIONS) {
+            Node cur = open.poll();
+            if (cur.pos.equals(goal)) return reconstruct(cur);
+
+            if (!closed.add(cur.pos)) continue;
+            lastExpansions++;
+
+            if (manhattan(start, cur.pos) > MAX_RANGE) continue;
+
+            for (Neighbor nb : neighbors(world, cur.pos)) {
+                if (closed.contains(nb.pos)) continue;
+
+                double ng = cur.g + nb.cost + wallPenalty(world, nb.pos);
+
+                Node prev = best.get(nb.pos);
+                if (prev == null || ng < prev.g) {
+                    Node nxt = new Node(nb.pos, cur, ng, ng + heuristic(nb.pos, goal));
+                    best.put(nb.pos, nxt);
+                    open.add(nxt);
+                }
+            }
+        }
+
+        return Collections.emptyList();
+    }
+
+    private static List<BlockPos> reconstruct(Node goal) {
+        LinkedList<BlockPos> out = new LinkedList<>();
+        Node c = goal;
+        while (c != null) {
+            out.addFirst(c.pos);
+            c = c.parent;
+        }
+        return out;
+    }
+
+    private static double heuristic(BlockPos a, BlockPos b) {
+        int dx = Math.abs(a.getX() - b.getX());
+        int dy = Math.abs(a.getY() - b.getY());
+        int dz = Math.abs(a.getZ() - b.getZ());
+        return dx + dz + (dy * 1.25);
+    }
+
+    private static double wallPenalty(NavGrid world, BlockPos p) {
+        int solids = 0;
+        if (!isEmpty(world, p.north())) solids++;
+        if (!isEmpty(world, p.south())) solids++;
+        if (!isEmpty(world, p.east())) solids++;
+        if (!isEmpty(world, p.west())) solids++;
+        return solids * 0.20;
+    }
+
+    private static List<Neighbor> neighbors(NavGrid world, BlockPos o) {
+        List<Neighbor> out = new ArrayList<>(24);
+        int[][] deltas8 = new int[][] { {1,0},{-1,0},{0,1},{0,-1},{1,1},{1,-1},{-1,1},{-1,-1} };
+
+        for (int[] d : deltas8) {
+            int dx = d[0], dz = d[1];
+            boolean diag = (dx != 0 && dz != 0);
+
+            if (diag && !canDiagonal(world, o, dx, dz)) continue;
+
+            BlockPos same = o.add(dx, 0, dz);
+            if (isStandable(world, same)) {
+                out.add(new Neighbor(same, diag ? 1.4142 : 1.0));
+                continue;
+            }
+
+            BlockPos up = o.add(dx, 1, dz);
+            if (isStandable(world, up)) {
+                out.add(new Neighbor(up, diag ? 1.9 : 1.5));
+                continue;
+            }
+
+            for (int drop = 1; drop <= MAX_DROP_DOWN; drop++) {
+                BlockPos down = o.add(dx, -drop, dz);
+                if (!isStandable(world, down)) continue;
+                if (!hasEscapeBackUp(world, down, o.getY())) continue;
+                out.add(new Neighbor(down, (diag ? 1.4142 : 1.0) + (drop * 0.55)));
+                break;
+            }
+        }
+        return out;
+    }
+
+    private static boolean canDiagonal(NavGrid world, BlockPos o, int dx, int dz) {
+        BlockPos a = o.add(dx, 0, 0);
+        BlockPos b = o.add(0, 0, dz);
+        return isBodyPassable(world, a) && isEmpty(world, a.up())
+                && isBodyPassable(world, b) && isEmpty(world, b.up());
+    }
+
+    private static boolean hasEscapeBackUp(NavGrid world, BlockPos start, int originY) {
+        if (start.getY() >= originY) return true;
+
+        ArrayDeque<BlockPos> q = new ArrayDeque<>();
+        HashSet<BlockPos> seen = new HashSet<>();
+        q.add(start);
+        seen.add(start);
+
+        int expanded = 0;
+        while (!q.isEmpty() && expanded < DROP_ESCAPE_SEARCH_LIMIT) {
+            BlockPos cur = q.poll();
+            expanded++;
+
+            if (cur.getY() >= originY) return true;
+            if (manhattan(cur, start) > DROP_ESCAPE_MAX_RADIUS) continue;
+
+            for (int[] d : new int[][] { {1,0},{-1,0},{0,1},{0,-1} }) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    BlockPos p = cur.add(d[0], dy, d[1]);
+                    if (seen.contains(p) || !isStandable(world, p)) continue;
+                    seen.add(p);
+                    q.add(p);
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isStandable(NavGrid world, BlockPos pos) {
+        if (isFluid(world, pos)) return false;
+        if (!isBodyPassable(world, pos)) return false;
+        if (!isEmpty(world, pos.up())) return false;
+        if (isFluid(world, pos.up())) return false;
+
+        if (!isEmpty(world, pos)) return true;
+        BlockPos below = pos.down();
+        if (isFluid(world, below)) return false;
+        return !isEmpty(world, below);
+    }
+
+    private static boolean isBodyPassable(NavGrid world, BlockPos pos) {
+        return (flags(world, pos) & PassabilityTable.BODY_PASSABLE) != 0;
+    }
+
+    private static boolean isEmpty(NavGrid world, BlockPos pos) {
+        return (flags(world, pos) & PassabilityTable.HEAD_PASSABLE) != 0;
+    }
+
+    private static boolean isFluid(NavGrid world, BlockPos pos) {
+        return (flags(world, pos) & PassabilityTable.FLUID) != 0;
+    }
+
+    private static int flags(NavGrid world, BlockPos pos) {
+        return world.flagsAt(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    private static int manhattan(BlockPos a, BlockPos b) {
+        return Math.abs(a.getX() - b.getX()) + Math.abs(a.getY() - b.getY()) + Math.abs(a.getZ() - b.getZ());
+    }
+}
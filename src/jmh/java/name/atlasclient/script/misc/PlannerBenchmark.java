@@ -0,0 +1,227 @@
+package name.atlasclient.script.misc;
+
+import name.atlasclient.pathing.AStar;
+import name.atlasclient.pathing.DStarLite;
+import name.atlasclient.pathing.JumpPointSearch;
+import name.atlasclient.pathing.Landmarks;
+import net.minecraft.util.math.BlockPos;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Offline planner benchmark (./gradlew jmh): AStar (with and without landmark tables),
+ * JumpPointSearch and a fresh DStarLite session against the SyntheticWorlds scenarios through NavGrid,
+ * with the same settings PathfindScript plans with. "legacy" is the original object-based A*
+ * (LegacyAStar), the baseline for AStar's primitive rewrite; setup fails the trial if the two disagree
+ * on reachability.
+ *
+ * Reports time per op; bytes per op come from the gc profiler (gc.alloc.rate.norm). Nodes each planner
+ * closed are an OPERATIONS aux counter ("nodes"), so in this average-time mode they print as time per
+ * node next to the score: nodes per op = (us/op) / (us/node).
+ *
+ * Landmark tables: the ALT search keys on AStar's consistent octile bound raised by the landmark bound,
+ * so it returns a cheapest path, while plain A*'s own estimate overestimates and may settle for a
+ * costlier one. Setup fails the trial if A* with the table costs more than without it.
+ *
+ * Multi-goal search: findAny runs toward ANY_GOALS cells of AStar's path (last one included), each with
+ * a bonus that makes the nearer ones the costlier pick, and perGoal is what navigateToAny replaces (one
+ * AStar.find per goal, keep the cheapest). Setup fails the trial if findAny disagrees with perGoal on
+ * reachability, or its pick (walk + bonus) costs more than ANY_COST_TOLERANCE over perGoal's.
+ *
+ * DStarLite keys on the same consistent bound as the ALT search, so its path is optimal for AStar's edge
+ * costs. Setup fails the trial if DStarLite disagrees with AStar on reachability, takes a step AStar
+ * would not, or costs more than AStar's path (OPTIMAL_COST_TOLERANCE only absorbs float sums taken in
+ * another order).
+ *
+ * "mines" (an in-game capture) is not a default parameter because its dump does not ship. Capture one
+ * with /pathbench dump, copy it to src/jmh/resources/navdumps/dwarven_mines.navdump.gz, then run
+ * ./gradlew jmhJar and java -jar build/libs/<name>-jmh.jar PlannerBenchmark -p world=mines.
+ *
+ * No Minecraft bootstrap is needed: the scenarios are PassabilityTable flags behind NavGrid, and the
+ * planners in name.atlasclient.pathing only touch BlockPos packing and their own search classes, never registries,
+ * block states or a client world. A new planner path that does has to call SharedConstants.createGameVersion()
+ * and Bootstrap.initialize() here first.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PlannerBenchmark {
+
+    // The planner settings PathfindScript and AStar use.
+    private static final int MAX_ITERATIONS = PathfindScript.MAX_ITERATIONS;
+    private static final int MAX_RANGE = PathfindScript.MAX_RANGE;
+    private static final double JPS_MAX_DETOUR = PathfindScript.JPS_MAX_DETOUR;
+    private static final int MAX_DROP_DOWN = AStar.MAX_DROP_DOWN;
+    private static final int LANDMARK_COUNT = Landmarks.LANDMARK_COUNT;
+    private static final double OPTIMAL_COST_TOLERANCE = 1e-9;
+    private static final int ANY_GOALS = 4;
+    private static final double ANY_COST_TOLERANCE = 0.01;
+
+    @Param({ "flat", "maze", "cave", "stairs" })
+    public String world;
+
+    private SyntheticWorlds.Scenario scenario;
+    private Landmarks.Table landmarks;
+    private final DStarLite dstar = new DStarLite();
+    private List<BlockPos> anyGoals = Collections.emptyList();
+    private double[] anyBonus = new double[0];
+
+    /** Nodes closed (or jump points expanded) by the measured planner, per iteration. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Expansions {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        scenario = SyntheticWorlds.create(world);
+        // Tables are built once per island in game; here once per trial, outside the measurement.
+        landmarks = Landmarks.build(scenario.grid, scenario.start, LANDMARK_COUNT, world, -1L, 0, 0L);
+
+        Expansions counted = new Expansions(); // setup runs are not measured
+        List<BlockPos> a = astar(counted);
+        List<BlockPos> legacy = legacy(counted);
+        if (a.isEmpty() != legacy.isEmpty()) {
+            throw new IllegalStateException(world + ": astar found " + a.size() + " nodes, legacy " + legacy.size());
+        }
+        checkOptimal("landmarks", a, astarAlt(counted));
+        checkOptimal("dstar", a, dstarLite(counted));
+
+        if (!a.isEmpty()) {
+            // Goals spread along the A* path; bonus[i] is what the rest of the path would cost, times 1.2.
+            double total = AStar.pathCost(scenario.grid, a);
+            anyGoals = new ArrayList<>(ANY_GOALS);
+            anyBonus = new double[ANY_GOALS];
+            for (int i = 0; i < ANY_GOALS; i++) {
+                int at = (a.size() - 1) * (i + 1) / ANY_GOALS;
+                anyGoals.add(a.get(at));
+                anyBonus[i] = 1.2 * (total - AStar.pathCost(scenario.grid, a.subList(0, at + 1)));
+            }
+        }
+        checkFindAny(findAny(counted), perGoal(counted));
+    }
+
+    /** Walking cost of a multi-goal result plus the bonus of the goal it ends at; NaN if it ends elsewhere. */
+    private double anyCost(List<BlockPos> path) {
+        int i = anyGoals.indexOf(path.get(path.size() - 1));
+        return (i < 0) ? Double.NaN : AStar.pathCost(scenario.grid, path) + anyBonus[i];
+    }
+
+    private void checkFindAny(List<BlockPos> any, List<BlockPos> perGoal) {
+        if (any.isEmpty() != perGoal.isEmpty()) {
+            throw new IllegalStateException(world + ": findAny found " + any.size() + " nodes, per-goal " + perGoal.size());
+        }
+        if (any.isEmpty()) return;
+
+        double a = anyCost(any);
+        double p = anyCost(perGoal);
+        if (Double.isNaN(a) || a > p * (1.0 + ANY_COST_TOLERANCE)) {
+            throw new IllegalStateException(world + ": findAny cost " + a + " vs per-goal " + p);
+        }
+    }
+
+    /** A planner keyed on a consistent bound must reach what A* reaches, at no more than A*'s cost. */
+    private void checkOptimal(String name, List<BlockPos> astar, List<BlockPos> path) {
+        if (astar.isEmpty() != path.isEmpty()) {
+            throw new IllegalStateException(world + ": astar found " + astar.size() + " nodes, " + name + " " + path.size());
+        }
+        if (astar.isEmpty()) return;
+
+        double a = AStar.pathCost(scenario.grid, astar);
+        double c = AStar.pathCost(scenario.grid, path);
+        if (Double.isNaN(c) || c > a * (1.0 + OPTIMAL_COST_TOLERANCE)) {
+            throw new IllegalStateException(world + ": " + name + " path cost " + c + " vs astar " + a);
+        }
+    }
+
+    @Benchmark
+    public List<BlockPos> astar(Expansions e) {
+        List<BlockPos> path = AStar.find(scenario.grid, scenario.start, scenario.goal, MAX_RANGE, MAX_ITERATIONS,
+                true, true, true, MAX_DROP_DOWN, Collections.emptySet());
+        e.nodes += AStar.lastExpansions();
+        return path;
+    }
+
+    /** The original object-based A*, as it ran before the primitive rewrite. */
+    @Benchmark
+    public List<BlockPos> legacy(Expansions e) {
+        List<BlockPos> path = LegacyAStar.find(scenario.grid, scenario.start, scenario.goal);
+        e.nodes += LegacyAStar.lastExpansions;
+        return path;
+    }
+
+    /** A* with the landmark (ALT) bound, as used on islands with a table. */
+    @Benchmark
+    public List<BlockPos> astarAlt(Expansions e) {
+        List<BlockPos> path = AStar.find(scenario.grid, scenario.start, scenario.goal, MAX_RANGE, MAX_ITERATIONS,
+                true, true, true, MAX_DROP_DOWN, Collections.emptySet(), landmarks);
+        e.nodes += AStar.lastExpansions();
+        return path;
+    }
+
+    /** One multi-goal search, as navigateToAny plans. */
+    @Benchmark
+    public List<BlockPos> findAny(Expansions e) {
+        List<BlockPos> path = AStar.findAny(scenario.grid, scenario.start, anyGoals, anyBonus, MAX_RANGE,
+                MAX_ITERATIONS, true, true, true, MAX_DROP_DOWN, Collections.emptySet());
+        e.nodes += AStar.lastExpansions();
+        return path;
+    }
+
+    /** One search per goal, keeping the cheapest (walk + bonus): what findAny replaces. */
+    @Benchmark
+    public List<BlockPos> perGoal(Expansions e) {
+        List<BlockPos> best = Collections.emptyList();
+        double bestCost = Double.MAX_VALUE;
+        for (int i = 0; i < anyGoals.size(); i++) {
+            List<BlockPos> p = AStar.find(scenario.grid, scenario.start, anyGoals.get(i), MAX_RANGE,
+                    MAX_ITERATIONS, true, true, true, MAX_DROP_DOWN, Collections.emptySet());
+            e.nodes += AStar.lastExpansions();
+            if (p.isEmpty()) continue;
+            double c = AStar.pathCost(scenario.grid, p) + anyBonus[i];
+            if (c < bestCost) {
+                bestCost = c;
+                best = p;
+            }
+        }
+        return best;
+    }
+
+    /** Incremental planner's first plan of a session (no state to reuse). */
+    @Benchmark
+    public List<BlockPos> dstarLite(Expansions e) {
+        List<BlockPos> path = dstar.plan(scenario.grid, scenario.start, scenario.goal, true, new long[0], 0,
+                Collections.emptySet(), MAX_RANGE, MAX_ITERATIONS);
+        e.nodes += dstar.lastExpansions();
+        return path;
+    }
+
+    /** Same-layer fast path; returns empty quickly when start/goal differ in Y or the layer is not wall-free. */
+    @Benchmark
+    public List<BlockPos> jps(Expansions e) {
+        List<BlockPos> path = JumpPointSearch.find(scenario.grid, scenario.start, scenario.goal, MAX_RANGE,
+                MAX_ITERATIONS, JPS_MAX_DETOUR);
+        e.nodes += JumpPointSearch.lastExpansions();
+        return path;
+    }
+}
@@ -0,0 +1,205 @@
+package name.atlasclient.script.misc;
+
+import name.atlasclient.pathing.ArrayNavGrid;
+import name.atlasclient.pathing.NavGrid;
+import name.atlasclient.pathing.PassabilityTable;
+import net.minecraft.util.math.BlockPos;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Random;
+
+/**
+ * Deterministic voxel worlds for PlannerBenchmark, built directly as PassabilityTable flags (no
+ * Minecraft world or registries needed).
+ *
+ * Trips stay under PathfindScript.MAX_RANGE (170 Manhattan from the start), so every scenario is
+ * solvable by the real planner settings.
+ */
+final class SyntheticWorlds {
+
+    static final int SOLID = PassabilityTable.SOLID_FLOOR | PassabilityTable.WALL_SOLID;
+    static final int AIR = PassabilityTable.BODY_PASSABLE | PassabilityTable.HEAD_PASSABLE;
+
+    /** Captured with /pathbench dump, copied into src/jmh/resources/navdumps. */
+    static final String MINES_DUMP = "/navdumps/dwarven_mines.navdump.gz";
+
+    static final class Scenario {
+        final String name;
+        final NavGrid grid;
+        final BlockPos start;
+        final BlockPos goal;
+
+        Scenario(String name, NavGrid grid, BlockPos start, BlockPos goal) {
+            this.name = name;
+            this.grid = grid;
+            this.start = start;
+            this.goal = goal;
+        }
+    }
+
+    private SyntheticWorlds() {}
+
+    static Scenario create(String name) throws IOException {
+        switch (name) {
+            case "flat": return flat();
+            case "maze": return maze();
+            case "cave": return cave();
+            case "stairs": return stairs();
+            case "mines": return mines();
+            default: throw new IllegalArgumentException("Unknown world " + name);
+        }
+    }
+
+    /** Open superflat field: the best case (JPS applies, no walls, no height changes). */
+    static Scenario flat() {
+        ArrayNavGrid g = new ArrayNavGrid(0, 56, 0, 160, 24, 64);
+        g.fill(0, 56, 0, 159, 63, 63, SOLID);
+        return new Scenario("flat", g, new BlockPos(4, 64, 4), new BlockPos(124, 64, 40));
+    }
+
+    /** 1-wide corridor maze (randomized DFS): every cell pays the wall penalty, JPS never applies. */
+    static Scenario maze() {
+        final int cells = 30;
+        final int size = cells * 2 + 1;
+        ArrayNavGrid g = new ArrayNavGrid(0, 56, 0, size, 24, size);
+        g.fill(0, 56, 0, size - 1, 63, size - 1, SOLID);
+        g.fill(0, 64, 0, size - 1, 66, size - 1, SOLID);
+
+        Random r = new Random(42L);
+        boolean[] seen = new boolean[cells * cells];
+        ArrayDeque<int[]> stack = new ArrayDeque<>();
+        stack.push(new int[] { 0, 0 });
+        seen[0] = true;
+        carveMazeCell(g, 0, 0);
+
+        int[][] dirs = { {1, 0}, {-1, 0}, {0, 1}, {0, -1} };
+        while (!stack.isEmpty()) {
+            int[] cur = stack.peek();
+            int[] order = { 0, 1, 2, 3 };
+            for (int i = 3; i > 0; i--) {
+                int j = r.nextInt(i + 1);
+                int t = order[i]; order[i] = order[j]; order[j] = t;
+            }
+
+            boolean moved = false;
+            for (int k : order) {
+                int nx = cur[0] + dirs[k][0], nz = cur[1] + dirs[k][1];
+                if (nx < 0 || nz < 0 || nx >= cells || nz >= cells || seen[nx * cells + nz]) continue;
+                seen[nx * cells + nz] = true;
+                // Knock out the wall between the two cells, then the cell itself.
+                g.fill(cur[0] * 2 + 1 + dirs[k][0], 64, cur[1] * 2 + 1 + dirs[k][1],
+                        cur[0] * 2 + 1 + dirs[k][0], 66, cur[1] * 2 + 1 + dirs[k][1], AIR);
+                carveMazeCell(g, nx, nz);
+                stack.push(new int[] { nx, nz });
+                moved = true;
+                break;
+            }
+            if (!moved) stack.pop();
+        }
+
+        return new Scenario("maze", g, new BlockPos(1, 64, 1), new BlockPos(size - 2, 64, size - 2));
+    }
+
+    private static void carveMazeCell(ArrayNavGrid g, int cx, int cz) {
+        g.fill(cx * 2 + 1, 64, cz * 2 + 1, cx * 2 + 1, 66, cz * 2 + 1, AIR);
+    }
+
+    /** Solid rock with a winding tunnel (plus dead-end side tunnels): uneven floors, step-ups and drops. */
+    static Scenario cave() {
+        ArrayNavGrid g = new ArrayNavGrid(0, 24, 0, 112, 56, 112);
+        g.fill(0, 24, 0, 111, 79, 111, SOLID);
+
+        Random r = new Random(7L);
+        double[] end = worm(g, r, 8, 50, 8, 88, 50, 72, 2.2, 400);
+        for (int i = 0; i < 8; i++) {
+            worm(g, r, 10 + r.nextInt(90), 40 + r.nextInt(20), 10 + r.nextInt(90),
+                    10 + r.nextInt(90), 40 + r.nextInt(20), 10 + r.nextInt(90), 1.6, 60);
+        }
+
+        BlockPos start = floorBelow(g, 8, 50, 8);
+        BlockPos goal = floorBelow(g, (int) end[0], (int) end[1], (int) end[2]);
+        return new Scenario("cave", g, start, goal);
+    }
+
+    /**
+     * Carves spheres along a noisy walk from a toward b. Vertical drift per step stays well under one
+     * block so the tunnel floor is always walkable (step-ups of at most one block).
+     */
+    private static double[] worm(ArrayNavGrid g, Random r, int ax, int ay, int az, int bx, int by, int bz,
+                                 double radius, int maxSteps) {
+        double x = ax, y = ay, z = az;
+        double yaw = Math.atan2(bz - az, bx - ax);
+        for (int step = 0; step < maxSteps; step++) {
+            carveSphere(g, x, y, z, radius);
+
+            double dx = bx - x, dz = bz - z;
+            if (dx * dx + dz * dz < 4.0) break;
+
+            double want = Math.atan2(dz, dx);
+            double diff = Math.atan2(Math.sin(want - yaw), Math.cos(want - yaw));
+            yaw += diff * 0.25 + (r.nextDouble() - 0.5) * 0.9;
+
+            x += Math.cos(yaw);
+            z += Math.sin(yaw);
+            y += Math.max(-0.35, Math.min(0.35, (by - y) * 0.05 + (r.nextDouble() - 0.5) * 0.6));
+        }
+        return new double[] { x, y, z };
+    }
+
+    private static void carveSphere(ArrayNavGrid g, double cx, double cy, double cz, double radius) {
+        int r = (int) Math.ceil(radius);
+        for (int dy = -r; dy <= r; dy++) {
+            for (int dz = -r; dz <= r; dz++) {
+                for (int dx = -r; dx <= r; dx++) {
+                    if (dx * dx + dy * dy + dz * dz > radius * radius) continue;
+                    g.set((int) Math.floor(cx) + dx, (int) Math.floor(cy) + dy, (int) Math.floor(cz) + dz, AIR);
+                }
+            }
+        }
+    }
+
+    /** Rolling terraces: constant 1-block step-ups and drops in every direction. */
+    static Scenario stairs() {
+        ArrayNavGrid g = new ArrayNavGrid(0, 48, 0, 144, 40, 64);
+        for (int x = 0; x < 144; x++) {
+            for (int z = 0; z < 64; z++) {
+                g.fill(x, 48, z, x, terrace(x, z) - 1, z, SOLID);
+            }
+        }
+        return new Scenario("stairs", g,
+                new BlockPos(4, terrace(4, 4), 4), new BlockPos(120, terrace(120, 36), 36));
+    }
+
+    private static int terrace(int x, int z) {
+        return 64 + (int) Math.round(3.0 * Math.sin(x / 7.0) + 3.0 * Math.cos(z / 9.0));
+    }
+
+    /** In-game capture; start/goal are snapped to the nearest standable cell below like PathfindScript does. */
+    static Scenario mines() throws IOException {
+        try (InputStream in = SyntheticWorlds.class.getResourceAsStream(MINES_DUMP)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing " + MINES_DUMP
+                        + ": capture one in the Dwarven Mines with /pathbench dump <x> <y> <z> and copy it there");
+            }
+            ArrayNavGrid.Dump d = ArrayNavGrid.read(in);
+            return new Scenario("mines", d.grid, snap(d.grid, d.start), snap(d.grid, d.goal));
+        }
+    }
+
+    private static BlockPos snap(NavGrid g, BlockPos p) {
+        for (int dy = 0; dy <= 3; dy++) {
+            if (g.isStandable(p.getX(), p.getY() + dy, p.getZ())) return p.up(dy);
+            if (g.isStandable(p.getX(), p.getY() - dy, p.getZ())) return p.down(dy);
+        }
+        return p;
+    }
+
+    private static BlockPos floorBelow(NavGrid g, int x, int y, int z) {
+        for (int yy = y + 3; yy > y - 12; yy--) {
+            if (g.isStandable(x, yy, z)) return new BlockPos(x, yy, z);
+        }
+        return new BlockPos(x, y, z);
+    }
+}
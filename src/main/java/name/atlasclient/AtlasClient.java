@@ -1,9 +1,13 @@
 package name.atlasclient;
 
 import com.mojang.brigadier.arguments.IntegerArgumentType;
+import name.atlasclient.pathing.NavCache;
+import name.atlasclient.pathing.PassabilityTable;
+import name.atlasclient.render.WorldOverlay;
 import name.atlasclient.script.ExampleScript;
 import name.atlasclient.script.Script;
 import name.atlasclient.script.ScriptManager;
+import name.atlasclient.script.misc.PathfindBenchmark;
 import name.atlasclient.script.misc.PathfindScript;
 import name.atlasclient.ui.AtlasMainScreen;
 import net.fabricmc.api.ClientModInitializer;
@@ -11,6 +15,7 @@ import net.fabricmc.fabric.api.client.command.v2.ClientCommandManager;
 import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallback;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.keybinding.v1.KeyBindingHelper;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.option.KeyBinding;
 import net.minecraft.text.Text;
@@ -84,6 +89,13 @@ public class AtlasClient implements ClientModInitializer {
             }
         });
 
+        // Pathfinder passability table (indexed by BlockState raw id; rebuilt on each world join) + nav cache
+        ClientPlayConnectionEvents.JOIN.register((handler, sender, mc) -> PassabilityTable.rebuild());
+        NavCache.init();
+
+        // Shared world overlay (the single world render hook for script highlights)
+        WorldOverlay.init();
+
         // Commands
         ClientCommandRegistrationCallback.EVENT.register((dispatcher, registryAccess) -> {
 
@@ -157,6 +169,44 @@ public class AtlasClient implements ClientModInitializer {
                             )
                     )
             );
+
+            // /pathbench dump <x> <y> <z> - write the same box as a nav dump for the offline JMH suite
+            dispatcher.register(ClientCommandManager.literal("pathbench")
+                    .then(ClientCommandManager.literal("dump")
+                            .then(ClientCommandManager.argument("x", IntegerArgumentType.integer())
+                                    .then(ClientCommandManager.argument("y", IntegerArgumentType.integer())
+                                            .then(ClientCommandManager.argument("z", IntegerArgumentType.integer())
+                                                    .executes(ctx -> {
+                                                        BlockPos target = new BlockPos(
+                                                                IntegerArgumentType.getInteger(ctx, "x"),
+                                                                IntegerArgumentType.getInteger(ctx, "y"),
+                                                                IntegerArgumentType.getInteger(ctx, "z"));
+
+                                                        MinecraftClient mc = MinecraftClient.getInstance();
+                                                        mc.execute(() -> {
+                                                            if (mc.player == null || mc.world == null) return;
+                                                            try {
+                                                                BlockPos start = PathfindScript.standableStart(mc.world, mc.player);
+                                                                if (start == null) {
+                                                                    mc.player.sendMessage(Text.literal("Nav dump skipped: no standable cell under the player."), false);
+                                                                    return;
+                                                                }
+                                                                String file = PathfindBenchmark.dump(mc.world, start, target).toString();
+                                                                LOGGER.info("Nav dump written to {}", file);
+                                                                mc.player.sendMessage(Text.literal("Nav dump written to " + file), false);
+                                                            } catch (Throwable t) {
+                                                                LOGGER.error("Nav dump failed", t);
+                                                                mc.player.sendMessage(Text.literal("Nav dump failed (see latest.log)."), false);
+                                                            }
+                                                        });
+
+                                                        return 1;
+                                                    })
+                                            )
+                                    )
+                            )
+                    )
+            );
         });
     }
 
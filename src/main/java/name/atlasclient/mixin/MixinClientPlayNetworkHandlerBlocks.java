@@ -0,0 +1,34 @@
+package name.atlasclient.mixin;
+
+import name.atlasclient.world.BlockChangeEvents;
+import net.minecraft.client.network.ClientPlayNetworkHandler;
+import net.minecraft.network.packet.s2c.play.BlockUpdateS2CPacket;
+import net.minecraft.network.packet.s2c.play.ChunkDataS2CPacket;
+import net.minecraft.network.packet.s2c.play.ChunkDeltaUpdateS2CPacket;
+import net.minecraft.util.math.BlockPos;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+// TAIL: these handlers bounce to the client thread at HEAD, so TAIL only runs once, after the world is updated.
+@Mixin(ClientPlayNetworkHandler.class)
+public class MixinClientPlayNetworkHandlerBlocks {
+
+    @Inject(method = "onBlockUpdate", at = @At("TAIL"))
+    private void atlas$onBlockUpdate(BlockUpdateS2CPacket packet, CallbackInfo ci) {
+        BlockPos pos = packet.getPos();
+        BlockChangeEvents.BLOCK_CHANGED.invoker().onBlockChanged(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    @Inject(method = "onChunkDeltaUpdate", at = @At("TAIL"))
+    private void atlas$onChunkDeltaUpdate(ChunkDeltaUpdateS2CPacket packet, CallbackInfo ci) {
+        packet.visitUpdates((pos, state) ->
+                BlockChangeEvents.BLOCK_CHANGED.invoker().onBlockChanged(pos.getX(), pos.getY(), pos.getZ()));
+    }
+
+    @Inject(method = "onChunkData", at = @At("TAIL"))
+    private void atlas$onChunkData(ChunkDataS2CPacket packet, CallbackInfo ci) {
+        BlockChangeEvents.CHUNK_CHANGED.invoker().onChunkChanged(packet.getChunkX(), packet.getChunkZ());
+    }
+}
@@ -12,11 +12,18 @@ import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
+// HEAD, not TAIL: onParticle returns early when spawning a particle throws, so a TAIL hook missed those
+// packets. onParticle first hops from the network thread to the client thread (forceMainThread schedules
+// the packet and throws), so HEAD runs twice; only the client-thread pass records, which keeps every
+// particle counted once and MithrilMiningScript's CRIT ring on one thread.
 @Mixin(ClientPlayNetworkHandler.class)
 public class MixinClientPlayNetworkHandlerParticles {
 
     @Inject(method = "onParticle", at = @At("HEAD"))
     private void atlas$onParticle(ParticleS2CPacket packet, CallbackInfo ci) {
+        MinecraftClient mc = MinecraftClient.getInstance();
+        if (mc == null || !mc.isOnThread()) return;
+
         ParticleEffect effect = packet.getParameters();
         if (effect == null) return;
 
@@ -25,8 +32,7 @@ public class MixinClientPlayNetworkHandlerParticles {
 
         String s = id.toString();
 
-        MinecraftClient mc = MinecraftClient.getInstance();
-        if (mc != null && mc.player != null) {
+        if (mc.player != null) {
             double d2 = mc.player.squaredDistanceTo(packet.getX(), packet.getY(), packet.getZ());
             if (d2 < 25.0) {
                 MithrilMiningScript.debugParticleSeen(s, packet.getX(), packet.getY(), packet.getZ());
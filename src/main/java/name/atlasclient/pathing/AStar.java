@@ -0,0 +1,834 @@
+package name.atlasclient.pathing;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.BlockView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Allocation-light A*: packed-long cell keys, an open-addressing long->int node index,
+ * struct-of-arrays node storage with int parent links, and an indexed heap with decrease-key
+ * (no duplicate queue entries). Scratch storage is per thread and reused across searches.
+ * Blocks are only read through NavGrid, so the planners run the same on a snapshot, the live
+ * world or a synthetic benchmark grid.
+ *
+ * The successor graph (moves, costs, drop rules) defined here is the one every other planner searches:
+ * DStarLite, RegionRouter, JumpPointSearch and Landmarks call neighbors/successor/wallPenalty instead of
+ * restating the rules.
+ */
+public final class AStar {
+
+    // Movement topology the planners share.
+    public static final boolean ALLOW_DIAGONALS = true;
+    public static final boolean ALLOW_STEP_UP = true;
+    public static final boolean ALLOW_DROP_DOWN = true;
+    public static final int MAX_DROP_DOWN = 4;
+    // A drop is only an edge if the landing can walk back up to the origin level within this BFS.
+    public static final int DROP_ESCAPE_SEARCH_LIMIT = 200;
+    public static final int DROP_ESCAPE_MAX_RADIUS = 9;
+
+    private AStar() {}
+
+    /** Reusable per-thread search storage. Node ids are dense indices into the arrays. */
+    static final class Search {
+        final LongIntHashMap index = new LongIntHashMap(1 << 14, -1);
+        final IndexedMinHeap open = new IndexedMinHeap(1 << 12);
+
+        long[] cell = new long[1 << 12];
+        double[] g = new double[1 << 12];
+        int[] parent = new int[1 << 12];
+        boolean[] closed = new boolean[1 << 12];
+        int count;
+
+        // Neighbor output buffer (at most 8 directions, one target each)
+        final long[] nbCell = new long[8];
+        final double[] nbCost = new double[8];
+        int nbCount;
+
+        // Drop-escape BFS scratch: visited set + FIFO (each expanded cell enqueues at most 12)
+        final LongIntHashMap escapeSeen = new LongIntHashMap(1 << 10, -1);
+        final long[] escapeQueue = new long[DROP_ESCAPE_SEARCH_LIMIT * 12 + 1];
+        // Set by DStarLite: escape answers then come from its session memo instead of EscapeCache, and the
+        // BFS records the box of cells it read (readMin*/readMax*) next to each answer.
+        EscapeMemo escapeMemo;
+        int readMinX, readMinY, readMinZ, readMaxX, readMaxY, readMaxZ;
+
+        int expansions;
+
+        void reset() {
+            index.clear();
+            open.clear();
+            count = 0;
+            expansions = 0;
+        }
+
+        /** Grows the read box by the cells isStandable(x, y, z) reads. */
+        void read(int x, int y, int z) {
+            readMinX = Math.min(readMinX, x);
+            readMaxX = Math.max(readMaxX, x);
+            readMinY = Math.min(readMinY, y - 1);
+            readMaxY = Math.max(readMaxY, y + 1);
+            readMinZ = Math.min(readMinZ, z);
+            readMaxZ = Math.max(readMaxZ, z);
+        }
+
+        int add(long key, double gScore, int parentId) {
+            if (count == cell.length) {
+                int cap = count << 1;
+                cell = Arrays.copyOf(cell, cap);
+                g = Arrays.copyOf(g, cap);
+                parent = Arrays.copyOf(parent, cap);
+                closed = Arrays.copyOf(closed, cap);
+            }
+            int id = count++;
+            cell[id] = key;
+            g[id] = gScore;
+            parent[id] = parentId;
+            closed[id] = false;
+            index.put(key, id);
+            return id;
+        }
+    }
+
+    /**
+     * Drop-escape answers for one DStarLite session, each with the box of cells its BFS read, so a block
+     * change only reopens the drops whose answer could depend on it. Entries are per landing cell, one
+     * slot per rise (originY - landing y).
+     */
+    static final class EscapeMemo {
+        static final int RISES = Math.max(1, MAX_DROP_DOWN);
+
+        private static final byte UNKNOWN = 0;
+        private static final byte NO_ESCAPE = 1;
+        private static final byte ESCAPE = 2;
+
+        private final LongIntHashMap index = new LongIntHashMap(1 << 10, -1); // landing cell -> entry
+        long[] landing = new long[1 << 8];
+        private byte[] answer = new byte[(1 << 8) * RISES];
+        private int[] box = new int[(1 << 8) * RISES * 6]; // minX, minY, minZ, maxX, maxY, maxZ per slot
+        int count;
+
+        void clear() {
+            index.clear();
+            count = 0;
+        }
+
+        boolean escape(NavGrid world, Search s, int x, int y, int z, int originY) {
+            int rise = originY - y;
+            long key = BlockPos.asLong(x, y, z);
+            int e = index.get(key);
+            if (e >= 0 && answer[slot(e, rise)] != UNKNOWN) return answer[slot(e, rise)] == ESCAPE;
+
+            s.readMinX = s.readMaxX = x;
+            s.readMinY = s.readMaxY = y;
+            s.readMinZ = s.readMaxZ = z;
+            boolean escape = escapeSearch(world, s, x, y, z, originY);
+
+            if (e < 0) e = add(key);
+            int sl = slot(e, rise);
+            answer[sl] = escape ? ESCAPE : NO_ESCAPE;
+            int b = sl * 6;
+            box[b] = s.readMinX;
+            box[b + 1] = s.readMinY;
+            box[b + 2] = s.readMinZ;
+            box[b + 3] = s.readMaxX;
+            box[b + 4] = s.readMaxY;
+            box[b + 5] = s.readMaxZ;
+            return escape;
+        }
+
+        /** Forgets entry e's answer for rise if its BFS read (x, y, z); true if it did. */
+        boolean forget(int e, int rise, int x, int y, int z) {
+            int sl = slot(e, rise);
+            if (answer[sl] == UNKNOWN) return false;
+            int b = sl * 6;
+            if (x < box[b] || y < box[b + 1] || z < box[b + 2] || x > box[b + 3] || y > box[b + 4] || z > box[b + 5]) {
+                return false;
+            }
+            answer[sl] = UNKNOWN;
+            return true;
+        }
+
+        private int add(long key) {
+            if (count == landing.length) {
+                int cap = count << 1;
+                landing = Arrays.copyOf(landing, cap);
+                answer = Arrays.copyOf(answer, cap * RISES);
+                box = Arrays.copyOf(box, cap * RISES * 6);
+            }
+            int e = count++;
+            landing[e] = key;
+            Arrays.fill(answer, e * RISES, (e + 1) * RISES, UNKNOWN);
+            index.put(key, e);
+            return e;
+        }
+
+        private static int slot(int e, int rise) {
+            return e * RISES + rise - 1;
+        }
+    }
+
+    private static final ThreadLocal<Search> SEARCH = ThreadLocal.withInitial(Search::new);
+
+    static final int[][] DELTAS4 = new int[][] { {1,0},{-1,0},{0,1},{0,-1} };
+    static final int[][] DELTAS8 = new int[][] { {1,0},{-1,0},{0,1},{0,-1},{1,1},{1,-1},{-1,1},{-1,-1} };
+
+    /** Path from start to goal (both included), or empty if there is none within the limits. */
+    public static List<BlockPos> find(NavGrid world,
+                                      BlockPos start,
+                                      BlockPos goal,
+                                      int maxRange,
+                                      int maxIterations,
+                                      boolean diagonals,
+                                      boolean stepUp,
+                                      boolean allowDropDown,
+                                      int maxDropDown,
+                                      Set<Long> avoidedStepUps) {
+        return find(world, start, goal, maxRange, maxIterations, diagonals, stepUp, allowDropDown, maxDropDown,
+                avoidedStepUps, null);
+    }
+
+    /** Same, with a landmark table for the ALT bound (null = Manhattan heuristic only). */
+    public static List<BlockPos> find(NavGrid world,
+                                      BlockPos start,
+                                      BlockPos goal,
+                                      int maxRange,
+                                      int maxIterations,
+                                      boolean diagonals,
+                                      boolean stepUp,
+                                      boolean allowDropDown,
+                                      int maxDropDown,
+                                      Set<Long> avoidedStepUps,
+                                      Landmarks.Table landmarks) {
+
+        Resumable r = new Resumable(SEARCH.get());
+        if (!r.begin(world, start, goal, maxRange, maxIterations, diagonals, stepUp, allowDropDown, maxDropDown,
+                avoidedStepUps, landmarks)) {
+            return Collections.emptyList();
+        }
+        return (r.step(UNBOUNDED) == Resumable.FOUND) ? r.result() : Collections.emptyList();
+    }
+
+    /**
+     * One search toward the cheapest of several goals: arriving at goals[i] costs bonus[i] extra (null =
+     * none). Returns the path to the winner (its last node is that goal), empty if none is reachable.
+     */
+    public static List<BlockPos> findAny(NavGrid world,
+                                         BlockPos start,
+                                         List<BlockPos> goals,
+                                         double[] bonus,
+                                         int maxRange,
+                                         int maxIterations,
+                                         boolean diagonals,
+                                         boolean stepUp,
+                                         boolean allowDropDown,
+                                         int maxDropDown,
+                                         Set<Long> avoidedStepUps) {
+
+        Resumable r = new Resumable(SEARCH.get());
+        if (!r.beginAny(world, start, goals, bonus, maxRange, maxIterations, diagonals, stepUp, allowDropDown,
+                maxDropDown, avoidedStepUps)) {
+            return Collections.emptyList();
+        }
+        return (r.step(UNBOUNDED) == Resumable.FOUND) ? r.result() : Collections.emptyList();
+    }
+
+    /**
+     * Whether findAny considers a goal at all. Nodes beyond maxRange of the start are never expanded, so
+     * a farther goal could not be reached; navigateToAny sizes its snapshot by the same test.
+     */
+    public static boolean inAnyRange(BlockPos start, BlockPos goal, int maxRange) {
+        return start.getManhattanDistance(goal) <= maxRange;
+    }
+
+    /** Budget for Resumable.step that runs the search to completion. */
+    public static final long UNBOUNDED = Long.MAX_VALUE;
+
+    // Multi-goal searches end at a virtual sink per goal (reached through the goal at its bonus cost);
+    // sink i uses key SINK_BASE + i, which is no real cell (x = -2^25 is far outside the world border).
+    private static final long SINK_BASE = Long.MIN_VALUE;
+
+    /**
+     * A* whose open/closed sets survive between calls: step() expands nodes until a time budget is
+     * spent, and the next step() continues from the same frontier. maxIterations bounds the whole
+     * search, not one slice. bestPartial() is the path to the closed node nearest the goal (by
+     * heuristic), so a caller can start walking before the search finishes.
+     *
+     * Holds on to its world between steps; give it a BlockSnapshot, not the live world, so every
+     * slice sees the same blocks.
+     */
+    public static final class Resumable {
+        public static final int RUNNING = 0;
+        public static final int FOUND = 1;
+        public static final int FAILED = 2;
+
+        private final Search s;
+
+        private NavGrid world;
+        private int sx, sy, sz;
+        private int gx, gy, gz;
+        private long goalKey;
+        private int maxRange, maxIterations;
+        private boolean diagonals, stepUp, allowDropDown;
+        private int maxDropDown;
+        private Set<Long> avoidedStepUps;
+
+        // ALT bound toward the goal; null when no table covers the goal.
+        private Landmarks.Table landmarks;
+        private int[] goalDist;
+
+        // beginAny: goal cell -> goal index, goal coords (x, y, z per goal), extra cost per goal, and the
+        // indices that are usable. goalIndex == null means a single-goal search.
+        private LongIntHashMap goalIndex;
+        private int[] goalXYZ;
+        private double[] goalBonus;
+        private int[] activeGoals;
+        private int activeGoalCount;
+        private int reachedGoal = -1;
+
+        private int status = FAILED;
+        private int iterations;
+        private int goalId = -1;
+        private int bestId = -1;
+        private double bestH;
+
+        /** Owns its storage, so it can stay suspended while other searches run on the same thread. */
+        public Resumable() {
+            this(new Search());
+        }
+
+        private Resumable(Search s) {
+            this.s = s;
+        }
+
+        /** Starts a new search (dropping any previous one). False if start or goal is unusable. */
+        public boolean begin(NavGrid world,
+                             BlockPos start,
+                             BlockPos goal,
+                             int maxRange,
+                             int maxIterations,
+                             boolean diagonals,
+                             boolean stepUp,
+                             boolean allowDropDown,
+                             int maxDropDown,
+                             Set<Long> avoidedStepUps) {
+            return begin(world, start, goal, maxRange, maxIterations, diagonals, stepUp, allowDropDown, maxDropDown,
+                    avoidedStepUps, null);
+        }
+
+        /** Same, with a landmark table for the ALT bound (null = Manhattan heuristic only). */
+        public boolean begin(NavGrid world,
+                             BlockPos start,
+                             BlockPos goal,
+                             int maxRange,
+                             int maxIterations,
+                             boolean diagonals,
+                             boolean stepUp,
+                             boolean allowDropDown,
+                             int maxDropDown,
+                             Set<Long> avoidedStepUps,
+                             Landmarks.Table landmarks) {
+            cancel();
+            s.reset();
+            goalId = -1;
+            bestId = -1;
+            goalIndex = null;
+            reachedGoal = -1;
+
+            if (world == null) return false;
+            if (start.getManhattanDistance(goal) > maxRange * 2) return false;
+            if (!world.isStandable(start.getX(), start.getY(), start.getZ())
+                    || !world.isStandable(goal.getX(), goal.getY(), goal.getZ())) {
+                return false;
+            }
+
+            this.world = world;
+            this.sx = start.getX(); this.sy = start.getY(); this.sz = start.getZ();
+            this.gx = goal.getX(); this.gy = goal.getY(); this.gz = goal.getZ();
+            this.goalKey = goal.asLong();
+            this.maxRange = maxRange;
+            this.maxIterations = maxIterations;
+            this.diagonals = diagonals;
+            this.stepUp = stepUp;
+            this.allowDropDown = allowDropDown;
+            this.maxDropDown = maxDropDown;
+            this.avoidedStepUps = avoidedStepUps;
+            this.goalDist = (landmarks != null) ? landmarks.distancesTo(goalKey) : null;
+            this.landmarks = (goalDist != null) ? landmarks : null;
+
+            int startId = s.add(start.asLong(), 0.0, -1);
+            s.open.push(startId, h(sx, sy, sz));
+
+            iterations = 0;
+            goalId = -1;
+            bestId = startId;
+            bestH = h(sx, sy, sz);
+            status = RUNNING;
+            return true;
+        }
+
+        /** Multi-goal variant of begin (see findAny). False if the start or every goal is unusable. */
+        public boolean beginAny(NavGrid world,
+                                BlockPos start,
+                                List<BlockPos> goals,
+                                double[] bonus,
+                                int maxRange,
+                                int maxIterations,
+                                boolean diagonals,
+                                boolean stepUp,
+                                boolean allowDropDown,
+                                int maxDropDown,
+                                Set<Long> avoidedStepUps) {
+            cancel();
+            s.reset();
+            goalId = -1;
+            bestId = -1;
+            reachedGoal = -1;
+            landmarks = null;
+            goalDist = null;
+
+            if (world == null || goals.isEmpty() || !world.isStandable(start.getX(), start.getY(), start.getZ())) return false;
+
+            int n = goals.size();
+            goalIndex = new LongIntHashMap(n * 2, -1);
+            goalXYZ = new int[n * 3];
+            goalBonus = new double[n];
+            activeGoals = new int[n];
+            activeGoalCount = 0;
+            for (int i = 0; i < n; i++) {
+                BlockPos g = goals.get(i);
+                goalXYZ[i * 3] = g.getX();
+                goalXYZ[i * 3 + 1] = g.getY();
+                goalXYZ[i * 3 + 2] = g.getZ();
+                goalBonus[i] = (bonus != null && i < bonus.length) ? Math.max(0.0, bonus[i]) : 0.0;
+
+                if (!inAnyRange(start, g, maxRange) || !world.isStandable(g.getX(), g.getY(), g.getZ())) continue;
+                // Duplicate cells: keep the cheaper goal.
+                int prev = goalIndex.get(g.asLong());
+                if (prev >= 0 && goalBonus[prev] <= goalBonus[i]) continue;
+                goalIndex.put(g.asLong(), i);
+                if (prev < 0) {
+                    activeGoals[activeGoalCount++] = i;
+                } else {
+                    for (int k = 0; k < activeGoalCount; k++) {
+                        if (activeGoals[k] == prev) activeGoals[k] = i;
+                    }
+                }
+            }
+            if (activeGoalCount == 0) {
+                goalIndex = null;
+                return false;
+            }
+
+            this.world = world;
+            this.sx = start.getX(); this.sy = start.getY(); this.sz = start.getZ();
+            this.maxRange = maxRange;
+            this.maxIterations = maxIterations;
+            this.diagonals = diagonals;
+            this.stepUp = stepUp;
+            this.allowDropDown = allowDropDown;
+            this.maxDropDown = maxDropDown;
+            this.avoidedStepUps = avoidedStepUps;
+
+            int startId = s.add(start.asLong(), 0.0, -1);
+            s.open.push(startId, h(sx, sy, sz));
+
+            iterations = 0;
+            bestId = startId;
+            bestH = h(sx, sy, sz);
+            status = RUNNING;
+            return true;
+        }
+
+        /** Stops the search and releases the world it was reading. Partial results stay readable. */
+        public void cancel() {
+            if (status == RUNNING) status = FAILED;
+            world = null;
+            avoidedStepUps = null;
+        }
+
+        public boolean isRunning() {
+            return status == RUNNING;
+        }
+
+        /** Expands nodes for at most budgetNanos (UNBOUNDED = until done). Returns RUNNING, FOUND or FAILED. */
+        public int step(long budgetNanos) {
+            if (status != RUNNING) return status;
+
+            final long t0 = (budgetNanos == UNBOUNDED) ? 0L : System.nanoTime();
+            int sliceIt = 0;
+
+            while (!s.open.isEmpty() && iterations++ < maxIterations) {
+                // Async plans are cancelled by interrupting the worker once their goal is stale.
+                if ((iterations & 1023) == 0 && Thread.currentThread().isInterrupted()) break;
+
+                // nanoTime is cheap but not free; sample it every 32 expansions.
+                if (budgetNanos != UNBOUNDED && (++sliceIt & 31) == 0 && System.nanoTime() - t0 >= budgetNanos) {
+                    iterations--;
+                    return RUNNING;
+                }
+
+                int cur = s.open.pop();
+                long curKey = s.cell[cur];
+                if (goalIndex == null) {
+                    if (curKey == goalKey) return found(cur);
+                } else if (curKey >= SINK_BASE && curKey < SINK_BASE + goalBonus.length) {
+                    reachedGoal = (int) (curKey - SINK_BASE);
+                    return found(s.parent[cur]);
+                } else {
+                    int gi = goalIndex.get(curKey);
+                    if (gi >= 0) {
+                        if (goalBonus[gi] <= 0.0) {
+                            reachedGoal = gi;
+                            return found(cur);
+                        }
+                        // Only done once the sink (goal + bonus) is the cheapest thing left; keep expanding.
+                        int sink = s.add(SINK_BASE + gi, s.g[cur] + goalBonus[gi], cur);
+                        s.open.push(sink, s.g[sink]);
+                    }
+                }
+
+                s.closed[cur] = true;
+                s.expansions++;
+
+                int cx = BlockPos.unpackLongX(curKey);
+                int cy = BlockPos.unpackLongY(curKey);
+                int cz = BlockPos.unpackLongZ(curKey);
+                if (Math.abs(cx - sx) + Math.abs(cy - sy) + Math.abs(cz - sz) > maxRange) continue;
+
+                double h = h(cx, cy, cz);
+                if (h < bestH) {
+                    bestH = h;
+                    bestId = cur;
+                }
+
+                neighbors(world, s, cx, cy, cz, diagonals, stepUp, allowDropDown, maxDropDown, avoidedStepUps);
+
+                double curG = s.g[cur];
+                for (int k = 0; k < s.nbCount; k++) {
+                    long nk = s.nbCell[k];
+                    int id = s.index.get(nk);
+                    if (id >= 0 && s.closed[id]) continue;
+
+                    int nx = BlockPos.unpackLongX(nk);
+                    int ny = BlockPos.unpackLongY(nk);
+                    int nz = BlockPos.unpackLongZ(nk);
+
+                    double ng = curG + s.nbCost[k] + wallPenalty(world, nx, ny, nz);
+
+                    if (id < 0) {
+                        id = s.add(nk, ng, cur);
+                        push(id, ng, nx, ny, nz);
+                    } else if (ng < s.g[id]) {
+                        s.g[id] = ng;
+                        s.parent[id] = cur;
+                        push(id, ng, nx, ny, nz);
+                    }
+                }
+            }
+
+            return finish(FAILED);
+        }
+
+        private void push(int id, double g, int x, int y, int z) {
+            double nh = h(x, y, z);
+            if (landmarks == null) {
+                s.open.push(id, g + nh);
+            } else {
+                // The ALT bound is consistent, so open ground has many equal-f cells: pop the one nearer
+                // the goal first and cross it along one path instead of expanding them all.
+                s.open.push(id, g + nh, nh);
+            }
+        }
+
+        private int found(int id) {
+            goalId = id;
+            bestId = id;
+            bestH = 0.0;
+            return finish(FOUND);
+        }
+
+        private int finish(int st) {
+            status = st;
+            world = null;
+            avoidedStepUps = null;
+            return st;
+        }
+
+        private double h(int x, int y, int z) {
+            if (goalIndex != null) {
+                // Nearest goal including its bonus; the sinks keep this consistent.
+                double best = Double.MAX_VALUE;
+                for (int k = 0; k < activeGoalCount; k++) {
+                    int i = activeGoals[k];
+                    double v = heuristic(x, y, z, goalXYZ[i * 3], goalXYZ[i * 3 + 1], goalXYZ[i * 3 + 2]) + goalBonus[i];
+                    if (v < best) best = v;
+                }
+                return best;
+            }
+
+            if (landmarks == null) return heuristic(x, y, z, gx, gy, gz);
+            return Math.max(octileHeuristic(x, y, z, gx, gy, gz),
+                    landmarks.lowerBound(BlockPos.asLong(x, y, z), goalDist));
+        }
+
+        /** Full path once step() returned FOUND; empty otherwise. */
+        public List<BlockPos> result() {
+            return (goalId >= 0) ? reconstruct(s, goalId) : Collections.emptyList();
+        }
+
+        /** Path from the start to the expanded node closest to the goal (the goal itself once FOUND). */
+        public List<BlockPos> bestPartial() {
+            return (bestId >= 0 && s.count > bestId) ? reconstruct(s, bestId) : Collections.emptyList();
+        }
+
+        /** Heuristic distance from bestPartial()'s end to the goal. */
+        public double bestHeuristic() {
+            return bestH;
+        }
+
+        /** Index (into beginAny's goals) of the goal result() ends at; -1 for single-goal searches. */
+        public int reachedGoal() {
+            return reachedGoal;
+        }
+    }
+
+    /** Nodes closed by the most recent search on the calling thread (benchmarks/debug). */
+    public static int lastExpansions() {
+        return SEARCH.get().expansions;
+    }
+
+    /** Cost AStar charges for walking path with the planner settings; NaN if a step is not an AStar edge (benchmarks/debug). */
+    public static double pathCost(NavGrid world, List<BlockPos> path) {
+        Search s = new Search();
+        double cost = 0.0;
+        for (int i = 1; i < path.size(); i++) {
+            BlockPos a = path.get(i - 1), b = path.get(i);
+            s.nbCount = 0;
+            successor(world, s, a.getX(), a.getY(), a.getZ(), b.getX() - a.getX(), b.getZ() - a.getZ(),
+                    ALLOW_STEP_UP, ALLOW_DROP_DOWN, MAX_DROP_DOWN, Collections.emptySet());
+            if (s.nbCount == 0 || s.nbCell[0] != b.asLong()) return Double.NaN;
+            cost += s.nbCost[0] + wallPenalty(world, b.getX(), b.getY(), b.getZ());
+        }
+        return cost;
+    }
+
+    /** Key of the step-up edge from -> to (packed cells) in an avoidedStepUps set. */
+    public static long edgeKey(long from, long to) {
+        // Deterministic 64-bit mixing of two packed BlockPos values
+        long x = from ^ (to * 0x9E3779B97F4A7C15L);
+        x ^= (x >>> 33);
+        x *= 0xC2B2AE3D27D4EB4FL;
+        x ^= (x >>> 29);
+        return x;
+    }
+
+    /** AStar's moves and costs (wall penalty included) over grid, for FlowField.compute. One thread at a time. */
+    public static FlowField.Moves moves(NavGrid grid) {
+        Search s = new Search();
+        Set<Long> none = Collections.emptySet();
+        return (x, y, z, cells, costs) -> {
+            neighbors(grid, s, x, y, z, ALLOW_DIAGONALS, ALLOW_STEP_UP, ALLOW_DROP_DOWN, MAX_DROP_DOWN, none);
+            for (int i = 0; i < s.nbCount; i++) {
+                long nk = s.nbCell[i];
+                cells[i] = nk;
+                costs[i] = s.nbCost[i] + wallPenalty(grid, BlockPos.unpackLongX(nk), BlockPos.unpackLongY(nk),
+                        BlockPos.unpackLongZ(nk));
+            }
+            return s.nbCount;
+        };
+    }
+
+    private static List<BlockPos> reconstruct(Search s, int goalId) {
+        int n = 0;
+        for (int c = goalId; c >= 0; c = s.parent[c]) n++;
+
+        BlockPos[] out = new BlockPos[n];
+        int i = n;
+        for (int c = goalId; c >= 0; c = s.parent[c]) out[--i] = BlockPos.fromLong(s.cell[c]);
+        return new ArrayList<>(Arrays.asList(out));
+    }
+
+    // Cheapest premium a move pays per block of height over its flat step (successor's costs): a diagonal
+    // step-up pays 1.9 - 1.4142, a straight one 0.5, a drop 0.55 per block.
+    private static final double CLIMB_COST_MIN = 1.9 - 1.4142;
+
+    static double heuristic(int ax, int ay, int az, int bx, int by, int bz) {
+        int dx = Math.abs(ax - bx);
+        int dy = Math.abs(ay - by);
+        int dz = Math.abs(az - bz);
+        return dx + dz + (dy * 1.25);
+    }
+
+    /**
+     * Consistent lower bound on the cost between two cells: octile distance in XZ plus CLIMB_COST_MIN per
+     * block of height. Every edge moves one column (straight 1.0 or diagonal 1.4142) and pays at least
+     * CLIMB_COST_MIN per block it climbs or drops, and wall penalties are never negative, so the bound
+     * changes by no more than an edge costs. heuristic() above expands fewer nodes but overestimates;
+     * DStarLite and the ALT search key on this one, since both need a bound that never overestimates.
+     */
+    static double octileHeuristic(int ax, int ay, int az, int bx, int by, int bz) {
+        int dx = Math.abs(ax - bx);
+        int dz = Math.abs(az - bz);
+        int dy = Math.abs(ay - by);
+        return Math.max(dx, dz) + (1.4142 - 1.0) * Math.min(dx, dz) + dy * CLIMB_COST_MIN;
+    }
+
+    static double wallPenalty(NavGrid world, int x, int y, int z) {
+        final double perSide = 0.20; // modest: reduces wall hugging without extreme detours
+
+        int solids = 0;
+        if ((world.flagsAt(x, y, z - 1) & PassabilityTable.WALL_SOLID) != 0) solids++;
+        if ((world.flagsAt(x, y, z + 1) & PassabilityTable.WALL_SOLID) != 0) solids++;
+        if ((world.flagsAt(x + 1, y, z) & PassabilityTable.WALL_SOLID) != 0) solids++;
+        if ((world.flagsAt(x - 1, y, z) & PassabilityTable.WALL_SOLID) != 0) solids++;
+
+        return solids * perSide;
+    }
+
+    /** Fills s.nbCell / s.nbCost with the successors of (ox, oy, oz). */
+    static void neighbors(NavGrid world, Search s, int ox, int oy, int oz,
+                           boolean diagonals,
+                           boolean stepUp,
+                           boolean allowDropDown,
+                           int maxDropDown,
+                           Set<Long> avoidedStepUps) {
+        s.nbCount = 0;
+
+        int[][] deltas = diagonals ? DELTAS8 : DELTAS4;
+        for (int[] d : deltas) {
+            successor(world, s, ox, oy, oz, d[0], d[1], stepUp, allowDropDown, maxDropDown, avoidedStepUps);
+        }
+    }
+
+    /** Emits the (at most one) successor of (ox, oy, oz) in direction (dx, dz): same level, step-up, or drop. */
+    static void successor(NavGrid world, Search s, int ox, int oy, int oz, int dx, int dz,
+                           boolean stepUp,
+                           boolean allowDropDown,
+                           int maxDropDown,
+                           Set<Long> avoidedStepUps) {
+        boolean diag = (dx != 0 && dz != 0);
+
+        if (diag && !canDiagonal(world, ox, oy, oz, dx, dz)) return;
+
+        int x = ox + dx, z = oz + dz;
+        if (world.isStandable(x, oy, z)) {
+            emit(s, BlockPos.asLong(x, oy, z), diag ? 1.4142 : 1.0);
+            return;
+        }
+
+        if (stepUp) {
+            if (world.isStandable(x, oy + 1, z)) {
+                // Avoid step-ups that have been observed to fail repeatedly.
+                if (avoidedStepUps == null || avoidedStepUps.isEmpty()
+                        || !avoidedStepUps.contains(edgeKey(BlockPos.asLong(ox, oy, oz), BlockPos.asLong(x, oy + 1, z)))) {
+                    emit(s, BlockPos.asLong(x, oy + 1, z), diag ? 1.9 : 1.5);
+                }
+                return;
+            }
+        }
+
+        if (allowDropDown) {
+            for (int drop = 1; drop <= Math.max(1, maxDropDown); drop++) {
+                if (!world.isStandable(x, oy - drop, z)) continue;
+                if (!hasEscapeBackUp(world, s, x, oy - drop, z, oy)) continue;
+
+                double cost = (diag ? 1.4142 : 1.0) + (drop * 0.55);
+                emit(s, BlockPos.asLong(x, oy - drop, z), cost);
+                break;
+            }
+        }
+    }
+
+    private static void emit(Search s, long cell, double cost) {
+        s.nbCell[s.nbCount] = cell;
+        s.nbCost[s.nbCount] = cost;
+        s.nbCount++;
+    }
+
+    private static boolean canDiagonal(NavGrid world, int ox, int oy, int oz, int dx, int dz) {
+        return isBodyPassable(world, ox + dx, oy, oz) && isHeadPassable(world, ox + dx, oy + 1, oz)
+                && isBodyPassable(world, ox, oy, oz + dz) && isHeadPassable(world, ox, oy + 1, oz + dz);
+    }
+
+    /**
+     * True if a player landing on (x, y, z) can walk back up to originY within DROP_ESCAPE_MAX_RADIUS.
+     * Answers for snapshots are memoized in EscapeCache, so repeated drops into the same pit (within one
+     * search and across repaths) cost one lookup instead of a BFS.
+     */
+    private static boolean hasEscapeBackUp(NavGrid world, Search s, int x, int y, int z, int originY) {
+        if (y >= originY) return true;
+        if (s.escapeMemo != null && originY - y <= EscapeMemo.RISES) return s.escapeMemo.escape(world, s, x, y, z, originY);
+
+        BlockSnapshot snap = (world instanceof BlockSnapshot bs) ? bs : null;
+        if (snap != null) {
+            int known = EscapeCache.lookup(snap, x, y, z, originY);
+            if (known != EscapeCache.UNKNOWN) return known == EscapeCache.ESCAPE;
+        }
+
+        boolean escape = escapeSearch(world, s, x, y, z, originY);
+        if (snap != null) EscapeCache.store(snap, x, y, z, originY, escape);
+        return escape;
+    }
+
+    // Same BFS as before (FIFO, same neighbor order and limits), on packed longs.
+    private static boolean escapeSearch(NavGrid world, Search s, int x, int y, int z, int originY) {
+        LongIntHashMap seen = s.escapeSeen;
+        long[] q = s.escapeQueue;
+        seen.clear();
+
+        int head = 0, tail = 0;
+        long startKey = BlockPos.asLong(x, y, z);
+        q[tail++] = startKey;
+        seen.put(startKey, 0);
+
+        int expanded = 0;
+        while (head < tail && expanded < DROP_ESCAPE_SEARCH_LIMIT) {
+            long cur = q[head++];
+            expanded++;
+
+            int cx = BlockPos.unpackLongX(cur);
+            int cy = BlockPos.unpackLongY(cur);
+            int cz = BlockPos.unpackLongZ(cur);
+
+            if (cy >= originY) return true;
+            if (Math.abs(cx - x) + Math.abs(cy - y) + Math.abs(cz - z) > DROP_ESCAPE_MAX_RADIUS) continue;
+
+            for (int[] d : DELTAS4) {
+                int nx = cx + d[0], nz = cz + d[1];
+                tail = enqueueIfOk(world, s, nx, cy, nz, tail);
+                tail = enqueueIfOk(world, s, nx, cy + 1, nz, tail);
+                tail = enqueueIfOk(world, s, nx, cy - 1, nz, tail);
+            }
+        }
+
+        return false;
+    }
+
+    private static int enqueueIfOk(NavGrid world, Search s, int x, int y, int z, int tail) {
+        long key = BlockPos.asLong(x, y, z);
+        if (s.escapeSeen.containsKey(key)) return tail;
+        if (s.escapeMemo != null) s.read(x, y, z);
+        if (!world.isStandable(x, y, z)) return tail;
+        s.escapeSeen.put(key, 0);
+        s.escapeQueue[tail] = key;
+        return tail + 1;
+    }
+
+    /** Standability of pos in a live world (or any BlockView), by the same rule the planners use. */
+    public static boolean isStandable(BlockView world, BlockPos pos) {
+        return NavGrid.of(world).isStandable(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    private static boolean isBodyPassable(NavGrid world, int x, int y, int z) {
+        return (world.flagsAt(x, y, z) & PassabilityTable.BODY_PASSABLE) != 0;
+    }
+
+    private static boolean isHeadPassable(NavGrid world, int x, int y, int z) {
+        return (world.flagsAt(x, y, z) & PassabilityTable.HEAD_PASSABLE) != 0;
+    }
+}
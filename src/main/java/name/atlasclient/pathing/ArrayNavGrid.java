@@ -0,0 +1,139 @@
+package name.atlasclient.pathing;
+
+import net.minecraft.util.math.BlockPos;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * NavGrid over a plain byte box of PassabilityTable flags.
+ *
+ * Used for offline planner benchmarks (synthetic worlds, and in-game captures written with
+ * /pathbench dump). Cells outside the box read as void air, like BlockSnapshot.
+ *
+ * Dump format (gzip): int magic, int version, int minX/minY/minZ, int sizeX/sizeY/sizeZ,
+ * long start, long goal (BlockPos.asLong), then sizeX*sizeY*sizeZ flag bytes in (y, z, x) order.
+ */
+public final class ArrayNavGrid implements NavGrid {
+
+    private static final int MAGIC = 0x4E415644; // "NAVD"
+    private static final int VERSION = 1;
+
+    private static final int VOID_FLAGS = PassabilityTable.BODY_PASSABLE | PassabilityTable.HEAD_PASSABLE;
+
+    /** A grid plus the trip it was captured for. */
+    public static final class Dump {
+        public final ArrayNavGrid grid;
+        public final BlockPos start;
+        public final BlockPos goal;
+
+        public Dump(ArrayNavGrid grid, BlockPos start, BlockPos goal) {
+            this.grid = grid;
+            this.start = start;
+            this.goal = goal;
+        }
+    }
+
+    private final int minX, minY, minZ;
+    private final int sizeX, sizeY, sizeZ;
+    private final byte[] flags;
+
+    /** New box filled with void air. */
+    public ArrayNavGrid(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.flags = new byte[sizeX * sizeY * sizeZ];
+        Arrays.fill(flags, (byte) VOID_FLAGS);
+    }
+
+    /** Copies the inclusive box [min, max] out of another grid (e.g. a BlockSnapshot). */
+    public static ArrayNavGrid copyOf(NavGrid src, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        ArrayNavGrid g = new ArrayNavGrid(minX, minY, minZ, maxX - minX + 1, maxY - minY + 1, maxZ - minZ + 1);
+        for (int y = minY; y <= maxY; y++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int x = minX; x <= maxX; x++) {
+                    g.set(x, y, z, src.flagsAt(x, y, z));
+                }
+            }
+        }
+        return g;
+    }
+
+    @Override
+    public int flagsAt(int x, int y, int z) {
+        int i = index(x, y, z);
+        return (i < 0) ? VOID_FLAGS : flags[i];
+    }
+
+    /** Ignored outside the box. */
+    public void set(int x, int y, int z, int f) {
+        int i = index(x, y, z);
+        if (i >= 0) flags[i] = (byte) f;
+    }
+
+    /** Sets every cell of the inclusive box [a, b] (clipped to the grid). */
+    public void fill(int ax, int ay, int az, int bx, int by, int bz, int f) {
+        for (int y = Math.min(ay, by); y <= Math.max(ay, by); y++) {
+            for (int z = Math.min(az, bz); z <= Math.max(az, bz); z++) {
+                for (int x = Math.min(ax, bx); x <= Math.max(ax, bx); x++) {
+                    set(x, y, z, f);
+                }
+            }
+        }
+    }
+
+    public int minX() { return minX; }
+    public int minY() { return minY; }
+    public int minZ() { return minZ; }
+    public int sizeX() { return sizeX; }
+    public int sizeY() { return sizeY; }
+    public int sizeZ() { return sizeZ; }
+
+    private int index(int x, int y, int z) {
+        int lx = x - minX, ly = y - minY, lz = z - minZ;
+        if (lx < 0 || lx >= sizeX || ly < 0 || ly >= sizeY || lz < 0 || lz >= sizeZ) return -1;
+        return (ly * sizeZ + lz) * sizeX + lx;
+    }
+
+    public void write(OutputStream out, BlockPos start, BlockPos goal) throws IOException {
+        GZIPOutputStream gz = new GZIPOutputStream(out);
+        DataOutputStream data = new DataOutputStream(gz);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(minX);
+        data.writeInt(minY);
+        data.writeInt(minZ);
+        data.writeInt(sizeX);
+        data.writeInt(sizeY);
+        data.writeInt(sizeZ);
+        data.writeLong(start.asLong());
+        data.writeLong(goal.asLong());
+        data.write(flags);
+        data.flush();
+        gz.finish();
+    }
+
+    public static Dump read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new GZIPInputStream(in));
+        if (data.readInt() != MAGIC) throw new IOException("Not a nav dump");
+        int version = data.readInt();
+        if (version != VERSION) throw new IOException("Unsupported nav dump version " + version);
+
+        ArrayNavGrid g = new ArrayNavGrid(data.readInt(), data.readInt(), data.readInt(),
+                data.readInt(), data.readInt(), data.readInt());
+        BlockPos start = BlockPos.fromLong(data.readLong());
+        BlockPos goal = BlockPos.fromLong(data.readLong());
+        data.readFully(g.flags);
+        return new Dump(g, start, goal);
+    }
+}
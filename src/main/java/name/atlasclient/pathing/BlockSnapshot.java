@@ -0,0 +1,344 @@
+package name.atlasclient.pathing;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.BlockView;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.PalettedContainer;
+import net.minecraft.world.chunk.WorldChunk;
+
+/**
+ * Immutable copy of the block states inside a box of the client world.
+ *
+ * Captured on the client thread (chunk section palettes are copied, not referenced) so a planner
+ * can read it from a worker thread while the live world keeps changing. Cells outside the captured
+ * box, or inside chunks that were not loaded at capture time, read as void air - the same answer
+ * the client world gives for unloaded chunks - unless NavStore has the section from an earlier visit,
+ * in which case its stored flags are used (block states still read as void there).
+ *
+ * The planner reads cells through flagsAt/isStandable, which go through NavCache sections: cached ones
+ * are attached at capture, missing ones are built from the copied palettes on first touch and offered
+ * back to the cache. Lazy building mutates the snapshot, so one snapshot must only be read by one
+ * thread at a time.
+ *
+ * Also the planners' NavGrid, so they never go through getBlockState on the hot path.
+ */
+public final class BlockSnapshot implements BlockView, NavGrid {
+
+    private static final BlockState VOID = Blocks.VOID_AIR.getDefaultState();
+    private static final BlockState AIR = Blocks.AIR.getDefaultState();
+    private static final int VOID_FLAGS = PassabilityTable.classify(null, false);
+
+    private final int minChunkX, minChunkZ;
+    private final int chunksX, chunksZ;
+    private final int minSectionY, sectionsY;
+    private final int bottomY, height;
+
+    // [chunk][section]; null section = empty (air). Missing chunk = not loaded (void).
+    private final boolean[] loaded;
+    private final PalettedContainer<BlockState>[] sections;
+    private final NavCache.Section[] nav;
+    private final long[] navVersions;
+    // Sections of unloaded chunks answered from NavStore, and the store session they (and record()) use.
+    private final boolean[] stored;
+    private long storeSession = -1L;
+    private final BlockPos.Mutable scratch = new BlockPos.Mutable();
+
+    @SuppressWarnings("unchecked")
+    private BlockSnapshot(int minChunkX, int minChunkZ, int chunksX, int chunksZ,
+                          int minSectionY, int sectionsY, int bottomY, int height) {
+        this.minChunkX = minChunkX;
+        this.minChunkZ = minChunkZ;
+        this.chunksX = chunksX;
+        this.chunksZ = chunksZ;
+        this.minSectionY = minSectionY;
+        this.sectionsY = sectionsY;
+        this.bottomY = bottomY;
+        this.height = height;
+        this.loaded = new boolean[chunksX * chunksZ];
+        this.sections = new PalettedContainer[chunksX * chunksZ * sectionsY];
+        this.nav = new NavCache.Section[chunksX * chunksZ * sectionsY];
+        this.navVersions = new long[chunksX * chunksZ * sectionsY];
+        this.stored = new boolean[chunksX * chunksZ * sectionsY];
+    }
+
+    /**
+     * Copies every loaded section touching the box spanned by {@code a} and {@code b}, grown by the margins.
+     * Must be called on the client thread.
+     */
+    public static BlockSnapshot capture(World world, BlockPos a, BlockPos b, int marginXZ, int marginY) {
+        Capture c = begin(world, a, b, marginXZ, marginY);
+        c.step(Integer.MAX_VALUE);
+        return c.snap;
+    }
+
+    /**
+     * Same box as capture(), copied a few chunks per step() so large boxes (macro routes) do not stall
+     * one frame. Every call must be on the client thread while world is still the client world.
+     * Sections copied on different ticks can be from different ticks; the NavCache versions recorded
+     * per section say which, so consumers that revalidate by version stay correct.
+     */
+    public static Capture begin(World world, BlockPos a, BlockPos b, int marginXZ, int marginY) {
+        int minX = Math.min(a.getX(), b.getX()) - marginXZ;
+        int maxX = Math.max(a.getX(), b.getX()) + marginXZ;
+        int minZ = Math.min(a.getZ(), b.getZ()) - marginXZ;
+        int maxZ = Math.max(a.getZ(), b.getZ()) + marginXZ;
+
+        int worldBottom = world.getBottomY();
+        int worldTop = world.getTopYInclusive();
+        int minY = Math.max(worldBottom, Math.min(a.getY(), b.getY()) - marginY);
+        int maxY = Math.min(worldTop, Math.max(a.getY(), b.getY()) + marginY);
+        if (maxY < minY) maxY = minY;
+
+        int minCx = minX >> 4, maxCx = maxX >> 4;
+        int minCz = minZ >> 4, maxCz = maxZ >> 4;
+        int minSy = minY >> 4, maxSy = maxY >> 4;
+
+        BlockSnapshot snap = new BlockSnapshot(minCx, minCz, maxCx - minCx + 1, maxCz - minCz + 1,
+                minSy, maxSy - minSy + 1, worldBottom, world.getHeight());
+
+        NavCache.checkWorld(world);
+        snap.storeSession = NavStore.session(world);
+        return new Capture(world, snap);
+    }
+
+    /** An in-progress capture; see begin(). */
+    public static final class Capture {
+        private final World world;
+        private final BlockSnapshot snap;
+        private int next; // chunk index of the next chunk to copy
+
+        private Capture(World world, BlockSnapshot snap) {
+            this.world = world;
+            this.snap = snap;
+        }
+
+        public World world() {
+            return world;
+        }
+
+        /** Copies up to maxChunks more chunks; true once the whole box is captured. */
+        public boolean step(int maxChunks) {
+            int total = snap.chunksX * snap.chunksZ;
+            int end = (int) Math.min(total, (long) next + maxChunks);
+            for (; next < end; next++) {
+                snap.captureChunk(world, next);
+            }
+            return next >= total;
+        }
+
+        /** The snapshot once step() returned true. */
+        public BlockSnapshot snapshot() {
+            if (next < snap.chunksX * snap.chunksZ) throw new IllegalStateException("Capture not finished");
+            return snap;
+        }
+    }
+
+    private void captureChunk(World world, int ci) {
+        int cx = minChunkX + ci / chunksZ;
+        int cz = minChunkZ + ci % chunksZ;
+        int minSy = minSectionY, maxSy = minSectionY + sectionsY - 1;
+
+        WorldChunk chunk = world.getChunkManager().getWorldChunk(cx, cz);
+        if (chunk == null) {
+            attachStored(ci, cx, cz, minSy, maxSy);
+            return;
+        }
+
+        loaded[ci] = true;
+
+        ChunkSection[] arr = chunk.getSectionArray();
+        for (int sy = minSy; sy <= maxSy; sy++) {
+            int idx = world.sectionCoordToIndex(sy);
+            if (idx < 0 || idx >= arr.length) continue;
+
+            int si = ci * sectionsY + (sy - minSy);
+            nav[si] = NavCache.attach(ChunkSectionPos.asLong(cx, sy, cz), navVersions, si);
+
+            ChunkSection section = arr[idx];
+            if (section == null || section.isEmpty()) continue;
+            sections[si] = section.getBlockStateContainer().copy();
+        }
+    }
+
+    private void attachStored(int ci, int cx, int cz, int minSy, int maxSy) {
+        for (int sy = minSy; sy <= maxSy; sy++) {
+            byte[] flags = NavStore.load(storeSession, ChunkSectionPos.asLong(cx, sy, cz));
+            if (flags == null) continue;
+            int si = ci * sectionsY + (sy - minSy);
+            nav[si] = new NavCache.Section(flags);
+            stored[si] = true;
+        }
+    }
+
+    public BlockState getBlockState(int x, int y, int z) {
+        int cx = (x >> 4) - minChunkX;
+        int cz = (z >> 4) - minChunkZ;
+        int sy = (y >> 4) - minSectionY;
+        if (cx < 0 || cx >= chunksX || cz < 0 || cz >= chunksZ || sy < 0 || sy >= sectionsY) return VOID;
+
+        int ci = cx * chunksZ + cz;
+        if (!loaded[ci]) return VOID;
+
+        PalettedContainer<BlockState> c = sections[ci * sectionsY + sy];
+        if (c == null) return AIR;
+        return c.get(x & 15, y & 15, z & 15);
+    }
+
+    /**
+     * NavCache version of a section at capture time: changes whenever any cell in it (or the row
+     * next to it) changes. 0 for sections outside the world's build height (always air), -1 if the
+     * section was not captured (outside the box or not loaded).
+     */
+    public long navVersion(int sectionX, int sectionY, int sectionZ) {
+        if (sectionY < (bottomY >> 4) || sectionY > ((bottomY + height - 1) >> 4)) return 0L;
+
+        int cx = sectionX - minChunkX;
+        int cz = sectionZ - minChunkZ;
+        int sy = sectionY - minSectionY;
+        if (cx < 0 || cx >= chunksX || cz < 0 || cz >= chunksZ || sy < 0 || sy >= sectionsY) return -1L;
+
+        int ci = cx * chunksZ + cz;
+        if (!loaded[ci]) return -1L;
+        return navVersions[ci * sectionsY + sy];
+    }
+
+    /** PassabilityTable flags of a cell, from the (cached or lazily built) nav section. */
+    @Override
+    public int flagsAt(int x, int y, int z) {
+        int si = sectionIndex(x, y, z);
+        if (si < 0) return VOID_FLAGS;
+        return navSection(si).flags[cellIndex(x, y, z)];
+    }
+
+    /** Same answer as PassabilityTable.standable over the flags of (x, y, z), its head and its floor. */
+    @Override
+    public boolean isStandable(int x, int y, int z) {
+        int si = sectionIndex(x, y, z);
+        if (si < 0) return standableFromFlags(x, y, z);
+
+        NavCache.Section sec = navSection(si);
+        long[] bits = sec.standable;
+        if (bits == null) {
+            int sy = si % sectionsY;
+            if (!neighborSectionsKnown(sy)) return standableFromFlags(x, y, z);
+            bits = buildStandable(si, sy);
+            sec.standable = bits;
+        }
+        int ci = cellIndex(x, y, z);
+        return (bits[ci >>> 6] & (1L << ci)) != 0;
+    }
+
+    private boolean standableFromFlags(int x, int y, int z) {
+        return PassabilityTable.standable(flagsAt(x, y, z), flagsAt(x, y + 1, z), flagsAt(x, y - 1, z));
+    }
+
+    // Standable bits of a section depend on one row of the sections above and below; only cache them
+    // when those rows are real data (captured, or outside the world's build height).
+    private boolean neighborSectionsKnown(int sy) {
+        int worldBottomSection = bottomY >> 4;
+        int worldTopSection = (bottomY + height - 1) >> 4;
+        int below = minSectionY + sy - 1;
+        int above = minSectionY + sy + 1;
+        boolean belowOk = sy > 0 || below < worldBottomSection;
+        boolean aboveOk = sy < sectionsY - 1 || above > worldTopSection;
+        return belowOk && aboveOk;
+    }
+
+    private long[] buildStandable(int si, int sy) {
+        int ci = si / sectionsY;
+        int baseX = (minChunkX + ci / chunksZ) << 4;
+        int baseZ = (minChunkZ + ci % chunksZ) << 4;
+        int baseY = (minSectionY + sy) << 4;
+
+        long[] bits = new long[64];
+        for (int ly = 0; ly < 16; ly++) {
+            for (int lz = 0; lz < 16; lz++) {
+                for (int lx = 0; lx < 16; lx++) {
+                    int x = baseX + lx, y = baseY + ly, z = baseZ + lz;
+                    if (!standableFromFlags(x, y, z)) continue;
+                    int idx = (ly << 8) | (lz << 4) | lx;
+                    bits[idx >>> 6] |= 1L << idx;
+                }
+            }
+        }
+        return bits;
+    }
+
+    private NavCache.Section navSection(int si) {
+        NavCache.Section sec = nav[si];
+        if (sec != null) return sec;
+
+        int ci = si / sectionsY;
+        int cx = minChunkX + ci / chunksZ;
+        int cz = minChunkZ + ci % chunksZ;
+        int sy = minSectionY + si % sectionsY;
+
+        byte[] flags = new byte[4096];
+        PalettedContainer<BlockState> c = sections[si];
+        for (int ly = 0; ly < 16; ly++) {
+            for (int lz = 0; lz < 16; lz++) {
+                for (int lx = 0; lx < 16; lx++) {
+                    BlockState state = (c == null) ? AIR : c.get(lx, ly, lz);
+                    scratch.set((cx << 4) + lx, (sy << 4) + ly, (cz << 4) + lz);
+                    flags[(ly << 8) | (lz << 4) | lx] = (byte) PassabilityTable.flags(this, scratch, state);
+                }
+            }
+        }
+
+        sec = new NavCache.Section(flags);
+        nav[si] = sec;
+        long key = ChunkSectionPos.asLong(cx, sy, cz);
+        NavCache.offer(key, navVersions[si], sec);
+        NavStore.record(storeSession, key, flags);
+        return sec;
+    }
+
+    /** Section slot for a cell inside a loaded (or stored), captured section; -1 otherwise (reads as void). */
+    private int sectionIndex(int x, int y, int z) {
+        int cx = (x >> 4) - minChunkX;
+        int cz = (z >> 4) - minChunkZ;
+        int sy = (y >> 4) - minSectionY;
+        if (cx < 0 || cx >= chunksX || cz < 0 || cz >= chunksZ || sy < 0 || sy >= sectionsY) return -1;
+
+        int ci = cx * chunksZ + cz;
+        int si = ci * sectionsY + sy;
+        if (!loaded[ci] && !stored[si]) return -1;
+        return si;
+    }
+
+    private static int cellIndex(int x, int y, int z) {
+        return ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        return getBlockState(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    @Override
+    public FluidState getFluidState(BlockPos pos) {
+        return getBlockState(pos).getFluidState();
+    }
+
+    @Override
+    public BlockEntity getBlockEntity(BlockPos pos) {
+        // Block entities are not captured; collision shapes used by the planner do not need them.
+        return null;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getBottomY() {
+        return bottomY;
+    }
+}
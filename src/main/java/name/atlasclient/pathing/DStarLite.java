@@ -0,0 +1,405 @@
+package name.atlasclient.pathing;
+
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * D* Lite (optimized variant, Koenig and Likhachev 2002) over exactly AStar's edges and costs.
+ *
+ * Searches backward from the goal and keeps g/rhs values between plans. A replan after the player
+ * moved only bumps km (no requeue); a replan after cells changed (block packets, newly avoided
+ * step-ups) recomputes the vertices whose edges read those cells and lets the queue repair the rest.
+ * Drop edges read a whole escape BFS, so drop-escape answers are kept per session with the box of
+ * cells each BFS read, and a change reopens only the drops whose box holds it.
+ *
+ * A session is one goal inside one fixed snapshot box; anything else resets it. Keys use
+ * AStar.octileHeuristic, which is consistent, so paths are optimal for AStar's edge costs (AStar.find's
+ * own estimate overestimates and may settle for a costlier one); equal-cost steps are taken in the
+ * order AStar would pop them. Vertices farther than maxRange (Manhattan) from the session's first start
+ * are never expanded, the same graph AStar.find searches. Not thread-safe: the single planner thread
+ * (or the client thread in synchronous mode) owns the instance.
+ */
+public final class DStarLite {
+
+    private static final boolean ALLOW_DIAGONALS = AStar.ALLOW_DIAGONALS;
+    private static final boolean ALLOW_STEP_UP = AStar.ALLOW_STEP_UP;
+    private static final boolean ALLOW_DROP_DOWN = AStar.ALLOW_DROP_DOWN;
+    private static final int MAX_DROP_DOWN = AStar.MAX_DROP_DOWN;
+
+    private static final double INF = Double.POSITIVE_INFINITY;
+    private static final int MAX_VERTICES = 400_000;
+
+    // Vertices whose edges read a changed cell outside of escape BFSs. Wall penalty, diagonals and
+    // step-ups read up to 2 cells away horizontally and 2 above the vertex; a drop's landing check reads
+    // down to one below the deepest landing. Escape BFS reads are tracked per answer in escapes.
+    private static final int REPAIR_XZ = 2;
+    private static final int REPAIR_BELOW = 2;
+    private static final int REPAIR_ABOVE = ALLOW_DROP_DOWN ? Math.max(1, MAX_DROP_DOWN) + 1 : 1;
+
+    // Two paths whose costs differ by less than this are the same cost (float sums in another order).
+    private static final double TIE_EPSILON = 1e-9;
+
+    private final LongIntHashMap index = new LongIntHashMap(1 << 14, -1);
+    private final LongIntHashMap repaired = new LongIntHashMap(1 << 10, -1);
+    private final IndexedMinHeap open = new IndexedMinHeap(1 << 12);
+    private final AStar.Search scratch = new AStar.Search(); // neighbor buffers + escape BFS scratch
+    private final AStar.EscapeMemo escapes = new AStar.EscapeMemo();
+
+    private long[] cell = new long[1 << 12];
+    private double[] g = new double[1 << 12];
+    private double[] rhs = new double[1 << 12];
+    private int count;
+
+    private boolean active;
+    private long goalKey;
+    private int startX, startY, startZ;
+    private int anchorX, anchorY, anchorZ; // first start of the session; maxRange is measured from here
+    private int maxRange;
+    private double km;
+
+    private NavGrid world;
+    private Set<Long> avoided = Collections.emptySet();
+
+    int expansions;
+    private boolean provedNoPath;
+
+    public DStarLite() {
+        scratch.escapeMemo = escapes;
+    }
+
+    public void reset() {
+        index.clear();
+        open.clear();
+        escapes.clear();
+        count = 0;
+        km = 0.0;
+        active = false;
+    }
+
+    /**
+     * Plans start -> goal, reusing the previous search when the goal is unchanged.
+     * changedCells are packed cells that changed since the last plan (null entries = none).
+     * Returns an empty list if no path was found within maxIterations; the search state is kept
+     * either way, so the next call continues where this one stopped. provedNoPath() tells a settled
+     * "no path" apart from a search that was cut short.
+     */
+    public List<BlockPos> plan(NavGrid world, BlockPos start, BlockPos goal, boolean resetSession,
+                               long[] changedCells, int changedCount, Set<Long> avoidedStepUps,
+                               int maxRange, int maxIterations) {
+        this.world = world;
+        this.avoided = (avoidedStepUps != null) ? avoidedStepUps : Collections.emptySet();
+        expansions = 0;
+        provedNoPath = false;
+
+        if (resetSession || !active || goalKey != goal.asLong() || count > MAX_VERTICES
+                || this.maxRange != maxRange || !inRange(start.getX(), start.getY(), start.getZ())) {
+            reset();
+        }
+
+        // Same early-outs as AStar.begin.
+        if (start.getManhattanDistance(goal) > maxRange * 2
+                || !world.isStandable(start.getX(), start.getY(), start.getZ())
+                || !world.isStandable(goal.getX(), goal.getY(), goal.getZ())) {
+            provedNoPath = true;
+            return Collections.emptyList();
+        }
+
+        if (!active) {
+            active = true;
+            goalKey = goal.asLong();
+            startX = anchorX = start.getX();
+            startY = anchorY = start.getY();
+            startZ = anchorZ = start.getZ();
+            this.maxRange = maxRange;
+
+            int gid = vertex(goalKey);
+            rhs[gid] = 0.0;
+            updateVertex(gid);
+        } else {
+            // Moved start: raise km instead of re-keying the whole queue.
+            km += AStar.octileHeuristic(startX, startY, startZ, start.getX(), start.getY(), start.getZ());
+            startX = start.getX();
+            startY = start.getY();
+            startZ = start.getZ();
+
+            repaired.clear();
+            for (int i = 0; i < changedCount; i++) repairAround(changedCells[i]);
+        }
+
+        if (!computeShortestPath(start.asLong(), maxIterations)) return Collections.emptyList();
+        return extractPath(start.asLong());
+    }
+
+    /**
+     * True if the last plan() came back empty because the start cannot reach the goal within maxRange,
+     * not because it ran out of iterations, was interrupted or could not extract the path.
+     */
+    public boolean provedNoPath() {
+        return provedNoPath;
+    }
+
+    /** Vertices expanded by the last plan() (benchmarks/debug). */
+    public int lastExpansions() {
+        return expansions;
+    }
+
+    private boolean computeShortestPath(long startKey, int maxIterations) {
+        int sid = vertex(startKey);
+
+        int it = 0;
+        while (!open.isEmpty()) {
+            int u = open.peek();
+            double k1 = open.keyOf(u), k2 = open.tieOf(u);
+
+            double sm = Math.min(g[sid], rhs[sid]);
+            double s1 = sm + km; // h(start, start) = 0
+            // With a consistent heuristic whole corridors tie with the start's key, and the float sums behind
+            // the keys can put one of them a rounding error above it; ties are processed instead of compared
+            // by k2, or a vertex on the path may stay stale and extractPath walks in circles.
+            boolean topBelowStart = k1 <= s1 + TIE_EPSILON;
+            if (!topBelowStart && rhs[sid] <= g[sid]) break;
+
+            if (it++ >= maxIterations) return false;
+            if ((it & 1023) == 0 && Thread.currentThread().isInterrupted()) return false;
+
+            long uk = cell[u];
+            int ux = BlockPos.unpackLongX(uk), uy = BlockPos.unpackLongY(uk), uz = BlockPos.unpackLongZ(uk);
+
+            double um = Math.min(g[u], rhs[u]);
+            double n1 = um + AStar.octileHeuristic(startX, startY, startZ, ux, uy, uz) + km;
+            if (k1 < n1 || (k1 == n1 && k2 < um)) {
+                open.push(u, n1, um);
+                continue;
+            }
+
+            expansions++;
+            if (g[u] > rhs[u]) {
+                g[u] = rhs[u];
+                open.remove(u);
+                relaxPredecessors(u, ux, uy, uz);
+            } else {
+                double gOld = g[u];
+                g[u] = INF;
+                if (uk != goalKey) rhs[u] = minSuccessor(ux, uy, uz);
+                updateVertex(u);
+                reevaluatePredecessors(u, ux, uy, uz, gOld);
+            }
+        }
+
+        if (rhs[sid] < INF) return true;
+        provedNoPath = true;
+        return false;
+    }
+
+    /** g(u) dropped: preds may now route through u. */
+    private void relaxPredecessors(int u, int ux, int uy, int uz) {
+        long uk = cell[u];
+        int[][] deltas = ALLOW_DIAGONALS ? AStar.DELTAS8 : AStar.DELTAS4;
+        for (int[] d : deltas) {
+            int vx = ux - d[0], vz = uz - d[1];
+            for (int vy = uy - 1; vy <= uy + MAX_DROP_DOWN; vy++) {
+                if (!isPredecessorLevel(uy, vy)) continue;
+                long vk = BlockPos.asLong(vx, vy, vz);
+                if (vk == goalKey || !inRange(vx, vy, vz)) continue;
+                if (!world.isStandable(vx, vy, vz)) continue;
+
+                double c = edgeCost(vx, vy, vz, uk, ux, uy, uz);
+                if (c == INF) continue;
+
+                int v = vertex(vk);
+                double cand = c + g[u];
+                if (cand < rhs[v]) {
+                    rhs[v] = cand;
+                    updateVertex(v);
+                }
+            }
+        }
+    }
+
+    /** g(u) went to infinity: preds whose rhs came through u need a full recompute. */
+    private void reevaluatePredecessors(int u, int ux, int uy, int uz, double gOld) {
+        long uk = cell[u];
+        int[][] deltas = ALLOW_DIAGONALS ? AStar.DELTAS8 : AStar.DELTAS4;
+        for (int[] d : deltas) {
+            int vx = ux - d[0], vz = uz - d[1];
+            for (int vy = uy - 1; vy <= uy + MAX_DROP_DOWN; vy++) {
+                if (!isPredecessorLevel(uy, vy)) continue;
+                long vk = BlockPos.asLong(vx, vy, vz);
+                if (vk == goalKey) continue;
+
+                int v = index.get(vk);
+                if (v < 0 || rhs[v] == INF) continue;
+
+                double c = edgeCost(vx, vy, vz, uk, ux, uy, uz);
+                if (c == INF || rhs[v] != c + gOld) continue;
+
+                rhs[v] = minSuccessor(vx, vy, vz);
+                updateVertex(v);
+            }
+        }
+    }
+
+    /** vy is a level a predecessor can sit at: same level, one below (step-up) or a drop above. */
+    private static boolean isPredecessorLevel(int uy, int vy) {
+        if (vy == uy) return true;
+        if (vy == uy - 1) return ALLOW_STEP_UP;
+        return ALLOW_DROP_DOWN && vy > uy && vy - uy <= Math.max(1, MAX_DROP_DOWN);
+    }
+
+    /**
+     * Recomputes every known or newly standable vertex whose edges could read the changed cell: the ones
+     * close enough for their own checks to reach it, and the origins of drops whose escape BFS read it.
+     */
+    private void repairAround(long changed) {
+        int cx = BlockPos.unpackLongX(changed), cy = BlockPos.unpackLongY(changed), cz = BlockPos.unpackLongZ(changed);
+        for (int x = cx - REPAIR_XZ; x <= cx + REPAIR_XZ; x++) {
+            for (int z = cz - REPAIR_XZ; z <= cz + REPAIR_XZ; z++) {
+                for (int y = cy - REPAIR_BELOW; y <= cy + REPAIR_ABOVE; y++) {
+                    repairVertex(x, y, z);
+                }
+            }
+        }
+
+        if (!ALLOW_DROP_DOWN) return;
+        int[][] deltas = ALLOW_DIAGONALS ? AStar.DELTAS8 : AStar.DELTAS4;
+        for (int e = 0; e < escapes.count; e++) {
+            for (int rise = 1; rise <= AStar.EscapeMemo.RISES; rise++) {
+                if (!escapes.forget(e, rise, cx, cy, cz)) continue;
+
+                // The drop's origins: one column over in any direction, rise above the landing.
+                long l = escapes.landing[e];
+                int lx = BlockPos.unpackLongX(l), oy = BlockPos.unpackLongY(l) + rise, lz = BlockPos.unpackLongZ(l);
+                for (int[] d : deltas) repairVertex(lx - d[0], oy, lz - d[1]);
+            }
+        }
+    }
+
+    private void repairVertex(int x, int y, int z) {
+        long k = BlockPos.asLong(x, y, z);
+        if (k == goalKey || repaired.containsKey(k)) return;
+        repaired.put(k, 1);
+
+        int v = index.get(k);
+        if (v < 0) {
+            if (!inRange(x, y, z) || !world.isStandable(x, y, z)) return;
+            v = vertex(k);
+        }
+        rhs[v] = minSuccessor(x, y, z);
+        updateVertex(v);
+    }
+
+    private double minSuccessor(int x, int y, int z) {
+        // AStar never expands a cell beyond maxRange, so such a cell has no outgoing edges.
+        if (!inRange(x, y, z) || !world.isStandable(x, y, z)) return INF;
+
+        AStar.neighbors(world, scratch, x, y, z, ALLOW_DIAGONALS, ALLOW_STEP_UP, ALLOW_DROP_DOWN, MAX_DROP_DOWN, avoided);
+        double best = INF;
+        for (int k = 0; k < scratch.nbCount; k++) {
+            double gs = gOf(scratch.nbCell[k]);
+            if (gs == INF) continue;
+            double c = scratch.nbCost[k] + wallPenaltyOf(scratch.nbCell[k]);
+            if (c + gs < best) best = c + gs;
+        }
+        return best;
+    }
+
+    /** Cost of the edge v -> u exactly as AStar would charge it, or INF if AStar would not take it. */
+    private double edgeCost(int vx, int vy, int vz, long uk, int ux, int uy, int uz) {
+        int dx = ux - vx, dz = uz - vz;
+        if (!ALLOW_DIAGONALS && dx != 0 && dz != 0) return INF;
+
+        scratch.nbCount = 0;
+        AStar.successor(world, scratch, vx, vy, vz, dx, dz, ALLOW_STEP_UP, ALLOW_DROP_DOWN, MAX_DROP_DOWN, avoided);
+        if (scratch.nbCount == 0 || scratch.nbCell[0] != uk) return INF;
+        return scratch.nbCost[0] + AStar.wallPenalty(world, ux, uy, uz);
+    }
+
+    private boolean inRange(int x, int y, int z) {
+        return Math.abs(x - anchorX) + Math.abs(y - anchorY) + Math.abs(z - anchorZ) <= maxRange;
+    }
+
+    private double wallPenaltyOf(long k) {
+        return AStar.wallPenalty(world, BlockPos.unpackLongX(k), BlockPos.unpackLongY(k), BlockPos.unpackLongZ(k));
+    }
+
+    /**
+     * Follows the cheapest successor from start. Among equal-cost successors it takes the one AStar would
+     * pop first (lowest step cost + AStar.heuristic to the goal), then AStar's neighbor order.
+     */
+    private List<BlockPos> extractPath(long startKey) {
+        ArrayList<BlockPos> out = new ArrayList<>();
+        long cur = startKey;
+        out.add(BlockPos.fromLong(cur));
+        int gx = BlockPos.unpackLongX(goalKey), gy = BlockPos.unpackLongY(goalKey), gz = BlockPos.unpackLongZ(goalKey);
+
+        // A simple path visits each vertex at most once; longer means a g-value cycle.
+        int maxSteps = count;
+        while (cur != goalKey) {
+            if (out.size() > maxSteps) return Collections.emptyList();
+
+            int x = BlockPos.unpackLongX(cur), y = BlockPos.unpackLongY(cur), z = BlockPos.unpackLongZ(cur);
+            AStar.neighbors(world, scratch, x, y, z, ALLOW_DIAGONALS, ALLOW_STEP_UP, ALLOW_DROP_DOWN, MAX_DROP_DOWN, avoided);
+
+            long best = Long.MIN_VALUE;
+            double bestCost = INF, bestF = INF;
+            for (int k = 0; k < scratch.nbCount; k++) {
+                long nk = scratch.nbCell[k];
+                double gs = gOf(nk);
+                if (gs == INF) continue;
+                double step = scratch.nbCost[k] + wallPenaltyOf(nk);
+                double c = step + gs;
+                double f = step + AStar.heuristic(BlockPos.unpackLongX(nk), BlockPos.unpackLongY(nk),
+                        BlockPos.unpackLongZ(nk), gx, gy, gz);
+                if (c < bestCost - TIE_EPSILON || (c <= bestCost + TIE_EPSILON && f < bestF)) {
+                    bestCost = Math.min(c, bestCost);
+                    bestF = f;
+                    best = nk;
+                }
+            }
+            if (best == Long.MIN_VALUE) return Collections.emptyList();
+
+            cur = best;
+            out.add(BlockPos.fromLong(cur));
+        }
+        return out;
+    }
+
+    private void updateVertex(int v) {
+        if (g[v] != rhs[v]) {
+            long k = cell[v];
+            double m = Math.min(g[v], rhs[v]);
+            open.push(v, m + AStar.octileHeuristic(startX, startY, startZ,
+                    BlockPos.unpackLongX(k), BlockPos.unpackLongY(k), BlockPos.unpackLongZ(k)) + km, m);
+        } else {
+            open.remove(v);
+        }
+    }
+
+    private double gOf(long k) {
+        int id = index.get(k);
+        return (id < 0) ? INF : g[id];
+    }
+
+    private int vertex(long k) {
+        int id = index.get(k);
+        if (id >= 0) return id;
+
+        if (count == cell.length) {
+            int cap = count << 1;
+            cell = Arrays.copyOf(cell, cap);
+            g = Arrays.copyOf(g, cap);
+            rhs = Arrays.copyOf(rhs, cap);
+        }
+        id = count++;
+        cell[id] = k;
+        g[id] = INF;
+        rhs[id] = INF;
+        index.put(k, id);
+        return id;
+    }
+}
@@ -0,0 +1,129 @@
+package name.atlasclient.pathing;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memoized drop-escape answers ("can a player who dropped into this cell walk back up to originY?")
+ * shared by every planner run.
+ *
+ * The answer only depends on cells within a few blocks of the landing cell, so entries are grouped
+ * into one bucket per 16^3 section and a bucket is stamped with the NavCache versions of the 3x3x3
+ * sections around it. NavCache bumps those versions from the same block update / chunk packets the
+ * planner listens to, so a bucket built from older blocks simply stops matching a newer snapshot and
+ * is rebuilt; a snapshot with uncaptured neighbor sections is not cached at all.
+ *
+ * Per cell one int holds every rise (originY - y, 1..15): bit rise = known, bit 16 + rise = escapable.
+ *
+ * Thread-safe: the planner thread and the client thread (time-sliced search) may use it concurrently.
+ */
+public final class EscapeCache {
+
+    public static final int UNKNOWN = -1;
+    public static final int NO_ESCAPE = 0;
+    public static final int ESCAPE = 1;
+
+    private static final int MAX_RISE = 15;
+    private static final int MAX_BUCKETS = 4096;
+
+    private static final class Bucket {
+        final long[] versions;
+        final LongIntHashMap bits = new LongIntHashMap(64, 0);
+
+        Bucket(long[] versions) {
+            this.versions = versions;
+        }
+    }
+
+    // Last bucket resolved on this thread; drop neighbors of one expansion almost always share a section.
+    private static final class Memo {
+        BlockSnapshot snap;
+        long sectionKey;
+        Bucket bucket;
+    }
+
+    private static final ConcurrentHashMap<Long, Bucket> BUCKETS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Memo> MEMO = ThreadLocal.withInitial(Memo::new);
+
+    private EscapeCache() {}
+
+    public static void clear() {
+        BUCKETS.clear();
+    }
+
+    public static int size() {
+        return BUCKETS.size();
+    }
+
+    /** ESCAPE / NO_ESCAPE if known for the snapshot's blocks, UNKNOWN otherwise. */
+    public static int lookup(BlockSnapshot snap, int x, int y, int z, int originY) {
+        int rise = originY - y;
+        if (rise < 1 || rise > MAX_RISE) return UNKNOWN;
+
+        Bucket b = bucket(snap, x, y, z);
+        if (b == null) return UNKNOWN;
+
+        int v;
+        synchronized (b) {
+            v = b.bits.get(BlockPos.asLong(x, y, z));
+        }
+        if ((v & (1 << rise)) == 0) return UNKNOWN;
+        return (v & (1 << (16 + rise))) != 0 ? ESCAPE : NO_ESCAPE;
+    }
+
+    public static void store(BlockSnapshot snap, int x, int y, int z, int originY, boolean escape) {
+        int rise = originY - y;
+        if (rise < 1 || rise > MAX_RISE) return;
+
+        Bucket b = bucket(snap, x, y, z);
+        if (b == null) return;
+
+        long key = BlockPos.asLong(x, y, z);
+        synchronized (b) {
+            int v = b.bits.get(key) | (1 << rise);
+            if (escape) v |= 1 << (16 + rise);
+            b.bits.put(key, v);
+        }
+    }
+
+    private static Bucket bucket(BlockSnapshot snap, int x, int y, int z) {
+        long sk = ChunkSectionPos.asLong(x >> 4, y >> 4, z >> 4);
+        Memo memo = MEMO.get();
+        if (memo.snap == snap && memo.sectionKey == sk) return memo.bucket;
+
+        Bucket b = null;
+        long[] versions = neighborhoodVersions(snap, x >> 4, y >> 4, z >> 4);
+        if (versions != null) {
+            b = BUCKETS.get(sk);
+            if (b == null || !Arrays.equals(b.versions, versions)) {
+                if (BUCKETS.size() > MAX_BUCKETS) BUCKETS.clear();
+                b = new Bucket(versions);
+                BUCKETS.put(sk, b);
+            }
+        }
+
+        memo.snap = snap;
+        memo.sectionKey = sk;
+        memo.bucket = b;
+        return b;
+    }
+
+    /** Versions of the 27 sections an escape search from this section can read; null if any was not captured. */
+    private static long[] neighborhoodVersions(BlockSnapshot snap, int sx, int sy, int sz) {
+        long[] v = new long[27];
+        int i = 0;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    long ver = snap.navVersion(sx + dx, sy + dy, sz + dz);
+                    if (ver < 0) return null;
+                    v[i++] = ver;
+                }
+            }
+        }
+        return v;
+    }
+}
@@ -0,0 +1,203 @@
+package name.atlasclient.pathing;
+
+import name.atlasclient.world.BlockChangeEvents;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.Arrays;
+
+/**
+ * Dijkstra distance map from one standable cell over a bounded box. Lookups are O(1), so scripts can
+ * rank any number of candidates by how far they really are to walk to instead of by straight-line
+ * distance. The moves and their costs come from the planner (see PathfindScript.flowField), so the
+ * field matches what AStar would walk. Distances are from the source outward (drops are one-way, so
+ * they are not distances back to it).
+ *
+ * The last field is kept: cached() returns it again while the source cell is the same, the box still
+ * covers the requested radius and it is younger than MAX_AGE_TICKS. A block or chunk change inside the
+ * box marks it stale, but a stale field is still served until it is REBUILD_TICKS old. Mining changes a
+ * block every few ticks right next to the source, and a full recompute (snapshot + up to MAX_CELLS
+ * settled cells) per change would run on the client thread each time; this way it runs at most once per
+ * REBUILD_TICKS while costs lag the world by at most that long.
+ *
+ * Client thread only.
+ */
+public final class FlowField {
+
+    /** Cap on settled cells per field. */
+    private static final int MAX_CELLS = 50_000;
+    /** Age after which a field is recomputed even if nothing changed. */
+    private static final int MAX_AGE_TICKS = 100;
+    /** Age before which a field is reused even after a block inside it changed. */
+    private static final int REBUILD_TICKS = 20;
+    /** Eye height of a standing player above its feet cell's floor. */
+    private static final double EYE_HEIGHT = 1.62;
+
+    /** Moves out of one cell: fills cells/costs (cost including any penalty of the target) and returns the count. */
+    @FunctionalInterface
+    public interface Moves {
+        int expand(int x, int y, int z, long[] cells, double[] costs);
+    }
+
+    // Upper bound on the moves out of one cell (AStar: 8 directions, one target each).
+    private static final int MAX_MOVES = 8;
+
+    private static FlowField cached = null;
+    private static boolean hookRegistered = false;
+
+    private final BlockPos source;
+    private final int radius;
+    private final int createdAge;
+    private final LongIntHashMap index;
+    private final double[] cost;
+    private boolean stale = false;
+
+    private FlowField(BlockPos source, int radius, int createdAge, LongIntHashMap index, double[] cost) {
+        this.source = source;
+        this.radius = radius;
+        this.createdAge = createdAge;
+        this.index = index;
+        this.cost = cost;
+    }
+
+    /** The kept field if it can answer for (source, radius) at player age `age`; null if a new one is needed. */
+    public static FlowField cached(BlockPos source, int radius, int age) {
+        ensureHook();
+        FlowField f = cached;
+        if (f == null || !f.source.equals(source) || f.radius < radius) return null;
+
+        int elapsed = age - f.createdAge;
+        if (elapsed < 0 || elapsed >= MAX_AGE_TICKS) return null;
+        if (f.stale && elapsed >= REBUILD_TICKS) return null;
+        return f;
+    }
+
+    /**
+     * Settles up to MAX_CELLS cells from start, staying within radius blocks of it in X, Y and Z, and
+     * keeps the result for cached().
+     */
+    public static FlowField compute(BlockPos start, int radius, int age, Moves moves) {
+        ensureHook();
+        LongIntHashMap seen = new LongIntHashMap(1 << 12, -1);
+        IndexedMinHeap open = new IndexedMinHeap(1 << 10);
+        long[] cells = new long[1 << 12];
+        double[] g = new double[1 << 12];
+        boolean[] settled = new boolean[1 << 12];
+        int settledCount = 0;
+
+        long[] nbCell = new long[MAX_MOVES];
+        double[] nbCost = new double[MAX_MOVES];
+        int sx = start.getX(), sy = start.getY(), sz = start.getZ();
+
+        cells[0] = start.asLong();
+        seen.put(cells[0], 0);
+        int count = 1;
+        open.push(0, 0.0);
+
+        while (!open.isEmpty() && settledCount < MAX_CELLS) {
+            int cur = open.pop();
+            settled[cur] = true;
+            settledCount++;
+
+            long k = cells[cur];
+            int n = moves.expand(BlockPos.unpackLongX(k), BlockPos.unpackLongY(k), BlockPos.unpackLongZ(k),
+                    nbCell, nbCost);
+
+            double curG = g[cur];
+            for (int i = 0; i < n; i++) {
+                long nk = nbCell[i];
+                int nx = BlockPos.unpackLongX(nk), ny = BlockPos.unpackLongY(nk), nz = BlockPos.unpackLongZ(nk);
+                if (Math.abs(nx - sx) > radius || Math.abs(nz - sz) > radius || Math.abs(ny - sy) > radius) continue;
+
+                int id = seen.get(nk);
+                if (id >= 0 && settled[id]) continue;
+
+                double ng = curG + nbCost[i];
+                if (id < 0) {
+                    if (count == cells.length) {
+                        int cap = count << 1;
+                        cells = Arrays.copyOf(cells, cap);
+                        g = Arrays.copyOf(g, cap);
+                        settled = Arrays.copyOf(settled, cap);
+                    }
+                    id = count++;
+                    cells[id] = nk;
+                    g[id] = ng;
+                    seen.put(nk, id);
+                    open.push(id, ng);
+                } else if (ng < g[id]) {
+                    g[id] = ng;
+                    open.push(id, ng);
+                }
+            }
+        }
+
+        // Keep only what was settled: cell -> dense id, plus its final cost.
+        LongIntHashMap index = new LongIntHashMap(settledCount, -1);
+        double[] cost = new double[settledCount];
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (!settled[i]) continue;
+            index.put(cells[i], n);
+            cost[n++] = g[i];
+        }
+        cached = new FlowField(start.toImmutable(), radius, age, index, cost);
+        return cached;
+    }
+
+    /** Walking cost to a standable cell; +infinity if it is not reachable inside the field. */
+    public double costTo(BlockPos cell) {
+        int id = index.get(cell.asLong());
+        return (id >= 0) ? cost[id] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Walking cost to the cheapest standing cell from which block is within reach: the eye (EYE_HEIGHT
+     * above the cell's floor center) no farther than reach from the block's center, the test the mining
+     * scripts apply to the player. +infinity if no such cell is reachable.
+     */
+    public double reachCost(BlockPos block, double reach) {
+        double best = Double.POSITIVE_INFINITY;
+        double reachSq = reach * reach;
+        int r = (int) Math.ceil(reach);
+        int bx = block.getX(), by = block.getY(), bz = block.getZ();
+        for (int dy = r; dy >= -r - 2; dy--) {
+            double ey = dy + EYE_HEIGHT - 0.5;
+            for (int dx = -r; dx <= r; dx++) {
+                for (int dz = -r; dz <= r; dz++) {
+                    if (dx * dx + dz * dz + ey * ey > reachSq) continue;
+                    int id = index.get(BlockPos.asLong(bx + dx, by + dy, bz + dz));
+                    if (id >= 0 && cost[id] < best) best = cost[id];
+                }
+            }
+        }
+        return best;
+    }
+
+    public BlockPos source() {
+        return source;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    // Wall penalties read one block past the box.
+    private boolean covers(int minX, int minZ, int maxX, int maxZ) {
+        return maxX >= source.getX() - radius - 1 && minX <= source.getX() + radius + 1
+                && maxZ >= source.getZ() - radius - 1 && minZ <= source.getZ() + radius + 1;
+    }
+
+    private static void ensureHook() {
+        if (hookRegistered) return;
+        hookRegistered = true;
+
+        BlockChangeEvents.BLOCK_CHANGED.register((x, y, z) -> {
+            FlowField f = cached;
+            if (f != null && f.covers(x, z, x, z)) f.stale = true;
+        });
+        BlockChangeEvents.CHUNK_CHANGED.register((cx, cz) -> {
+            FlowField f = cached;
+            if (f != null && f.covers(cx << 4, cz << 4, (cx << 4) + 15, (cz << 4) + 15)) f.stale = true;
+        });
+    }
+}
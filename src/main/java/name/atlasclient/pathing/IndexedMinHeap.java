@@ -0,0 +1,164 @@
+package name.atlasclient.pathing;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of int node ids keyed by double priority, with decrease-key.
+ *
+ * An optional second key breaks ties lexicographically (D* Lite's [k1; k2] keys); plain push() uses 0.
+ *
+ * Each node id is in the heap at most once (a position table maps id -> heap slot), so improving a
+ * node's cost moves it instead of pushing a duplicate. Node ids are dense indices handed out by the
+ * caller (0..n); storage grows on demand and is reused across clear() calls.
+ */
+public final class IndexedMinHeap {
+
+    private int[] heap;      // heap slot -> node id
+    private double[] keys;   // node id -> priority
+    private double[] ties;   // node id -> secondary priority
+    private int[] slots;     // node id -> heap slot, -1 when not queued
+    private int size;
+
+    public IndexedMinHeap(int initialCapacity) {
+        int cap = Math.max(16, initialCapacity);
+        heap = new int[cap];
+        keys = new double[cap];
+        ties = new double[cap];
+        slots = new int[cap];
+        Arrays.fill(slots, -1);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int node) {
+        return node < slots.length && slots[node] >= 0;
+    }
+
+    public double keyOf(int node) {
+        return keys[node];
+    }
+
+    public double tieOf(int node) {
+        return ties[node];
+    }
+
+    public int peek() {
+        return heap[0];
+    }
+
+    /** Inserts the node, or moves it to the new key if it is already queued. */
+    public void push(int node, double key) {
+        push(node, key, 0.0);
+    }
+
+    /** Same as push(node, key), ordering equal keys by tie. */
+    public void push(int node, double key, double tie) {
+        ensureNode(node);
+        int slot = slots[node];
+        if (slot >= 0) {
+            boolean up = less(key, tie, keys[node], ties[node]);
+            keys[node] = key;
+            ties[node] = tie;
+            if (up) siftUp(slot);
+            else siftDown(slot);
+            return;
+        }
+
+        if (size == heap.length) heap = Arrays.copyOf(heap, size << 1);
+        keys[node] = key;
+        ties[node] = tie;
+        heap[size] = node;
+        slots[node] = size;
+        siftUp(size++);
+    }
+
+    public int pop() {
+        int top = heap[0];
+        slots[top] = -1;
+        int last = heap[--size];
+        if (size > 0) {
+            heap[0] = last;
+            slots[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /** Removes the node if it is queued. */
+    public void remove(int node) {
+        if (!contains(node)) return;
+        int slot = slots[node];
+        slots[node] = -1;
+        int last = heap[--size];
+        if (slot == size) return;
+
+        heap[slot] = last;
+        slots[last] = slot;
+        siftUp(slot);
+        if (heap[slot] == last) siftDown(slot);
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) slots[heap[i]] = -1;
+        size = 0;
+    }
+
+    private void ensureNode(int node) {
+        if (node < slots.length) return;
+        int cap = slots.length;
+        while (cap <= node) cap <<= 1;
+        int old = slots.length;
+        slots = Arrays.copyOf(slots, cap);
+        Arrays.fill(slots, old, cap, -1);
+        keys = Arrays.copyOf(keys, cap);
+        ties = Arrays.copyOf(ties, cap);
+    }
+
+    private static boolean less(double k1, double t1, double k2, double t2) {
+        return k1 < k2 || (k1 == k2 && t1 < t2);
+    }
+
+    private void siftUp(int i) {
+        int node = heap[i];
+        double k = keys[node];
+        double t = ties[node];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            int pn = heap[parent];
+            if (!less(k, t, keys[pn], ties[pn])) break;
+            heap[i] = pn;
+            slots[pn] = i;
+            i = parent;
+        }
+        heap[i] = node;
+        slots[node] = i;
+    }
+
+    private void siftDown(int i) {
+        int node = heap[i];
+        double k = keys[node];
+        double t = ties[node];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = (i << 1) + 1;
+            int cn = heap[child];
+            int right = child + 1;
+            if (right < size && less(keys[heap[right]], ties[heap[right]], keys[cn], ties[cn])) {
+                child = right;
+                cn = heap[child];
+            }
+            if (!less(keys[cn], ties[cn], k, t)) break;
+            heap[i] = cn;
+            slots[cn] = i;
+            i = child;
+        }
+        heap[i] = node;
+        slots[node] = i;
+    }
+}
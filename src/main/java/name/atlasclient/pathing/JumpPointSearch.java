@@ -0,0 +1,289 @@
+package name.atlasclient.pathing;
+
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JPS on one Y layer (PathFinding.js "move diagonally only when no obstacles" rules, which match
+ * AStar's no-corner-cutting canDiagonal check).
+ *
+ * The grid is the layer's standable cells with zero wall penalty, so every move costs exactly 1 or
+ * 1.4142 and JPS's symmetry pruning holds; the result is optimal within that subgraph and keeps a
+ * cell off walls. Anything that needs a step-up, a drop or a wall-adjacent cell comes back empty
+ * and the caller falls through to the 3D planners.
+ *
+ * Optimal within the layer can still be a long detour around something one step-up or drop would
+ * cross, so find() takes a maxDetour: a path costing more than maxDetour times the octile distance
+ * (a lower bound for every route, 3D ones included) comes back empty as well. The search stops as
+ * soon as the cheapest open node is over that bound.
+ */
+public final class JumpPointSearch {
+
+    private static final double SQRT2 = 1.4142;
+
+    private static final class Search {
+        final LongIntHashMap index = new LongIntHashMap(1 << 10, -1);
+        final IndexedMinHeap open = new IndexedMinHeap(1 << 8);
+
+        long[] cell = new long[1 << 8];
+        double[] g = new double[1 << 8];
+        int[] parent = new int[1 << 8];
+        boolean[] closed = new boolean[1 << 8];
+        int count;
+
+        int expansions;
+
+        int add(long key, double gScore, int parentId) {
+            if (count == cell.length) {
+                int cap = count << 1;
+                cell = Arrays.copyOf(cell, cap);
+                g = Arrays.copyOf(g, cap);
+                parent = Arrays.copyOf(parent, cap);
+                closed = Arrays.copyOf(closed, cap);
+            }
+            int id = count++;
+            cell[id] = key;
+            g[id] = gScore;
+            parent[id] = parentId;
+            closed[id] = false;
+            index.put(key, id);
+            return id;
+        }
+    }
+
+    private static final ThreadLocal<Search> SEARCH = ThreadLocal.withInitial(Search::new);
+
+    // Per-search constants (single thread per search; kept off the stack to keep jump() small)
+    private NavGrid world;
+    private int y;
+    private int sx, sz, gx, gz;
+    private int maxRange;
+
+    private static final ThreadLocal<JumpPointSearch> CONTEXT = ThreadLocal.withInitial(JumpPointSearch::new);
+
+    /**
+     * Same-layer path from start to goal, or empty if one needs cells outside the uniform-cost layer or
+     * costs more than maxDetour times the octile distance.
+     */
+    public static List<BlockPos> find(NavGrid world, BlockPos start, BlockPos goal, int maxRange, int maxIterations,
+                                      double maxDetour) {
+        if (world == null || start.getY() != goal.getY()) return Collections.emptyList();
+        if (start.getManhattanDistance(goal) > maxRange * 2) return Collections.emptyList();
+        double maxCost = maxDetour * octile(start.getX(), start.getZ(), goal.getX(), goal.getZ());
+        return CONTEXT.get().run(world, start, goal, maxRange, maxIterations, maxCost);
+    }
+
+    /** Jump points expanded by the most recent search on the calling thread (benchmarks/debug). */
+    public static int lastExpansions() {
+        return SEARCH.get().expansions;
+    }
+
+    private List<BlockPos> run(NavGrid world, BlockPos start, BlockPos goal, int maxRange, int maxIterations,
+                               double maxCost) {
+        Search s = SEARCH.get();
+        s.index.clear();
+        s.open.clear();
+        s.count = 0;
+        s.expansions = 0;
+
+        this.world = world;
+        this.y = start.getY();
+        this.sx = start.getX();
+        this.sz = start.getZ();
+        this.gx = goal.getX();
+        this.gz = goal.getZ();
+        this.maxRange = maxRange;
+
+        // Endpoints only need to be standable (the player is already there / must end there).
+        if (!world.isStandable(sx, y, sz) || !world.isStandable(gx, y, gz)) {
+            return Collections.emptyList();
+        }
+
+        final long goalKey = goal.asLong();
+        int startId = s.add(start.asLong(), 0.0, -1);
+        s.open.push(startId, octile(sx, sz, gx, gz));
+
+        long[] succ = new long[8];
+        int it = 0;
+        while (!s.open.isEmpty() && it++ < maxIterations) {
+            if ((it & 255) == 0 && Thread.currentThread().isInterrupted()) break;
+
+            // f never drops along a search with a consistent estimate: nothing left fits the bound.
+            if (s.open.keyOf(s.open.peek()) > maxCost) break;
+
+            int cur = s.open.pop();
+            long ck = s.cell[cur];
+            if (ck == goalKey) return reconstruct(s, cur);
+
+            s.closed[cur] = true;
+            s.expansions++;
+
+            int cx = BlockPos.unpackLongX(ck), cz = BlockPos.unpackLongZ(ck);
+            int n = 0;
+            int p = s.parent[cur];
+            int[] dirs = (p < 0) ? startDirections(cx, cz) : prunedDirections(cx, cz, s.cell[p]);
+            for (int k = 0; k < dirs.length; k += 2) {
+                long jp = jump(cx + dirs[k], cz + dirs[k + 1], cx, cz);
+                if (jp != Long.MIN_VALUE) succ[n++] = jp;
+            }
+
+            for (int k = 0; k < n; k++) {
+                long jk = succ[k];
+                int id = s.index.get(jk);
+                if (id >= 0 && s.closed[id]) continue;
+
+                int jx = BlockPos.unpackLongX(jk), jz = BlockPos.unpackLongZ(jk);
+                double ng = s.g[cur] + octile(cx, cz, jx, jz);
+                if (id < 0) {
+                    id = s.add(jk, ng, cur);
+                    s.open.push(id, ng + octile(jx, jz, gx, gz));
+                } else if (ng < s.g[id]) {
+                    s.g[id] = ng;
+                    s.parent[id] = cur;
+                    s.open.push(id, ng + octile(jx, jz, gx, gz));
+                }
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private boolean walkable(int x, int z) {
+        if (x == gx && z == gz) return true; // goal may hug a wall
+        if (Math.abs(x - sx) + Math.abs(z - sz) > maxRange) return false;
+        return world.isStandable(x, y, z) && AStar.wallPenalty(world, x, y, z) == 0.0;
+    }
+
+    /** Start node: every direction allowed by the no-corner-cutting rule. */
+    private int[] startDirections(int x, int z) {
+        int[] out = new int[16];
+        int n = 0;
+        for (int[] d : AStar.DELTAS8) {
+            int dx = d[0], dz = d[1];
+            if (dx != 0 && dz != 0 && !(walkable(x + dx, z) && walkable(x, z + dz))) continue;
+            if (!walkable(x + dx, z + dz)) continue;
+            out[n++] = dx;
+            out[n++] = dz;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /** Direction pairs (dx, dz) to jump in from (x, z), pruned by the direction we arrived from. */
+    private int[] prunedDirections(int x, int z, long parentKey) {
+        int px = BlockPos.unpackLongX(parentKey), pz = BlockPos.unpackLongZ(parentKey);
+        int dx = Integer.signum(x - px), dz = Integer.signum(z - pz);
+        int[] out = new int[10];
+        int n = 0;
+
+        if (dx != 0 && dz != 0) {
+            boolean nz = walkable(x, z + dz), nx = walkable(x + dx, z);
+            if (nz) { out[n++] = 0; out[n++] = dz; }
+            if (nx) { out[n++] = dx; out[n++] = 0; }
+            if (nz && nx) { out[n++] = dx; out[n++] = dz; }
+        } else if (dx != 0) {
+            boolean next = walkable(x + dx, z);
+            boolean top = walkable(x, z + 1), bottom = walkable(x, z - 1);
+            if (next) {
+                out[n++] = dx; out[n++] = 0;
+                if (top) { out[n++] = dx; out[n++] = 1; }
+                if (bottom) { out[n++] = dx; out[n++] = -1; }
+            }
+            if (top) { out[n++] = 0; out[n++] = 1; }
+            if (bottom) { out[n++] = 0; out[n++] = -1; }
+        } else {
+            boolean next = walkable(x, z + dz);
+            boolean right = walkable(x + 1, z), left = walkable(x - 1, z);
+            if (next) {
+                out[n++] = 0; out[n++] = dz;
+                if (right) { out[n++] = 1; out[n++] = dz; }
+                if (left) { out[n++] = -1; out[n++] = dz; }
+            }
+            if (right) { out[n++] = 1; out[n++] = 0; }
+            if (left) { out[n++] = -1; out[n++] = 0; }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /** Next jump point reached by moving from (px, pz) through (x, z), or Long.MIN_VALUE. */
+    private long jump(int x, int z, int px, int pz) {
+        final int dx = x - px, dz = z - pz;
+
+        if (dx != 0 && dz != 0) {
+            while (true) {
+                if (!walkable(x, z)) return Long.MIN_VALUE;
+                if (x == gx && z == gz) return BlockPos.asLong(x, y, z);
+
+                // Moving diagonally: stop here if a straight jump from here finds something.
+                if (straight(x + dx, z, dx, 0) || straight(x, z + dz, 0, dz)) return BlockPos.asLong(x, y, z);
+
+                // Diagonal continues only when both orthogonal cells are open (no corner cutting).
+                if (!(walkable(x + dx, z) && walkable(x, z + dz))) return Long.MIN_VALUE;
+                x += dx;
+                z += dz;
+            }
+        }
+
+        return straight(x, z, dx, dz) ? straightHit : Long.MIN_VALUE;
+    }
+
+    // Result cell of the last successful straight() call.
+    private long straightHit;
+
+    /** Straight jump from (x, z) along (dx, dz); true if a jump point was found (stored in straightHit). */
+    private boolean straight(int x, int z, int dx, int dz) {
+        while (true) {
+            if (!walkable(x, z)) return false;
+            if (x == gx && z == gz) {
+                straightHit = BlockPos.asLong(x, y, z);
+                return true;
+            }
+
+            // Forced neighbors: an open cell beside us whose cell behind is blocked.
+            boolean forced;
+            if (dx != 0) {
+                forced = (walkable(x, z - 1) && !walkable(x - dx, z - 1))
+                        || (walkable(x, z + 1) && !walkable(x - dx, z + 1));
+            } else {
+                forced = (walkable(x - 1, z) && !walkable(x - 1, z - dz))
+                        || (walkable(x + 1, z) && !walkable(x + 1, z - dz));
+            }
+            if (forced) {
+                straightHit = BlockPos.asLong(x, y, z);
+                return true;
+            }
+
+            x += dx;
+            z += dz;
+        }
+    }
+
+    /** Jump points joined by straight/diagonal runs, expanded back to one cell per step. */
+    private List<BlockPos> reconstruct(Search s, int goalId) {
+        ArrayList<Long> jps = new ArrayList<>();
+        for (int c = goalId; c >= 0; c = s.parent[c]) jps.add(s.cell[c]);
+        Collections.reverse(jps);
+
+        ArrayList<BlockPos> out = new ArrayList<>();
+        int x = BlockPos.unpackLongX(jps.get(0)), z = BlockPos.unpackLongZ(jps.get(0));
+        out.add(new BlockPos(x, y, z));
+        for (int i = 1; i < jps.size(); i++) {
+            int tx = BlockPos.unpackLongX(jps.get(i)), tz = BlockPos.unpackLongZ(jps.get(i));
+            int dx = Integer.signum(tx - x), dz = Integer.signum(tz - z);
+            while (x != tx || z != tz) {
+                if (x != tx) x += dx;
+                if (z != tz) z += dz;
+                out.add(new BlockPos(x, y, z));
+            }
+        }
+        return out;
+    }
+
+    private static double octile(int ax, int az, int bx, int bz) {
+        int dx = Math.abs(ax - bx);
+        int dz = Math.abs(az - bz);
+        return Math.max(dx, dz) + (SQRT2 - 1.0) * Math.min(dx, dz);
+    }
+}
@@ -0,0 +1,385 @@
+package name.atlasclient.pathing;
+
+import name.atlasclient.AtlasClient;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * ALT lower bounds: for each landmark L the exact costs d(L, n) from it and d(n, L) to it for every cell
+ * it reaches, over the same successor graph AStar searches. By the triangle inequality
+ * d(n, goal) >= max(d(L, goal) - d(L, n), d(n, L) - d(goal, L)), which (unlike AStar's octile bound)
+ * knows about walls and tunnels. Both directions are kept because drops are one-way: d(n, L) comes from
+ * a Dijkstra over predecessors, and differs from d(L, n) wherever the route goes down a ledge.
+ *
+ * Tables are built from the island's NavStore sections on a background thread, with farthest-point
+ * landmark selection (each new landmark is the reachable cell farthest from the ones already chosen).
+ * A table belongs to one NavStore session: it is dropped as soon as the store closes or reopens (world
+ * change, island warp), and as soon as a stored section it could have read is corrected from live data
+ * (NavStore.rewrittenSince): one holding indexed cells or next to one, since edges and drop-escape
+ * searches read less than a section past the cell they start from. Distances through a changed block
+ * are no longer exact, and the bound is only a lower bound while they are. Rewrites elsewhere on the
+ * island keep the table. It is rebuilt once the store has grown enough that the old table misses much
+ * of the map.
+ * Cells past LANDMARK_MAX_CELLS are not indexed, which bounds a table's memory.
+ *
+ * Avoided step-ups only remove edges, so they never break the bound. Cells the table has never seen
+ * simply fall back to AStar's own heuristic.
+ */
+public final class Landmarks {
+
+    public static final int LANDMARK_COUNT = 8;
+    private static final int LANDMARK_MIN_SECTIONS = 256;        // stored sections before a first table is worth it
+    private static final double LANDMARK_REBUILD_GROWTH = 1.5;   // rebuild once the store grew by half
+    // Cells per landmark search and per table. A table costs ~4 B per landmark (both directions) plus
+    // ~32 B of index per cell: about 8 MB at the cap, and only one table (the current island's) is ever kept.
+    private static final int LANDMARK_MAX_CELLS = 120_000;
+    private static final int LANDMARK_RETRY_TICKS = 1200;
+
+    private static final boolean ALLOW_DIAGONALS = AStar.ALLOW_DIAGONALS;
+    private static final boolean ALLOW_STEP_UP = AStar.ALLOW_STEP_UP;
+    private static final boolean ALLOW_DROP_DOWN = AStar.ALLOW_DROP_DOWN;
+    private static final int MAX_DROP_DOWN = AStar.MAX_DROP_DOWN;
+
+    /**
+     * Immutable once published. Distances are fixed-point (1/16 block), rounded down, in chars:
+     * UNKNOWN where a landmark does not reach the cell or the distance does not fit (over 4095 blocks).
+     */
+    public static final class Table {
+        final String key;
+        final long session;   // NavStore session the table was built from
+        final int sections;
+        final long rewrites;  // NavStore.rewrites(session) when the build started
+        final long[] landmarks;
+        final LongIntHashMap index; // cell -> dense id
+        final char[][] dist;         // [landmark][id]: d(L, cell)
+        final char[][] rdist;        // [landmark][id]: d(cell, L)
+        final LongIntHashMap reads;  // sections holding an indexed cell, and their neighbors
+
+        Table(String key, long session, int sections, long rewrites, long[] landmarks, LongIntHashMap index, char[][] dist,
+              char[][] rdist, LongIntHashMap reads) {
+            this.key = key;
+            this.session = session;
+            this.sections = sections;
+            this.rewrites = rewrites;
+            this.landmarks = landmarks;
+            this.index = index;
+            this.dist = dist;
+            this.rdist = rdist;
+            this.reads = reads;
+        }
+
+        /**
+         * d(L, cell) per landmark, then d(cell, L) per landmark, in fixed point, -1 where unknown; null if
+         * no landmark reaches the cell.
+         */
+        int[] distancesTo(long cell) {
+            int id = index.get(cell);
+            if (id < 0) return null;
+            int n = landmarks.length;
+            int[] out = new int[n * 2];
+            for (int l = 0; l < n; l++) {
+                out[l] = fixed(dist[l], id);
+                out[n + l] = fixed(rdist[l], id);
+            }
+            return out;
+        }
+
+        /** max over landmarks of d(L, goal) - d(L, cell) and d(cell, L) - d(goal, L), in blocks; 0 if nothing is known. */
+        double lowerBound(long cell, int[] goalDist) {
+            int id = index.get(cell);
+            if (id < 0) return 0.0;
+            int n = landmarks.length;
+            int best = 0;
+            for (int l = 0; l < n; l++) {
+                // -1: both values were rounded down, so their difference may be 1/16 too large.
+                int from = fixed(dist[l], id);
+                if (goalDist[l] >= 0 && from >= 0) best = Math.max(best, goalDist[l] - from - 1);
+                int to = fixed(rdist[l], id);
+                if (goalDist[n + l] >= 0 && to >= 0) best = Math.max(best, to - goalDist[n + l] - 1);
+            }
+            return best * (1.0 / FIXED_POINT);
+        }
+
+        private static int fixed(char[] d, int id) {
+            return (id < d.length && d[id] != UNKNOWN) ? d[id] : -1;
+        }
+    }
+
+    private static final int FIXED_POINT = 16;
+    private static final char UNKNOWN = Character.MAX_VALUE;
+
+    private static volatile Table current = null;
+    private static long checkedRewrites = 0L; // NavStore.rewrites already checked against current
+    private static Future<Table> building = null;
+    private static int retryCooldown = 0;
+
+    private static final ExecutorService BUILDER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Atlas Landmarks");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    private Landmarks() {}
+
+    /** Table for the store session that is open now, or null. Any thread. */
+    public static Table active() {
+        Table t = current;
+        if (t == null) return null;
+        return (t.session == NavStore.session()) ? t : null;
+    }
+
+    /**
+     * Client thread: drops a table whose store session ended or whose data went stale, adopts a
+     * finished build and starts a new one when there is no table or the island's store outgrew it.
+     * A build for an ended session finds nothing (grid() reads void) and is discarded.
+     */
+    public static void tick(BlockPos seed) {
+        long session = NavStore.session();
+        Table cur = current;
+        if (cur != null && (cur.session != session || rewroteRead(cur, session))) {
+            current = null;
+            // A new island deserves a table without waiting out the retry delay.
+            if (cur.session != session) retryCooldown = 0;
+        }
+
+        if (building != null) {
+            if (!building.isDone()) return;
+            try {
+                Table t = building.get();
+                if (t != null && t.session == session) {
+                    current = t;
+                    checkedRewrites = t.rewrites;
+                    AtlasClient.LOGGER.info("Landmarks {}: {} landmarks over {} cells", t.key, t.landmarks.length, t.index.size());
+                }
+            } catch (CancellationException | InterruptedException ignored) {
+            } catch (ExecutionException e) {
+                AtlasClient.LOGGER.warn("Landmark build failed", e.getCause());
+            }
+            building = null;
+            retryCooldown = LANDMARK_RETRY_TICKS;
+        }
+        if (retryCooldown > 0) {
+            retryCooldown--;
+            return;
+        }
+
+        String key = NavStore.currentKey();
+        if (key == null || session < 0) return;
+        int sections = NavStore.size();
+        if (sections < LANDMARK_MIN_SECTIONS) return;
+
+        Table t = current;
+        if (t != null && sections < t.sections * LANDMARK_REBUILD_GROWTH) return;
+
+        final long rewrites = NavStore.rewrites(session);
+        final NavGrid grid = NavStore.grid(session);
+        final BlockPos start = seed.toImmutable();
+        building = BUILDER.submit(() -> build(grid, start, LANDMARK_COUNT, key, session, sections, rewrites));
+    }
+
+    /** True if a section t could have read was rewritten since the last check; null log = cannot tell. */
+    private static boolean rewroteRead(Table t, long session) {
+        long now = NavStore.rewrites(session);
+        if (now == checkedRewrites) return false;
+        long[] changed = NavStore.rewrittenSince(session, checkedRewrites);
+        checkedRewrites = now;
+        if (changed == null) return true;
+        for (long sk : changed) {
+            if (t.reads.containsKey(sk)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Table over what is reachable from seed in grid, at most LANDMARK_MAX_CELLS cells. key, session,
+     * sections and rewrites only identify the store state it was built from.
+     */
+    public static Table build(NavGrid grid, BlockPos seed, int count, String key, long session, int sections, long rewrites) {
+        AStar.Search s = new AStar.Search();
+        if (!grid.isStandable(seed.getX(), seed.getY(), seed.getZ())) return null;
+
+        LongIntHashMap index = new LongIntHashMap(1 << 16, -1);
+        long[] landmarks = new long[count];
+        char[][] dist = new char[count][];
+
+        // First landmark: the far end of the map as seen from the seed.
+        long next = dijkstra(grid, s, seed.asLong(), null);
+        int n = 0;
+        while (n < count && next != Long.MIN_VALUE) {
+            landmarks[n] = next;
+            dijkstra(grid, s, next, index);
+            dist[n] = fixedPoint(s, index);
+            n++;
+            next = farthest(s, index, dist, n);
+        }
+        if (n == 0) return null;
+        LongIntHashMap reads = readSections(s, index);
+
+        char[][] rdist = new char[n][];
+        for (int l = 0; l < n; l++) {
+            reverseDijkstra(grid, s, landmarks[l]);
+            rdist[l] = fixedPoint(s, index);
+        }
+
+        return new Table(key, session, sections, rewrites, Arrays.copyOf(landmarks, n), index, Arrays.copyOf(dist, n),
+                rdist, reads);
+    }
+
+    /**
+     * Forward Dijkstra from source with AStar's moves and costs. Returns the last cell closed (the
+     * farthest), or Long.MIN_VALUE if nothing was reached. With index set, closed cells get an id until
+     * the index holds LANDMARK_MAX_CELLS.
+     */
+    private static long dijkstra(NavGrid grid, AStar.Search s, long source, LongIntHashMap index) {
+        s.reset();
+        Set<Long> none = Collections.emptySet();
+        int sid = s.add(source, 0.0, -1);
+        s.open.push(sid, 0.0);
+
+        long last = Long.MIN_VALUE;
+        while (!s.open.isEmpty() && s.expansions < LANDMARK_MAX_CELLS) {
+            int cur = s.open.pop();
+            s.closed[cur] = true;
+            s.expansions++;
+            long k = s.cell[cur];
+            last = k;
+            if (index != null && index.size() < LANDMARK_MAX_CELLS && index.get(k) < 0) index.put(k, index.size());
+
+            int cx = BlockPos.unpackLongX(k), cy = BlockPos.unpackLongY(k), cz = BlockPos.unpackLongZ(k);
+            AStar.neighbors(grid, s, cx, cy, cz, ALLOW_DIAGONALS, ALLOW_STEP_UP, ALLOW_DROP_DOWN, MAX_DROP_DOWN, none);
+
+            double curG = s.g[cur];
+            for (int i = 0; i < s.nbCount; i++) {
+                long nk = s.nbCell[i];
+                int id = s.index.get(nk);
+                if (id >= 0 && s.closed[id]) continue;
+
+                double ng = curG + s.nbCost[i] + AStar.wallPenalty(grid,
+                        BlockPos.unpackLongX(nk), BlockPos.unpackLongY(nk), BlockPos.unpackLongZ(nk));
+                if (id < 0) {
+                    id = s.add(nk, ng, cur);
+                    s.open.push(id, ng);
+                } else if (ng < s.g[id]) {
+                    s.g[id] = ng;
+                    s.parent[id] = cur;
+                    s.open.push(id, ng);
+                }
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Dijkstra from target over predecessors: the cost of the cheapest AStar path from each cell to target.
+     * A predecessor sits one column over, on the same level, one below (step-up) or up to a drop above,
+     * and is one only if AStar.successor from it lands on the cell. Cells are not added to the index.
+     */
+    private static void reverseDijkstra(NavGrid grid, AStar.Search s, long target) {
+        s.reset();
+        Set<Long> none = Collections.emptySet();
+        int tid = s.add(target, 0.0, -1);
+        s.open.push(tid, 0.0);
+
+        int[][] deltas = ALLOW_DIAGONALS ? AStar.DELTAS8 : AStar.DELTAS4;
+        int maxRise = ALLOW_DROP_DOWN ? Math.max(1, MAX_DROP_DOWN) : 0;
+        while (!s.open.isEmpty() && s.expansions < LANDMARK_MAX_CELLS) {
+            int cur = s.open.pop();
+            s.closed[cur] = true;
+            s.expansions++;
+            long k = s.cell[cur];
+            int cx = BlockPos.unpackLongX(k), cy = BlockPos.unpackLongY(k), cz = BlockPos.unpackLongZ(k);
+            // Every edge into k pays k's wall penalty on top of its move cost.
+            double curG = s.g[cur] + AStar.wallPenalty(grid, cx, cy, cz);
+
+            for (int[] d : deltas) {
+                int px = cx - d[0], pz = cz - d[1];
+                for (int py = cy - (ALLOW_STEP_UP ? 1 : 0); py <= cy + maxRise; py++) {
+                    long pk = BlockPos.asLong(px, py, pz);
+                    int id = s.index.get(pk);
+                    if (id >= 0 && s.closed[id]) continue;
+                    if (!grid.isStandable(px, py, pz)) continue;
+
+                    s.nbCount = 0;
+                    AStar.successor(grid, s, px, py, pz, d[0], d[1], ALLOW_STEP_UP, ALLOW_DROP_DOWN, MAX_DROP_DOWN, none);
+                    if (s.nbCount == 0 || s.nbCell[0] != k) continue;
+
+                    double ng = curG + s.nbCost[0];
+                    if (id < 0) {
+                        id = s.add(pk, ng, cur);
+                        s.open.push(id, ng);
+                    } else if (ng < s.g[id]) {
+                        s.g[id] = ng;
+                        s.parent[id] = cur;
+                        s.open.push(id, ng);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Sections holding a cell of index (the last search closed all of them), plus their 26 neighbors. */
+    private static LongIntHashMap readSections(AStar.Search s, LongIntHashMap index) {
+        LongIntHashMap own = new LongIntHashMap(1 << 10, -1);
+        LongIntHashMap reads = new LongIntHashMap(1 << 12, -1);
+        for (int i = 0; i < s.count; i++) {
+            long k = s.cell[i];
+            if (!s.closed[i] || index.get(k) < 0) continue;
+            int sx = BlockPos.unpackLongX(k) >> 4, sy = BlockPos.unpackLongY(k) >> 4, sz = BlockPos.unpackLongZ(k) >> 4;
+            long sk = ChunkSectionPos.asLong(sx, sy, sz);
+            if (own.containsKey(sk)) continue;
+            own.put(sk, 0);
+
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dz = -1; dz <= 1; dz++) reads.put(ChunkSectionPos.asLong(sx + dx, sy + dy, sz + dz), 0);
+                }
+            }
+        }
+        return reads;
+    }
+
+    /** The last search's closed costs, laid out by table id (UNKNOWN for costs that do not fit). */
+    private static char[] fixedPoint(AStar.Search s, LongIntHashMap index) {
+        char[] out = new char[index.size()];
+        Arrays.fill(out, UNKNOWN);
+        for (int i = 0; i < s.count; i++) {
+            if (!s.closed[i]) continue;
+            int id = index.get(s.cell[i]);
+            if (id < 0) continue;
+            long d = (long) Math.floor(s.g[i] * FIXED_POINT);
+            if (d < UNKNOWN) out[id] = (char) d;
+        }
+        return out;
+    }
+
+    /** Cell (among those the last search closed) whose nearest chosen landmark is farthest away. */
+    private static long farthest(AStar.Search s, LongIntHashMap index, char[][] dist, int n) {
+        long best = Long.MIN_VALUE;
+        int bestD = 0;
+        for (int i = 0; i < s.count; i++) {
+            if (!s.closed[i]) continue;
+            int id = index.get(s.cell[i]);
+            if (id < 0) continue;
+            int d = Integer.MAX_VALUE;
+            for (int l = 0; l < n; l++) {
+                char dl = (id < dist[l].length) ? dist[l][id] : UNKNOWN;
+                if (dl != UNKNOWN && dl < d) d = dl;
+            }
+            if (d != Integer.MAX_VALUE && d > bestD) {
+                bestD = d;
+                best = s.cell[i];
+            }
+        }
+        return best;
+    }
+}
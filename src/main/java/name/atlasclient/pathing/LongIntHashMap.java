@@ -0,0 +1,153 @@
+package name.atlasclient.pathing;
+
+/**
+ * Open-addressing long -> int map (linear probing) for packed block coordinates.
+ *
+ * No boxing and no per-entry objects. clear() is O(1): slots are stamped with a generation and
+ * anything from an older generation reads as empty, so one instance can be reused across searches.
+ * remove() shifts the rest of the probe chain back into the hole (no tombstones), so lookups after
+ * removals probe exactly as far as if the removed keys had never been added.
+ */
+public final class LongIntHashMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final int missingValue;
+
+    private long[] keys;
+    private int[] values;
+    private int[] stamps;
+    private int stamp = 1;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public LongIntHashMap(int expectedSize, int missingValue) {
+        this.missingValue = missingValue;
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(long key) {
+        int i = mix(key) & mask;
+        while (stamps[i] == stamp) {
+            if (keys[i] == key) return values[i];
+            i = (i + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    public boolean containsKey(long key) {
+        int i = mix(key) & mask;
+        while (stamps[i] == stamp) {
+            if (keys[i] == key) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /** Inserts or overwrites. */
+    public void put(long key, int value) {
+        int i = mix(key) & mask;
+        while (stamps[i] == stamp) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        stamps[i] = stamp;
+        if (++size >= resizeAt) rehash(keys.length << 1);
+    }
+
+    /** Removes key; returns its value, or missingValue if it was absent. */
+    public int remove(long key) {
+        int i = mix(key) & mask;
+        while (stamps[i] == stamp) {
+            if (keys[i] == key) {
+                int value = values[i];
+                shiftBack(i);
+                size--;
+                return value;
+            }
+            i = (i + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    public void clear() {
+        size = 0;
+        stamp++;
+        if (stamp == 0) {
+            // Wrapped after ~4 billion clears; wipe once so old stamps cannot alias.
+            java.util.Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+    }
+
+    // Backward-shift deletion: walk the chain after the hole and move back every entry whose home slot
+    // is not cyclically inside (hole, j]; the last hole left behind is emptied.
+    private void shiftBack(int hole) {
+        int j = hole;
+        while (true) {
+            j = (j + 1) & mask;
+            if (stamps[j] != stamp) break;
+            int home = mix(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        stamps[hole] = 0; // never a live stamp (stamps start at 1 and skip 0 on wrap)
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        int[] oldStamps = stamps;
+        int oldStamp = stamp;
+
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStamps[i] != oldStamp) continue;
+            int j = mix(oldKeys[i]) & mask;
+            while (stamps[j] == stamp) j = (j + 1) & mask;
+            keys[j] = oldKeys[i];
+            values[j] = oldValues[i];
+            stamps[j] = stamp;
+            size++;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        stamps = new int[capacity];
+        stamp = 1;
+        mask = capacity - 1;
+        size = 0;
+        resizeAt = capacity >> 1; // load factor 0.5 keeps probe chains short
+    }
+
+    private static int tableSizeFor(int expected) {
+        int cap = MIN_CAPACITY;
+        while ((cap >> 1) <= expected) cap <<= 1;
+        return cap;
+    }
+
+    private static int mix(long k) {
+        // Murmur3 fmix64; packed BlockPos longs are highly structured, so mix before masking.
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB9FE1A85EC53L;
+        k ^= k >>> 33;
+        return (int) k;
+    }
+}
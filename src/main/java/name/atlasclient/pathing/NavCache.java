@@ -0,0 +1,207 @@
+package name.atlasclient.pathing;
+
+import name.atlasclient.world.BlockChangeEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientChunkEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.World;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-16^3-section navigation cache shared by every planner run.
+ *
+ * A Section holds the PassabilityTable flags of its 4096 cells plus a standable bitset. Sections are
+ * built lazily by the planner (from a BlockSnapshot, on the worker thread) and handed back here; the
+ * next snapshot over the same area attaches them instead of rebuilding, so repeated replans read
+ * cached bits only.
+ *
+ * Staleness is handled with versions: every slot gets a fresh number from a global counter when it is
+ * created or invalidated, a snapshot records the number at capture, and a built section is accepted
+ * only if the slot still carries that number. Invalidation comes from block update / chunk delta /
+ * chunk data packets (BlockChangeEvents), chunk unload and world change.
+ *
+ * Sections built from live data are also written through to NavStore, the on-disk copy per island.
+ *
+ * view() gives the client thread the same flags for the live world (cached sections where valid), for
+ * per-tick queries such as NavRay sweeps.
+ *
+ * Invalidation and capture run on the client thread; offer() runs on the planner thread.
+ */
+public final class NavCache {
+
+    /** Immutable nav data for one chunk section. Cell index = (y << 8) | (z << 4) | x, local coords. */
+    public static final class Section {
+        final byte[] flags;
+        // Needs the neighbor sections above/below; computed once when they are known, null until then.
+        volatile long[] standable;
+
+        Section(byte[] flags) {
+            this.flags = flags;
+        }
+    }
+
+    private static final class Slot {
+        long version;
+        Section section;
+
+        Slot(long version) {
+            this.version = version;
+        }
+    }
+
+    /**
+     * Live-world NavGrid: reads a cached section while its slot is valid, PassabilityTable otherwise.
+     * Remembers the last section it looked up, so a query that stays in one section does one map lookup.
+     * Client thread only; make a new one per tick (it does not see invalidations after the lookup).
+     */
+    private static final class View implements NavGrid {
+        private final World w;
+        private final boolean cached;
+        private final BlockPos.Mutable m = new BlockPos.Mutable();
+        private long lastKey = Long.MIN_VALUE;
+        private byte[] lastFlags = null;
+
+        View(World w) {
+            this.w = w;
+            this.cached = (w == world);
+        }
+
+        @Override
+        public int flagsAt(int x, int y, int z) {
+            if (cached) {
+                long key = ChunkSectionPos.asLong(x >> 4, y >> 4, z >> 4);
+                if (key != lastKey) {
+                    lastKey = key;
+                    lastFlags = sectionFlags(key);
+                }
+                if (lastFlags != null) return lastFlags[((y & 15) << 8) | ((z & 15) << 4) | (x & 15)];
+            }
+            return PassabilityTable.flags(w, m.set(x, y, z));
+        }
+    }
+
+    private static final ConcurrentHashMap<Long, Slot> SLOTS = new ConcurrentHashMap<>();
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    // Identity of the world the cached sections belong to, and its section range (for column drops).
+    private static World world = null;
+    private static int bottomSection = 0;
+    private static int topSection = -1;
+
+    private static boolean initialized = false;
+
+    private NavCache() {}
+
+    /** Hooks invalidation sources. Call once from client init. */
+    public static void init() {
+        if (initialized) return;
+        initialized = true;
+
+        BlockChangeEvents.BLOCK_CHANGED.register(NavCache::invalidateBlock);
+        BlockChangeEvents.CHUNK_CHANGED.register(NavCache::invalidateChunk);
+        ClientChunkEvents.CHUNK_UNLOAD.register((w, chunk) -> {
+            if (w == world) invalidateChunk(chunk.getPos().x, chunk.getPos().z);
+        });
+        ClientPlayConnectionEvents.JOIN.register((handler, sender, mc) -> clear());
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, mc) -> {
+            clear();
+            NavStore.close();
+        });
+
+        // Persistent copy per island (follows the tab list's Area line).
+        ClientTickEvents.END_CLIENT_TICK.register(NavStore::tick);
+    }
+
+    /**
+     * Drops everything if the client moved to another world (dimension change / server switch / island
+     * warp), and suspends NavStore until the new world's island is known.
+     */
+    public static void checkWorld(World w) {
+        if (w == world) return;
+        clear();
+        NavStore.suspend(w);
+        world = w;
+        if (w != null) {
+            bottomSection = w.getBottomSectionCoord();
+            topSection = w.getTopSectionCoord();
+        }
+    }
+
+    public static void clear() {
+        SLOTS.clear();
+        EscapeCache.clear(); // stamped with these slots' versions; drop it with them
+        world = null;
+        bottomSection = 0;
+        topSection = -1;
+    }
+
+    public static int size() {
+        return SLOTS.size();
+    }
+
+    /** NavGrid over the live world w, backed by the cached sections (client thread). */
+    public static NavGrid view(World w) {
+        return new View(w);
+    }
+
+    private static byte[] sectionFlags(long sectionKey) {
+        Slot slot = SLOTS.get(sectionKey);
+        if (slot == null) return null;
+        synchronized (slot) {
+            return (slot.section != null) ? slot.section.flags : null;
+        }
+    }
+
+    /**
+     * Registers the section for a snapshot: writes its current version into versions[i] and returns the
+     * cached Section, or null if it has to be built.
+     */
+    static Section attach(long sectionKey, long[] versions, int i) {
+        Slot slot = SLOTS.computeIfAbsent(sectionKey, k -> new Slot(VERSIONS.incrementAndGet()));
+        synchronized (slot) {
+            versions[i] = slot.version;
+            return slot.section;
+        }
+    }
+
+    /** Publishes a section built from a snapshot; ignored if it was invalidated since capture. */
+    static void offer(long sectionKey, long version, Section section) {
+        Slot slot = SLOTS.get(sectionKey);
+        if (slot == null) return;
+        synchronized (slot) {
+            if (slot.version == version && slot.section == null) slot.section = section;
+        }
+    }
+
+    /** A cell change affects its own section and, through standable, the sections holding y-1 and y+1. */
+    public static void invalidateBlock(int x, int y, int z) {
+        if (SLOTS.isEmpty()) return;
+        int cx = x >> 4, cz = z >> 4;
+        int sy = y >> 4;
+        invalidateSection(ChunkSectionPos.asLong(cx, sy, cz));
+        if (((y - 1) >> 4) != sy) invalidateSection(ChunkSectionPos.asLong(cx, sy - 1, cz));
+        if (((y + 1) >> 4) != sy) invalidateSection(ChunkSectionPos.asLong(cx, sy + 1, cz));
+    }
+
+    /** Forgets a whole column (chunk resent or unloaded). */
+    public static void invalidateChunk(int cx, int cz) {
+        if (SLOTS.isEmpty()) return;
+        for (int sy = bottomSection; sy <= topSection; sy++) {
+            // Removing (not bumping) is fine: offer() never recreates a slot, and a new slot gets a new version.
+            SLOTS.remove(ChunkSectionPos.asLong(cx, sy, cz));
+        }
+    }
+
+    private static void invalidateSection(long key) {
+        Slot slot = SLOTS.get(key);
+        if (slot == null) return;
+        synchronized (slot) {
+            slot.version = VERSIONS.incrementAndGet();
+            slot.section = null;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package name.atlasclient.pathing;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.BlockView;
+
+/**
+ * The only block query the planners need: PassabilityTable flags per cell.
+ *
+ * BlockSnapshot answers from NavCache sections; of(BlockView) adapts a live world; benchmarks and
+ * offline tools can back it with a plain byte array (no Minecraft world or bootstrap required).
+ */
+@FunctionalInterface
+public interface NavGrid {
+
+    /** PassabilityTable flags of (x, y, z); cells with no data read as void air (passable, no floor). */
+    int flagsAt(int x, int y, int z);
+
+    /** Same answer as PassabilityTable.standable over the cell, its head and its floor (fluids never standable). */
+    default boolean isStandable(int x, int y, int z) {
+        return PassabilityTable.standable(flagsAt(x, y, z), flagsAt(x, y + 1, z), flagsAt(x, y - 1, z));
+    }
+
+    /** The view itself if it already is a NavGrid, otherwise a single-threaded adapter over it. */
+    static NavGrid of(BlockView world) {
+        if (world instanceof NavGrid grid) return grid;
+        BlockPos.Mutable m = new BlockPos.Mutable();
+        return (x, y, z) -> PassabilityTable.flags(world, m.set(x, y, z));
+    }
+}
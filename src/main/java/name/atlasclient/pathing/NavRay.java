@@ -0,0 +1,100 @@
+package name.atlasclient.pathing;
+
+/**
+ * Swept player-box queries over NavGrid flags (3D DDA), replacing world.raycast for walk LOS checks.
+ *
+ * The box is halfWidth wide around the center line in X/Z and reaches from feet + FEET_CLEARANCE to
+ * feet + EYE_HEIGHT, the span the old feet/body/eye rays covered. The center line is walked cell by
+ * cell (Amanatides-Woo); for each span of the line inside one cell, every cell the box overlaps over
+ * that span is checked once per layer:
+ *   - layers the feet pass through must be BODY_PASSABLE (low slabs/carpet can be walked onto),
+ *   - the layers above, up to the eye, must be HEAD_PASSABLE (no collision at all).
+ * With requireFloor the cell under the center line must also be standable on every span, which is the
+ * corridor check the follower used to do every CORRIDOR_SAMPLE_STEP with isStandable.
+ *
+ * Fluids are ignored, like the old rays (RaycastContext.FluidHandling.NONE).
+ *
+ * No allocation; any thread, as long as the grid is safe on it.
+ */
+public final class NavRay {
+
+    public static final double FEET_CLEARANCE = 0.15;
+    public static final double EYE_HEIGHT = 1.62;
+    public static final double PLAYER_HALF_WIDTH = 0.3;
+
+    // Box edges exactly on a cell boundary (a player pressed against a wall) do not touch the next cell.
+    private static final double EDGE_EPS = 1e-7;
+
+    private NavRay() {}
+
+    /** Player box (PLAYER_HALF_WIDTH) from feet position a to feet position b. */
+    public static boolean sweep(NavGrid grid, double ax, double ay, double az, double bx, double by, double bz,
+                                boolean requireFloor) {
+        return sweep(grid, ax, ay, az, bx, by, bz, PLAYER_HALF_WIDTH, requireFloor);
+    }
+
+    public static boolean sweep(NavGrid grid, double ax, double ay, double az, double bx, double by, double bz,
+                                double halfWidth, boolean requireFloor) {
+        double dx = bx - ax, dz = bz - az;
+
+        int cx = floor(ax), cz = floor(az);
+        int ex = floor(bx), ez = floor(bz);
+        int stepX = (dx > 0) ? 1 : (dx < 0) ? -1 : 0;
+        int stepZ = (dz > 0) ? 1 : (dz < 0) ? -1 : 0;
+
+        double tDeltaX = (stepX != 0) ? 1.0 / Math.abs(dx) : Double.POSITIVE_INFINITY;
+        double tDeltaZ = (stepZ != 0) ? 1.0 / Math.abs(dz) : Double.POSITIVE_INFINITY;
+        double tMaxX = (stepX > 0) ? (cx + 1 - ax) / dx : (stepX < 0) ? (ax - cx) / -dx : Double.POSITIVE_INFINITY;
+        double tMaxZ = (stepZ > 0) ? (cz + 1 - az) / dz : (stepZ < 0) ? (az - cz) / -dz : Double.POSITIVE_INFINITY;
+
+        int steps = Math.abs(ex - cx) + Math.abs(ez - cz);
+        double t0 = 0.0;
+        for (int i = 0; i <= steps; i++) {
+            double t1 = Math.min(1.0, Math.min(tMaxX, tMaxZ));
+            if (i == steps) t1 = 1.0;
+            if (!spanClear(grid, ax, ay, az, dx, by - ay, dz, t0, t1, cx, cz, halfWidth, requireFloor)) return false;
+
+            if (tMaxX < tMaxZ) {
+                cx += stepX;
+                t0 = tMaxX;
+                tMaxX += tDeltaX;
+            } else {
+                cz += stepZ;
+                t0 = tMaxZ;
+                tMaxZ += tDeltaZ;
+            }
+        }
+        return true;
+    }
+
+    private static boolean spanClear(NavGrid grid, double ax, double ay, double az, double dx, double dy, double dz,
+                                     double t0, double t1, int cx, int cz, double halfWidth, boolean requireFloor) {
+        double x0 = ax + dx * t0, x1 = ax + dx * t1;
+        double z0 = az + dz * t0, z1 = az + dz * t1;
+        double y0 = ay + dy * t0, y1 = ay + dy * t1;
+        double yLo = Math.min(y0, y1), yHi = Math.max(y0, y1);
+
+        // Feet cell (not the block below it): standing on a slab puts the feet inside the slab cell.
+        if (requireFloor && !grid.isStandable(cx, floor((y0 + y1) * 0.5 + 0.01), cz)) return false;
+
+        int minX = floor(Math.min(x0, x1) - halfWidth + EDGE_EPS), maxX = floor(Math.max(x0, x1) + halfWidth - EDGE_EPS);
+        int minZ = floor(Math.min(z0, z1) - halfWidth + EDGE_EPS), maxZ = floor(Math.max(z0, z1) + halfWidth - EDGE_EPS);
+        int feetLo = floor(yLo + FEET_CLEARANCE), feetHi = floor(yHi + FEET_CLEARANCE);
+        int top = floor(yHi + EYE_HEIGHT);
+
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int y = feetLo; y <= top; y++) {
+                    int need = (y <= feetHi) ? PassabilityTable.BODY_PASSABLE : PassabilityTable.HEAD_PASSABLE;
+                    if ((grid.flagsAt(x, y, z) & need) == 0) return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int floor(double d) {
+        int i = (int) d;
+        return (d < i) ? i - 1 : i;
+    }
+}
@@ -0,0 +1,362 @@
+package name.atlasclient.pathing;
+
+import name.atlasclient.AtlasClient;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ClientPlayNetworkHandler;
+import net.minecraft.client.network.PlayerListEntry;
+import net.minecraft.client.network.ServerInfo;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.World;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+
+/**
+ * Persistent, memory-mapped copy of the NavCache section flags, one file per SkyBlock island and server:
+ * atlas-navcache/[server]/[island].nav under the game dir.
+ *
+ * Islands are static maps, so the flags the planner learned on the last visit are still right almost
+ * everywhere. BlockSnapshot.capture fills chunks that are not loaded from here, which lets a plan run
+ * (and route costs get computed) before the client has the chunks.
+ *
+ * Staleness: every record carries a stamp (hash of its 4096 flag bytes). Whenever BlockSnapshot builds a
+ * section from live data it calls record(); a differing stamp rewrites the record, an equal one is a
+ * no-op. Stored data can therefore only be stale for chunks not loaded since the map changed, and those
+ * are corrected the first time they are planned over while loaded.
+ *
+ * File layout (region-file style, records never move):
+ *   header: int magic, int format, int record count, int reserved
+ *   record: long sectionKey (ChunkSectionPos.asLong), long stamp, 4096 flag bytes (cell index as NavCache)
+ * Sections that are entirely air are not stored (they read the same as missing sections: void air).
+ *
+ * The island is read from the tab list ("Area: ..."); nothing is persisted until one is known (dungeons
+ * have no Area line, and their rooms change every run anyway). tick() (client thread) switches files;
+ * load()/record() may run on the planner thread, so every access to the mapping is synchronized.
+ *
+ * World binding: an open file belongs to one client World (identity; a dimension change or island warp
+ * gives a new one). On any world change the store is suspended at once (NavCache.checkWorld, or tick()),
+ * because the tab list lags the warp and still shows the old island for a while. It reopens only once an
+ * Area line has been read for the new world: one that differs from the old island's, or the same one
+ * after SETTLE_TICKS (a warp to another server of the same island). Every open gets a new session number;
+ * callers take session(world) on the client thread and pass it to load()/record()/grid(), which reject
+ * a session that is no longer the open one, so nothing captured on one world reaches another's file.
+ */
+public final class NavStore {
+
+    private static final int MAGIC = 0x4E415653; // "NAVS"
+    // Bump when PassabilityTable flag semantics change; old files are then discarded.
+    private static final int FORMAT = 1;
+
+    private static final String DIR = "atlas-navcache";
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = 16 + 4096;
+    private static final int INITIAL_RECORDS = 1024;
+    // 64 MB per island at most; past that new sections are simply not persisted.
+    private static final int MAX_RECORDS = 16384;
+
+    private static final int DETECT_EVERY_TICKS = 20;
+    // After a world change, an unchanged Area line is trusted only after this long.
+    private static final int SETTLE_TICKS = 100;
+    private static final int AIR_FLAGS = PassabilityTable.classify(null, false);
+    private static final byte[] NONE = new byte[0]; // grid(): section known to be missing
+    // Section keys of the last REWRITE_LOG_SIZE rewrites of the open session; rewrite n is at n % size.
+    private static final int REWRITE_LOG_SIZE = 1024;
+    private static final long[] REWRITE_LOG = new long[REWRITE_LOG_SIZE];
+
+    private static final LongIntHashMap INDEX = new LongIntHashMap(4096, -1);
+
+    private static FileChannel channel = null;
+    private static MappedByteBuffer map = null;
+    private static int capacity = 0;
+    private static int count = 0;
+    private static String currentKey = null;
+    private static World boundWorld = null;   // world the open file belongs to
+    private static long session = 0L;         // bumped on every open/close
+    private static long rewrites = 0L;        // records whose flags changed this session (the map changed)
+
+    // Suspended after a world change: the world waiting for its Area line, and the key before the change.
+    private static World pendingWorld = null;
+    private static String previousKey = null;
+    private static int settleTicks = 0;
+
+    private static int detectCooldown = 0;
+
+    private NavStore() {}
+
+    /** Follows the island the player is on; call every client tick. */
+    public static void tick(MinecraftClient mc) {
+        World w = (mc != null) ? mc.world : null;
+        suspend(w);
+        if (pendingWorld != null) settleTicks++;
+
+        if (--detectCooldown > 0) return;
+        detectCooldown = DETECT_EVERY_TICKS;
+        if (w == null) return;
+
+        String key = null;
+        try {
+            key = detectKey(mc);
+        } catch (Throwable ignored) {
+        }
+        if (key == null) return;
+
+        if (pendingWorld == w) {
+            // The tab list may still describe the island we just left.
+            if (key.equals(previousKey) && settleTicks < SETTLE_TICKS) return;
+            open(key, w);
+        } else if (!key.equals(currentKey)) {
+            open(key, w);
+        }
+    }
+
+    /**
+     * The client is now on world w: closes a file bound to another world and waits for w's Area line.
+     * No-op if the store already follows w. Client thread (NavCache.checkWorld, tick).
+     */
+    public static synchronized void suspend(World w) {
+        if (w == boundWorld || w == pendingWorld) return;
+        String key = currentKey;
+        close();
+        if (w == null) return;
+        pendingWorld = w;
+        previousKey = key;
+        settleTicks = 0;
+        detectCooldown = 0;
+    }
+
+    /** Flushes and closes the current file (disconnect). */
+    public static synchronized void close() {
+        if (map != null) {
+            try {
+                map.force();
+            } catch (Throwable ignored) {
+            }
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+        channel = null;
+        map = null;
+        capacity = 0;
+        count = 0;
+        currentKey = null;
+        boundWorld = null;
+        pendingWorld = null;
+        previousKey = null;
+        session++;
+        INDEX.clear();
+    }
+
+    public static synchronized int size() {
+        return count;
+    }
+
+    /** "server/island" of the open file, or null when nothing is being persisted. */
+    public static synchronized String currentKey() {
+        return (map != null) ? currentKey : null;
+    }
+
+    /** Session of the open file if it belongs to world w, else -1 (nothing will be read or written). */
+    public static synchronized long session(World w) {
+        return (map != null && w != null && w == boundWorld) ? session : -1L;
+    }
+
+    /** Session of the open file (whatever world), or -1; changes whenever the store is closed or reopened. */
+    public static synchronized long session() {
+        return (map != null) ? session : -1L;
+    }
+
+    /** Records of the open session rewritten with different flags so far (stored data that was stale). */
+    public static synchronized long rewrites(long session) {
+        return (map != null && session == NavStore.session) ? rewrites : 0L;
+    }
+
+    /**
+     * Section keys rewritten in session since rewrites(session) returned since, oldest first (a section may
+     * repeat). Null if the session ended or the log no longer reaches back that far.
+     */
+    public static synchronized long[] rewrittenSince(long session, long since) {
+        if (map == null || session != NavStore.session || since < 0 || rewrites - since > REWRITE_LOG_SIZE) return null;
+        long[] out = new long[(int) (rewrites - since)];
+        for (int i = 0; i < out.length; i++) out[i] = REWRITE_LOG[(int) ((since + i) % REWRITE_LOG_SIZE)];
+        return out;
+    }
+
+    /**
+     * NavGrid over the stored sections of a session (void air where nothing is stored, or once that
+     * session has ended). Caches what it reads; one thread at a time.
+     */
+    public static NavGrid grid(long session) {
+        HashMap<Long, byte[]> sections = new HashMap<>();
+        return (x, y, z) -> {
+            long sk = ChunkSectionPos.asLong(x >> 4, y >> 4, z >> 4);
+            byte[] flags = sections.computeIfAbsent(sk, k -> {
+                byte[] f = load(session, k);
+                return (f != null) ? f : NONE;
+            });
+            return (flags != NONE) ? flags[((y & 15) << 8) | ((z & 15) << 4) | (x & 15)] : AIR_FLAGS;
+        };
+    }
+
+    /** Stored flags of a section (a fresh copy), or null if the section is unknown or the session ended. */
+    public static synchronized byte[] load(long session, long sectionKey) {
+        if (map == null || session != NavStore.session) return null;
+        int slot = INDEX.get(sectionKey);
+        if (slot < 0) return null;
+
+        byte[] flags = new byte[4096];
+        map.get(recordOffset(slot) + 16, flags);
+        return flags;
+    }
+
+    /**
+     * Section flags just built from live data; written only if they differ from the stored record.
+     * Ignored unless session is still the open one (the data was captured on the world the file belongs to).
+     */
+    public static synchronized void record(long session, long sectionKey, byte[] flags) {
+        if (map == null || session != NavStore.session) return;
+
+        int slot = INDEX.get(sectionKey);
+        if (slot < 0 && isAllAir(flags)) return;
+
+        long stamp = stamp(flags);
+        if (slot >= 0) {
+            if (map.getLong(recordOffset(slot) + 8) != stamp) {
+                writeRecord(slot, sectionKey, stamp, flags);
+                REWRITE_LOG[(int) (rewrites % REWRITE_LOG_SIZE)] = sectionKey;
+                rewrites++;
+            }
+            return;
+        }
+
+        if (count == capacity && !grow()) return;
+        slot = count++;
+        writeRecord(slot, sectionKey, stamp, flags);
+        map.putInt(8, count);
+        INDEX.put(sectionKey, slot);
+    }
+
+    private static synchronized void open(String key, World w) {
+        close();
+        currentKey = key;
+        boundWorld = w;
+        rewrites = 0L;
+
+        Path file = FabricLoader.getInstance().getGameDir().resolve(DIR).resolve(key + ".nav");
+        try {
+            Files.createDirectories(file.getParent());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            long size = channel.size();
+            int stored = 0;
+            if (size >= HEADER_BYTES) {
+                MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+                if (head.getInt(0) == MAGIC && head.getInt(4) == FORMAT) {
+                    stored = Math.max(0, Math.min(head.getInt(8), (int) ((size - HEADER_BYTES) / RECORD_BYTES)));
+                } else {
+                    AtlasClient.LOGGER.info("Discarding nav cache {} (old format)", file);
+                }
+            }
+
+            capacity = Math.min(MAX_RECORDS, Math.max(INITIAL_RECORDS, Integer.highestOneBit(Math.max(1, stored)) << 1));
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * RECORD_BYTES);
+            map.putInt(0, MAGIC);
+            map.putInt(4, FORMAT);
+
+            // Rebuild the index; this also pages the file in, so the first plans on the island read warm data.
+            for (int slot = 0; slot < stored; slot++) {
+                INDEX.put(map.getLong(recordOffset(slot)), slot);
+            }
+            count = stored;
+            map.putInt(8, count);
+
+            AtlasClient.LOGGER.info("Nav cache {}: {} sections", key, count);
+        } catch (Throwable t) {
+            AtlasClient.LOGGER.warn("Could not open nav cache {}", file, t);
+            close();
+            currentKey = key; // do not retry every second
+            boundWorld = w;
+        }
+    }
+
+    private static boolean grow() {
+        if (capacity >= MAX_RECORDS) return false;
+        try {
+            int next = Math.min(MAX_RECORDS, capacity << 1);
+            map.force();
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) next * RECORD_BYTES);
+            capacity = next;
+            return true;
+        } catch (IOException e) {
+            AtlasClient.LOGGER.warn("Could not grow nav cache {}", currentKey, e);
+            return false;
+        }
+    }
+
+    private static void writeRecord(int slot, long sectionKey, long stamp, byte[] flags) {
+        int off = recordOffset(slot);
+        map.putLong(off, sectionKey);
+        map.putLong(off + 8, stamp);
+        map.put(off + 16, flags);
+    }
+
+    private static int recordOffset(int slot) {
+        return HEADER_BYTES + slot * RECORD_BYTES;
+    }
+
+    private static boolean isAllAir(byte[] flags) {
+        for (byte b : flags) {
+            if (b != AIR_FLAGS) return false;
+        }
+        return true;
+    }
+
+    /** 64-bit FNV-1a over the flags, mixed; collisions only mean a stale record survives one more check. */
+    private static long stamp(byte[] flags) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : flags) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        return h ^ (h >>> 33);
+    }
+
+    /** "server/island" with both parts reduced to file-name-safe characters; null until the island is known. */
+    private static String detectKey(MinecraftClient mc) {
+        if (mc == null || mc.world == null) return null;
+        ClientPlayNetworkHandler handler = mc.getNetworkHandler();
+        if (handler == null) return null;
+
+        String island = null;
+        for (PlayerListEntry e : handler.getPlayerList()) {
+            Text name = e.getDisplayName();
+            if (name == null) continue;
+            String s = name.getString().replaceAll("\u00a7.", "").trim();
+            if (s.startsWith("Area: ")) {
+                island = s.substring(6);
+                break;
+            }
+        }
+        if (island == null || island.isBlank()) return null;
+
+        ServerInfo server = mc.getCurrentServerEntry();
+        String host = (server != null && server.address != null) ? server.address : "singleplayer";
+        return safe(host) + "/" + safe(island);
+    }
+
+    private static String safe(String s) {
+        return s.toLowerCase().replaceAll("[^a-z0-9._-]+", "_");
+    }
+}
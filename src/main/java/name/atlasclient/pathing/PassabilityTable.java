@@ -0,0 +1,113 @@
+package name.atlasclient.pathing;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.shape.VoxelShape;
+import net.minecraft.world.BlockView;
+import net.minecraft.world.EmptyBlockView;
+
+/**
+ * Per-BlockState passability flags for the pathfinder, indexed by BlockState raw id.
+ *
+ * Built once at world join (and lazily on first use). The planner reads one byte per cell instead of
+ * building a VoxelShape for every isStandable/wallPenalty probe. States whose collision depends on
+ * position or context (scaffolding, shulker boxes, moving pistons, ...) are flagged DYNAMIC and are
+ * classified from the live shape instead.
+ */
+public final class PassabilityTable {
+
+    /** Feet cell: empty, or low-profile collision starting at the bottom (slabs, carpet). */
+    public static final int BODY_PASSABLE = 1;
+    /** Head cell: no collision at all. */
+    public static final int HEAD_PASSABLE = 1 << 1;
+    /** Any collision; a player can stand on (or in, for low shapes) this cell. */
+    public static final int SOLID_FLOOR = 1 << 2;
+    /** Any collision; counts toward the wall-hugging penalty of adjacent cells. */
+    public static final int WALL_SOLID = 1 << 3;
+    /** Contains a fluid (water, lava, waterlogged). */
+    public static final int FLUID = 1 << 4;
+    /** Shape depends on position/context; callers must classify from the live shape. */
+    public static final int DYNAMIC = 1 << 5;
+
+    // Clearance for slab-ish blocks (shared with PathfindScript's walk-surface logic)
+    public static final double BODY_CLEARANCE_MIN_Y = 0.60;
+
+    private static volatile byte[] TABLE = null;
+
+    private PassabilityTable() {}
+
+    /** Rebuilds the table from Block.STATE_IDS. Call on world join. */
+    public static void rebuild() {
+        int n = Block.STATE_IDS.size();
+        byte[] t = new byte[n];
+        for (int id = 0; id < n; id++) {
+            BlockState state = Block.STATE_IDS.get(id);
+            if (state == null) {
+                t[id] = (byte) DYNAMIC;
+                continue;
+            }
+            t[id] = (byte) classifyStatic(state);
+        }
+        TABLE = t;
+    }
+
+    /** Flags for the state at pos; falls back to the live shape for DYNAMIC states. */
+    public static int flags(BlockView world, BlockPos pos, BlockState state) {
+        byte[] t = TABLE;
+        if (t == null) {
+            rebuild();
+            t = TABLE;
+        }
+
+        int id = Block.getRawIdFromState(state);
+        int f = (id >= 0 && id < t.length) ? t[id] : DYNAMIC;
+        if ((f & DYNAMIC) == 0) return f;
+
+        return DYNAMIC | classify(state.getCollisionShape(world, pos), !state.getFluidState().isEmpty());
+    }
+
+    public static int flags(BlockView world, BlockPos pos) {
+        return flags(world, pos, world.getBlockState(pos));
+    }
+
+    private static int classifyStatic(BlockState state) {
+        try {
+            if (state.getBlock().hasDynamicBounds()) return DYNAMIC;
+            VoxelShape shape = state.getCollisionShape(EmptyBlockView.INSTANCE, BlockPos.ORIGIN);
+            return classify(shape, !state.getFluidState().isEmpty());
+        } catch (Throwable t) {
+            // Some blocks read world data for their shape; classify those per cell.
+            return DYNAMIC;
+        }
+    }
+
+    /** Standable cell from the flags of feet (y), head (y+1) and below (y-1); fluids are never standable. */
+    public static boolean standable(int feet, int head, int below) {
+        if ((feet & (FLUID | BODY_PASSABLE)) != BODY_PASSABLE) return false;
+        if ((head & (FLUID | HEAD_PASSABLE)) != HEAD_PASSABLE) return false;
+
+        // Low-profile collision in the feet cell is itself the floor.
+        if ((feet & SOLID_FLOOR) != 0) return true;
+        return (below & (FLUID | SOLID_FLOOR)) == SOLID_FLOOR;
+    }
+
+    /** Same rules as the original isBodyPassable/isHeadPassable/hasFloor/wallPenalty checks. */
+    public static int classify(VoxelShape shape, boolean fluid) {
+        int f = fluid ? FLUID : 0;
+        if (shape == null || shape.isEmpty()) {
+            return f | BODY_PASSABLE | HEAD_PASSABLE;
+        }
+
+        f |= SOLID_FLOOR | WALL_SOLID;
+
+        // Top-half blocks (e.g., upside-down stairs/top slabs) often have minY around 0.5.
+        // Those are NOT passable for the player's feet volume.
+        double minY = shape.getMin(Direction.Axis.Y);
+        double maxY = shape.getMax(Direction.Axis.Y);
+        if (minY <= 0.20 && maxY <= BODY_CLEARANCE_MIN_Y) f |= BODY_PASSABLE;
+
+        return f;
+    }
+}
@@ -0,0 +1,222 @@
+package name.atlasclient.pathing;
+
+import net.minecraft.util.math.BlockPos;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Spatial index over one walked path, for the per-tick following queries (nearest node, nearest
+ * segment with projected progress, distance to the path) without scanning the node list.
+ *
+ * Segment i joins node i and node i + 1 (block centers, X/Z only). Every segment is listed in each
+ * BUCKET x BUCKET column its bounding box touches (a uniform grid, stored CSR-style: one offsets entry
+ * per used bucket, one flat id array). A query within radius r visits the buckets that disc overlaps,
+ * so its cost depends on r and local path density, not on path length. Queries take an index range
+ * [lo, hi] of nodes, so callers keep their windows (e.g. "only ahead of the current node").
+ *
+ * Built once per path (O(n)); immutable apart from the result fields of the last query. Queries do
+ * not allocate. Not thread-safe: one thread queries (the client thread).
+ */
+public final class PathIndex {
+
+    private static final int BUCKET_SHIFT = 2; // 4 x 4 block columns
+
+    private final List<BlockPos> path;
+    private final int n;
+    private final double[] xs, zs;
+
+    private final LongIntHashMap bucketSlot;
+    private final int[] offsets; // slot -> first entry in ids; offsets[slot + 1] is its end
+    private final int[] ids;
+
+    private final LongIntHashMap nodeIndex;
+
+    // Results of the last nearestSegment() query.
+    private int segment = -1;
+    private double t = 0.0;
+    private double distance = Double.MAX_VALUE;
+
+    public PathIndex(List<BlockPos> path) {
+        this.path = path;
+        this.n = path.size();
+        this.xs = new double[n];
+        this.zs = new double[n];
+        this.nodeIndex = new LongIntHashMap(Math.max(16, n), -1);
+
+        for (int i = 0; i < n; i++) {
+            BlockPos p = path.get(i);
+            xs[i] = p.getX() + 0.5;
+            zs[i] = p.getZ() + 0.5;
+            long key = p.asLong();
+            if (!nodeIndex.containsKey(key)) nodeIndex.put(key, i);
+        }
+
+        // Pass 1: count entries per bucket; pass 2: fill. A lone node is indexed as a zero-length segment.
+        int segments = Math.max(1, n - 1);
+        bucketSlot = new LongIntHashMap(Math.max(16, segments), -1);
+        int[] counts = new int[16];
+        int slots = 0;
+        int total = 0;
+        for (int s = 0; s < segments && n > 0; s++) {
+            int a = s, b = Math.min(s + 1, n - 1);
+            int bx0 = bucket(Math.min(xs[a], xs[b])), bx1 = bucket(Math.max(xs[a], xs[b]));
+            int bz0 = bucket(Math.min(zs[a], zs[b])), bz1 = bucket(Math.max(zs[a], zs[b]));
+            for (int bx = bx0; bx <= bx1; bx++) {
+                for (int bz = bz0; bz <= bz1; bz++) {
+                    long key = bucketKey(bx, bz);
+                    int slot = bucketSlot.get(key);
+                    if (slot < 0) {
+                        slot = slots++;
+                        bucketSlot.put(key, slot);
+                        if (slot == counts.length) counts = Arrays.copyOf(counts, slot << 1);
+                    }
+                    counts[slot]++;
+                    total++;
+                }
+            }
+        }
+
+        offsets = new int[slots + 1];
+        for (int i = 0; i < slots; i++) offsets[i + 1] = offsets[i] + counts[i];
+        ids = new int[total];
+        int[] fill = Arrays.copyOf(offsets, slots);
+        for (int s = 0; s < segments && n > 0; s++) {
+            int a = s, b = Math.min(s + 1, n - 1);
+            int bx0 = bucket(Math.min(xs[a], xs[b])), bx1 = bucket(Math.max(xs[a], xs[b]));
+            int bz0 = bucket(Math.min(zs[a], zs[b])), bz1 = bucket(Math.max(zs[a], zs[b]));
+            for (int bx = bx0; bx <= bx1; bx++) {
+                for (int bz = bz0; bz <= bz1; bz++) {
+                    ids[fill[bucketSlot.get(bucketKey(bx, bz))]++] = s;
+                }
+            }
+        }
+    }
+
+    /** The list this index was built over (compare by identity to detect a replaced path). */
+    public List<BlockPos> path() {
+        return path;
+    }
+
+    /** Index of node pos in the path (its first occurrence), or -1. */
+    public int indexOf(BlockPos pos) {
+        return nodeIndex.get(pos.asLong());
+    }
+
+    /**
+     * Node in [lo, hi] closest to (x, z) in X/Z, among those within maxDist; -1 if none is. Ties go to
+     * the lowest index.
+     */
+    public int nearestNode(double x, double z, int lo, int hi, double maxDist) {
+        if (n == 0) return -1;
+        lo = Math.max(0, lo);
+        hi = Math.min(n - 1, hi);
+
+        int best = -1;
+        double bestD2 = maxDist * maxDist;
+        int bx0 = bucket(x - maxDist), bx1 = bucket(x + maxDist);
+        int bz0 = bucket(z - maxDist), bz1 = bucket(z + maxDist);
+        for (int bx = bx0; bx <= bx1; bx++) {
+            for (int bz = bz0; bz <= bz1; bz++) {
+                int slot = bucketSlot.get(bucketKey(bx, bz));
+                if (slot < 0) continue;
+                for (int e = offsets[slot]; e < offsets[slot + 1]; e++) {
+                    int s = ids[e];
+                    // Both endpoints of each listed segment; every node is an endpoint of one.
+                    for (int i = s; i <= Math.min(s + 1, n - 1); i++) {
+                        if (i < lo || i > hi) continue;
+                        double dx = xs[i] - x, dz = zs[i] - z;
+                        double d2 = dx * dx + dz * dz;
+                        if (d2 < bestD2 || (d2 == bestD2 && best >= 0 && i < best)) {
+                            bestD2 = d2;
+                            best = i;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Closest point on the segments between nodes lo and hi to (x, z), searched within maxDist.
+     * Returns whether one was found; segment(), t() (progress 0..1 along it) and distance() describe it.
+     */
+    public boolean nearestSegment(double x, double z, int lo, int hi, double maxDist) {
+        segment = -1;
+        t = 0.0;
+        distance = Double.MAX_VALUE;
+        if (n == 0) return false;
+        lo = Math.max(0, lo);
+        hi = Math.min(n - 1, hi);
+        if (lo > hi) return false;
+
+        if (lo == hi) {
+            // Single node: no segment to project on.
+            double dx = xs[lo] - x, dz = zs[lo] - z;
+            double d = Math.sqrt(dx * dx + dz * dz);
+            if (d > maxDist) return false;
+            segment = Math.min(lo, Math.max(0, n - 2));
+            t = (lo > segment) ? 1.0 : 0.0;
+            distance = d;
+            return true;
+        }
+
+        double best = maxDist;
+        int bx0 = bucket(x - maxDist), bx1 = bucket(x + maxDist);
+        int bz0 = bucket(z - maxDist), bz1 = bucket(z + maxDist);
+        for (int bx = bx0; bx <= bx1; bx++) {
+            for (int bz = bz0; bz <= bz1; bz++) {
+                int slot = bucketSlot.get(bucketKey(bx, bz));
+                if (slot < 0) continue;
+                for (int e = offsets[slot]; e < offsets[slot + 1]; e++) {
+                    int s = ids[e];
+                    if (s < lo || s >= hi) continue;
+                    int a = s, b = s + 1;
+
+                    double dx = xs[b] - xs[a], dz = zs[b] - zs[a];
+                    double len2 = dx * dx + dz * dz;
+                    double u = 0.0;
+                    if (len2 > 1e-9) {
+                        u = ((x - xs[a]) * dx + (z - zs[a]) * dz) / len2;
+                        u = (u < 0.0) ? 0.0 : (u > 1.0) ? 1.0 : u;
+                    }
+                    double cx = xs[a] + dx * u - x, cz = zs[a] + dz * u - z;
+                    double d = Math.sqrt(cx * cx + cz * cz);
+                    if (d < best || (d == best && segment >= 0 && s < segment)) {
+                        best = d;
+                        segment = s;
+                        t = u;
+                        distance = d;
+                    }
+                }
+            }
+        }
+        return segment >= 0;
+    }
+
+    /** Distance from (x, z) to the path between nodes lo and hi, or Double.MAX_VALUE if beyond maxDist. */
+    public double distance(double x, double z, int lo, int hi, double maxDist) {
+        return nearestSegment(x, z, lo, hi, maxDist) ? distance : Double.MAX_VALUE;
+    }
+
+    public int segment() {
+        return segment;
+    }
+
+    public double t() {
+        return t;
+    }
+
+    public double distance() {
+        return distance;
+    }
+
+    private static int bucket(double v) {
+        return ((int) Math.floor(v)) >> BUCKET_SHIFT;
+    }
+
+    private static long bucketKey(int bx, int bz) {
+        return ((long) bx << 32) | (bz & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,153 @@
+package name.atlasclient.pathing;
+
+import name.atlasclient.render.WorldOverlay;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Path/checkpoint/goal highlights, kept in the shared "pathfind" WorldOverlay layer. Only the active
+ * instance syncs, once per tick: the whole path (the block under each air node, checkpoint boxes, the
+ * L-shaped checkpoint polylines) is resubmitted only when the path, final target or world changes;
+ * otherwise a tick touches at most the two boxes whose node became/stopped being the target and the
+ * two goal boxes (no-ops while unchanged). Culling and drawing are WorldOverlay's.
+ *
+ * Colors, the render offset and the checkpoint polyline come from the owner (PathfindScript), so the
+ * highlights keep matching its own drawing. Client thread only.
+ */
+public final class PathOverlay {
+    // Id ranges in the layer: node i is id i.
+    private static final long CHECKPOINT_IDS = 1L << 32;
+    private static final long LINE_IDS = 2L << 32;
+    private static final long FINAL_GOAL_ID = 3L << 32;
+    private static final long SEGMENT_GOAL_ID = FINAL_GOAL_ID + 1;
+
+    private static final WorldOverlay.Layer LAYER = WorldOverlay.layer("pathfind");
+    private static PathOverlay owner = null; // instance whose shapes the layer holds
+
+    /** Polyline drawn from checkpoint a to b (both already moved by renderPos). */
+    public interface SegmentPoints {
+        List<Vec3d> points(World world, BlockPos a, BlockPos b);
+    }
+
+    private final int maxNodes;
+    private final double boxExpand;
+    private final float nodeR, nodeG, nodeB, nodeAlpha, targetAlpha;
+    private final float markR, markG, markB, markAlpha;
+    private final float lineR, lineG, lineB, lineA;
+    private final UnaryOperator<BlockPos> renderPos;
+    private final SegmentPoints segmentPoints;
+
+    private List<BlockPos> path = null; // identity: replaced on every new path
+    // Copy of the checkpoints as drawn: the owner clears and refills its list in place (navigateTo and
+    // cancelNavigation clear it without a new path), so it is compared by content. Only a few entries.
+    private List<BlockPos> checkpoints = Collections.emptyList();
+    private BlockPos finalTarget = null;
+    private World world = null;
+
+    private BlockPos[] cells = new BlockPos[0];
+    private int shownIndex = -1;
+
+    /**
+     * Node boxes use node rgb with nodeAlpha (targetAlpha for the current node); checkpoint and goal boxes
+     * use mark rgba; checkpoint polylines use line rgba. At most maxNodes path nodes are drawn. visible
+     * gates the whole layer (checked every frame).
+     */
+    public PathOverlay(BooleanSupplier visible, int maxNodes, double boxExpand,
+                       float nodeR, float nodeG, float nodeB, float nodeAlpha, float targetAlpha,
+                       float markR, float markG, float markB, float markAlpha,
+                       float lineR, float lineG, float lineB, float lineA,
+                       UnaryOperator<BlockPos> renderPos, SegmentPoints segmentPoints) {
+        LAYER.setVisibleWhen(visible);
+        this.maxNodes = maxNodes;
+        this.boxExpand = boxExpand;
+        this.nodeR = nodeR;
+        this.nodeG = nodeG;
+        this.nodeB = nodeB;
+        this.nodeAlpha = nodeAlpha;
+        this.targetAlpha = targetAlpha;
+        this.markR = markR;
+        this.markG = markG;
+        this.markB = markB;
+        this.markAlpha = markAlpha;
+        this.lineR = lineR;
+        this.lineG = lineG;
+        this.lineB = lineB;
+        this.lineA = lineA;
+        this.renderPos = renderPos;
+        this.segmentPoints = segmentPoints;
+    }
+
+    public void sync(List<BlockPos> p, List<BlockPos> routeCheckpoints, BlockPos finalTargetBlock,
+                     BlockPos segmentGoal, int pathNodeIndex, World w) {
+        if (owner != this || p != path || !checkpoints.equals(routeCheckpoints)
+                || !Objects.equals(finalTargetBlock, finalTarget) || w != world) {
+            owner = this;
+            path = p;
+            checkpoints = new ArrayList<>(routeCheckpoints);
+            finalTarget = finalTargetBlock;
+            world = w;
+
+            LAYER.clear();
+            submitNodes(p, w);
+            submitCheckpoints(routeCheckpoints, finalTarget, w);
+        }
+
+        // Current/next node as "target"
+        int idx = (cells.length > 0) ? MathHelper.clamp(pathNodeIndex, 0, cells.length - 1) : -1;
+        if (idx != shownIndex) {
+            if (shownIndex >= 0) LAYER.box(shownIndex, cells[shownIndex], boxExpand, nodeR, nodeG, nodeB, nodeAlpha);
+            if (idx >= 0) LAYER.box(idx, cells[idx], boxExpand, nodeR, nodeG, nodeB, targetAlpha);
+            shownIndex = idx;
+        }
+
+        syncGoal(FINAL_GOAL_ID, finalTargetBlock);
+        syncGoal(SEGMENT_GOAL_ID, segmentGoal);
+    }
+
+    private void submitNodes(List<BlockPos> p, World w) {
+        int nodes = Math.min(p.size(), maxNodes);
+        cells = new BlockPos[nodes];
+        shownIndex = -1;
+        for (int i = 0; i < nodes; i++) {
+            // Path nodes are typically "air" positions where the player stands.
+            // For visuals (to match HubForagingScript block highlights), draw the solid block under air nodes.
+            BlockPos b = p.get(i);
+            if (w != null && w.getBlockState(b).isAir() && !w.getBlockState(b.down()).isAir()) b = b.down();
+            cells[i] = b;
+            LAYER.box(i, b, boxExpand, nodeR, nodeG, nodeB, nodeAlpha);
+        }
+    }
+
+    private void submitCheckpoints(List<BlockPos> cps, BlockPos finalTarget, World w) {
+        long line = LINE_IDS;
+        for (int i = 0; i < cps.size(); i++) {
+            // Checkpoints: block highlights (boxes match HubForagingScript oak log highlight) + polylines.
+            BlockPos cp = renderPos.apply(cps.get(i));
+            LAYER.box(CHECKPOINT_IDS + i, cp, boxExpand, markR, markG, markB, markAlpha);
+
+            // Single line from this checkpoint to the next checkpoint (or final goal).
+            BlockPos next = (i + 1 < cps.size()) ? cps.get(i + 1) : finalTarget;
+            if (next == null) continue;
+
+            List<Vec3d> pts = segmentPoints.points(w, cp, renderPos.apply(next));
+            for (int k = 0; k + 1 < pts.size(); k++) {
+                Vec3d a = pts.get(k), b = pts.get(k + 1);
+                LAYER.line(line++, a.x, a.y, a.z, b.x, b.y, b.z, lineR, lineG, lineB, lineA);
+            }
+        }
+    }
+
+    private void syncGoal(long id, BlockPos goal) {
+        if (goal == null) LAYER.remove(id);
+        else LAYER.box(id, renderPos.apply(goal), boxExpand, markR, markG, markB, markAlpha);
+    }
+}
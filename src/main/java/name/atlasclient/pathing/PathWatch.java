@@ -0,0 +1,122 @@
+package name.atlasclient.pathing;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.List;
+
+/**
+ * Watches the cells a planned path depends on and flags it dirty when one of them changes.
+ *
+ * For every node: the floor (y - 1), body (y) and head (y + 1). Diagonal steps also watch the body/head
+ * of the two side cells (corner cutting), and drops watch the fall column down to the landing cell.
+ * Chunk reloads/unloads under the path dirty it as well.
+ *
+ * Plans are made on snapshots, so a change can land between capture and watch(). A small ring of
+ * recent changes (changed cells and changed chunk columns, one entry each) is kept; watch(path, sinceSeq)
+ * replays the ones newer than the capture and marks the path dirty if any of them hit it (or if the
+ * ring overflowed meanwhile). A chunk column only counts if the path crosses it.
+ *
+ * Client thread only (block change events and the script tick both run there).
+ */
+public final class PathWatch {
+
+    private static final int RECENT_CAPACITY = 1024; // power of two; chunk bursts on load share it with blocks
+
+    private final LongIntHashMap cells = new LongIntHashMap(1 << 10, -1);
+    private final LongIntHashMap chunks = new LongIntHashMap(64, -1);
+
+    private final long[] recent = new long[RECENT_CAPACITY];         // packed cell, or chunk key
+    private final boolean[] recentChunk = new boolean[RECENT_CAPACITY]; // which of the two
+    private long changeSeq = 0L;
+
+    private boolean watching = false;
+    private boolean dirty = false;
+
+    /** Sequence number of the latest recorded change; capture it with the snapshot a plan is made on. */
+    public long changeSeq() {
+        return changeSeq;
+    }
+
+    /** Starts watching path (replacing the previous one); changes after sinceSeq already count. */
+    public void watch(List<BlockPos> path, long sinceSeq) {
+        cells.clear();
+        chunks.clear();
+        dirty = false;
+        watching = path != null && !path.isEmpty();
+        if (!watching) return;
+
+        BlockPos prev = null;
+        for (BlockPos p : path) {
+            int x = p.getX(), y = p.getY(), z = p.getZ();
+            add(x, y - 1, z);
+            add(x, y, z);
+            add(x, y + 1, z);
+
+            if (prev != null) {
+                int dx = x - prev.getX(), dz = z - prev.getZ();
+                if (dx != 0 && dz != 0) {
+                    add(prev.getX() + dx, prev.getY(), prev.getZ());
+                    add(prev.getX() + dx, prev.getY() + 1, prev.getZ());
+                    add(prev.getX(), prev.getY(), prev.getZ() + dz);
+                    add(prev.getX(), prev.getY() + 1, prev.getZ() + dz);
+                }
+                // Fall column of a drop (and the jump headroom of a step-up) above the landing cell.
+                for (int yy = y + 2; yy <= prev.getY() + 1; yy++) add(x, yy, z);
+                if (y > prev.getY()) add(prev.getX(), prev.getY() + 2, prev.getZ());
+            }
+            prev = p;
+        }
+
+        if (changeSeq - sinceSeq > RECENT_CAPACITY) {
+            dirty = true;
+            return;
+        }
+        for (long seq = sinceSeq + 1; seq <= changeSeq; seq++) {
+            int i = (int) (seq & (RECENT_CAPACITY - 1));
+            if (recentChunk[i] ? chunks.containsKey(recent[i]) : cells.containsKey(recent[i])) {
+                dirty = true;
+                return;
+            }
+        }
+    }
+
+    public void clear() {
+        cells.clear();
+        chunks.clear();
+        watching = false;
+        dirty = false;
+    }
+
+    public void onBlockChanged(int x, int y, int z) {
+        long key = BlockPos.asLong(x, y, z);
+        record(key, false);
+        if (watching && cells.containsKey(key)) dirty = true;
+    }
+
+    public void onChunkChanged(int chunkX, int chunkZ) {
+        // Whole column resent/unloaded: one entry, matched against the columns the path crosses.
+        long key = ChunkPos.toLong(chunkX, chunkZ);
+        record(key, true);
+        if (watching && chunks.containsKey(key)) dirty = true;
+    }
+
+    /** True once per invalidation of the watched path. */
+    public boolean consumeDirty() {
+        if (!dirty) return false;
+        dirty = false;
+        return true;
+    }
+
+    private void record(long key, boolean chunk) {
+        int i = (int) (++changeSeq & (RECENT_CAPACITY - 1));
+        recent[i] = key;
+        recentChunk[i] = chunk;
+    }
+
+    // The column of every watched cell counts: a diagonal's side cell can sit in a chunk no node is in.
+    private void add(int x, int y, int z) {
+        cells.put(BlockPos.asLong(x, y, z), 0);
+        chunks.put(ChunkPos.toLong(x >> 4, z >> 4), 0);
+    }
+}
@@ -0,0 +1,411 @@
+package name.atlasclient.pathing;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Abstract route over 16^3 regions (one per chunk section) for long trips.
+ *
+ * A region's transitions are the AStar edges leaving it, thinned to one every ENTRANCE_SPACING
+ * cells per border group. Intra-region costs are local Dijkstra runs bounded to the region,
+ * memoized per source cell. The abstract search is A* over those cells, so every abstract edge
+ * is something the local planner can actually walk; PathfindScript uses the route's cells as
+ * macro waypoints instead of a straight-line projection.
+ *
+ * Regions are cached across routes and revalidated against the NavCache versions of the 3x3x3
+ * sections around them (block packets and chunk reloads bump those), so nothing here needs its
+ * own invalidation hooks. Transitions and cost rows also depend on the avoided step-up edges, so
+ * a route with a different avoided set than the cache was built with drops every region. Past
+ * MAX_CACHED_REGIONS a clock sweep evicts one region not used since the hand last passed it.
+ * Owned by the planner thread.
+ */
+public final class RegionRouter {
+
+    private static final boolean ALLOW_DIAGONALS = AStar.ALLOW_DIAGONALS;
+    private static final boolean ALLOW_STEP_UP = AStar.ALLOW_STEP_UP;
+    private static final boolean ALLOW_DROP_DOWN = AStar.ALLOW_DROP_DOWN;
+    private static final int MAX_DROP_DOWN = AStar.MAX_DROP_DOWN;
+
+    private static final float INF = Float.POSITIVE_INFINITY;
+    private static final int ENTRANCE_SPACING = 4;
+    private static final int MAX_ABSTRACT_EXPANSIONS = 20_000;
+    private static final int MAX_CACHED_REGIONS = 16_384;
+
+    private static final class Region {
+        final long[] versions;  // NavCache versions of the 3x3x3 sections it was built from; null = not cacheable
+        final long[] from;      // transition source cells (inside the region)
+        final long[] to;        // transition target cells (outside it)
+        final float[] cost;     // AStar edge cost incl. target wall penalty
+        // Memoized local costs: cell -> row of costs, one entry per from[i] (INF = unreachable)
+        final LongIntHashMap costRows = new LongIntHashMap(16, -1);
+        float[] costs = new float[0];
+        int rowCount;
+
+        Region(long[] versions, long[] from, long[] to, float[] cost) {
+            this.versions = versions;
+            this.from = from;
+            this.to = to;
+            this.cost = cost;
+        }
+    }
+
+    // Region cache: section key -> slot; slotUsed is the clock sweep's reference bit.
+    private final LongIntHashMap regionSlots = new LongIntHashMap(1 << 10, -1);
+    private final Region[] slotRegion = new Region[MAX_CACHED_REGIONS];
+    private final long[] slotKey = new long[MAX_CACHED_REGIONS];
+    private final boolean[] slotUsed = new boolean[MAX_CACHED_REGIONS];
+    private int slotCount;
+    private int clockHand;
+    private Set<Long> cachedAvoided = Collections.emptySet(); // avoided step-ups every cached region was built with
+    private final AStar.Search scratch = new AStar.Search();
+
+    // Local (intra-region) Dijkstra storage
+    private final LongIntHashMap localIndex = new LongIntHashMap(1 << 12, -1);
+    private final IndexedMinHeap localOpen = new IndexedMinHeap(1 << 10);
+    private long[] localCell = new long[1 << 10];
+    private float[] localDist = new float[1 << 10];
+    private int localCount;
+
+    // Abstract search storage
+    private final LongIntHashMap index = new LongIntHashMap(1 << 12, -1);
+    private final IndexedMinHeap open = new IndexedMinHeap(1 << 10);
+    private long[] cell = new long[1 << 10];
+    private float[] g = new float[1 << 10];
+    private int[] parent = new int[1 << 10];
+    private boolean[] closed = new boolean[1 << 10];
+    private int count;
+
+    private BlockSnapshot snap;
+    private Set<Long> avoided = Collections.emptySet();
+
+    int expansions;
+
+    /**
+     * Abstract route from start toward goal as a list of cells (start first). If the goal is not
+     * reachable inside the snapshot, the route ends at the explored cell closest to it.
+     */
+    public List<BlockPos> route(BlockSnapshot snap, BlockPos start, BlockPos goal, Set<Long> avoidedStepUps) {
+        this.snap = snap;
+        this.avoided = (avoidedStepUps != null) ? avoidedStepUps : Collections.emptySet();
+        expansions = 0;
+        if (!avoided.equals(cachedAvoided)) {
+            clearRegions();
+            cachedAvoided = new HashSet<>(avoided);
+        }
+
+        if (!snap.isStandable(start.getX(), start.getY(), start.getZ())) return Collections.emptyList();
+
+        final long goalKey = goal.asLong();
+        final long goalRegion = regionOf(goalKey);
+        final boolean goalStandable = snap.isStandable(goal.getX(), goal.getY(), goal.getZ());
+        final int gx = goal.getX(), gz = goal.getZ();
+
+        index.clear();
+        open.clear();
+        count = 0;
+
+        int sid = node(start.asLong(), 0f, -1);
+        open.push(sid, heuristic(start.getX(), start.getZ(), gx, gz));
+
+        int best = sid;
+        double bestH = heuristic(start.getX(), start.getZ(), gx, gz);
+
+        while (!open.isEmpty() && expansions < MAX_ABSTRACT_EXPANSIONS) {
+            if ((expansions & 255) == 0 && Thread.currentThread().isInterrupted()) return Collections.emptyList();
+
+            int u = open.pop();
+            long c = cell[u];
+            if (c == goalKey) return reconstruct(u);
+
+            closed[u] = true;
+            expansions++;
+
+            int cx = BlockPos.unpackLongX(c), cz = BlockPos.unpackLongZ(c);
+            double h = heuristic(cx, cz, gx, gz);
+            if (h < bestH) {
+                bestH = h;
+                best = u;
+            }
+
+            long rk = regionOf(c);
+            Region r = region(rk);
+            float gu = g[u];
+
+            // Intra-region: to every transition source reachable inside the region.
+            int row = costsFrom(r, rk, c) * r.from.length;
+            for (int i = 0; i < r.from.length; i++) {
+                float ci = r.costs[row + i];
+                if (ci == INF || r.from[i] == c) continue;
+                relax(r.from[i], gu + ci, u, gx, gz);
+            }
+
+            // Inter-region: the transitions leaving from this very cell.
+            for (int i = 0; i < r.from.length; i++) {
+                if (r.from[i] == c) relax(r.to[i], gu + r.cost[i], u, gx, gz);
+            }
+
+            if (goalStandable && rk == goalRegion) {
+                localDijkstra(rk, c);
+                int gi = localIndex.get(goalKey);
+                if (gi >= 0) relax(goalKey, gu + localDist[gi], u, gx, gz);
+            }
+        }
+
+        return (best == sid) ? Collections.emptyList() : reconstruct(best);
+    }
+
+    private void relax(long k, float ng, int from, int gx, int gz) {
+        int id = index.get(k);
+        if (id >= 0) {
+            if (closed[id] || ng >= g[id]) return;
+            g[id] = ng;
+            parent[id] = from;
+        } else {
+            id = node(k, ng, from);
+        }
+        open.push(id, ng + heuristic(BlockPos.unpackLongX(k), BlockPos.unpackLongZ(k), gx, gz));
+    }
+
+    private List<BlockPos> reconstruct(int id) {
+        ArrayList<BlockPos> out = new ArrayList<>();
+        for (int c = id; c >= 0; c = parent[c]) out.add(BlockPos.fromLong(cell[c]));
+        Collections.reverse(out);
+        return out;
+    }
+
+    private int node(long k, float gScore, int parentId) {
+        if (count == cell.length) {
+            int cap = count << 1;
+            cell = Arrays.copyOf(cell, cap);
+            g = Arrays.copyOf(g, cap);
+            parent = Arrays.copyOf(parent, cap);
+            closed = Arrays.copyOf(closed, cap);
+        }
+        int id = count++;
+        cell[id] = k;
+        g[id] = gScore;
+        parent[id] = parentId;
+        closed[id] = false;
+        index.put(k, id);
+        return id;
+    }
+
+    // ---- regions ----
+
+    private Region region(long rk) {
+        long[] versions = neighborhoodVersions(rk);
+        int slot = regionSlots.get(rk);
+        if (slot >= 0) {
+            Region r = slotRegion[slot];
+            if (r.versions != null && Arrays.equals(r.versions, versions)) {
+                slotUsed[slot] = true;
+                return r;
+            }
+        }
+
+        Region r = buildRegion(rk, versions);
+        if (r.versions == null) {
+            if (slot >= 0) evict(slot);
+            return r;
+        }
+        if (slot < 0) {
+            slot = freeSlot();
+            slotKey[slot] = rk;
+            regionSlots.put(rk, slot);
+        }
+        slotRegion[slot] = r;
+        slotUsed[slot] = true;
+        return r;
+    }
+
+    /** An unused slot: a fresh one while the cache has room, else the first the clock hand finds unreferenced. */
+    private int freeSlot() {
+        if (slotCount < MAX_CACHED_REGIONS) return slotCount++;
+        while (true) {
+            int slot = clockHand;
+            clockHand = (clockHand + 1) % MAX_CACHED_REGIONS;
+            if (slotRegion[slot] == null) return slot;
+            if (slotUsed[slot]) {
+                slotUsed[slot] = false;
+                continue;
+            }
+            evict(slot);
+            return slot;
+        }
+    }
+
+    private void clearRegions() {
+        regionSlots.clear();
+        Arrays.fill(slotRegion, 0, slotCount, null);
+        Arrays.fill(slotUsed, 0, slotCount, false);
+        slotCount = 0;
+        clockHand = 0;
+    }
+
+    private void evict(int slot) {
+        regionSlots.remove(slotKey[slot]);
+        slotRegion[slot] = null;
+        slotUsed[slot] = false;
+    }
+
+    /** Versions of the 27 sections a region's edges can read; null if any was not captured. */
+    private long[] neighborhoodVersions(long rk) {
+        int sx = ChunkSectionPos.unpackX(rk), sy = ChunkSectionPos.unpackY(rk), sz = ChunkSectionPos.unpackZ(rk);
+        long[] v = new long[27];
+        int i = 0;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    long ver = snap.navVersion(sx + dx, sy + dy, sz + dz);
+                    if (ver < 0) return null;
+                    v[i++] = ver;
+                }
+            }
+        }
+        return v;
+    }
+
+    private Region buildRegion(long rk, long[] versions) {
+        int bx = ChunkSectionPos.unpackX(rk) << 4;
+        int by = ChunkSectionPos.unpackY(rk) << 4;
+        int bz = ChunkSectionPos.unpackZ(rk) << 4;
+
+        // Transitions grouped by (target region, dx, dy, dz of the crossing); thinned per group.
+        HashMap<Long, ArrayList<long[]>> groups = new HashMap<>();
+
+        for (int ly = 0; ly < 16; ly++) {
+            boolean yEdge = ly < MAX_DROP_DOWN || ly == 15; // drops and step-ups can leave through the bottom/top
+            for (int lz = 0; lz < 16; lz++) {
+                for (int lx = 0; lx < 16; lx++) {
+                    boolean xzEdge = lx == 0 || lx == 15 || lz == 0 || lz == 15;
+                    if (!xzEdge && !yEdge) continue;
+
+                    int x = bx + lx, y = by + ly, z = bz + lz;
+                    if (!snap.isStandable(x, y, z)) continue;
+
+                    AStar.neighbors(snap, scratch, x, y, z, ALLOW_DIAGONALS, ALLOW_STEP_UP, ALLOW_DROP_DOWN, MAX_DROP_DOWN, avoided);
+                    for (int k = 0; k < scratch.nbCount; k++) {
+                        long to = scratch.nbCell[k];
+                        long tr = regionOf(to);
+                        if (tr == rk) continue;
+
+                        int tx = BlockPos.unpackLongX(to), ty = BlockPos.unpackLongY(to), tz = BlockPos.unpackLongZ(to);
+                        float c = (float) (scratch.nbCost[k] + AStar.wallPenalty(snap, tx, ty, tz));
+                        long groupKey = tr * 31L * 31L * 31L + ((tx - x + 1) * 31L + (ty - y + 8)) * 31L + (tz - z + 1);
+                        groups.computeIfAbsent(groupKey, gk -> new ArrayList<>()).add(new long[] { BlockPos.asLong(x, y, z), to, Float.floatToIntBits(c) });
+                    }
+                }
+            }
+        }
+
+        ArrayList<long[]> kept = new ArrayList<>();
+        for (ArrayList<long[]> group : groups.values()) {
+            int keptFrom = kept.size();
+            for (long[] t : group) {
+                int x = BlockPos.unpackLongX(t[0]), z = BlockPos.unpackLongZ(t[0]);
+                boolean near = false;
+                for (int i = keptFrom; i < kept.size(); i++) {
+                    long o = kept.get(i)[0];
+                    if (Math.max(Math.abs(BlockPos.unpackLongX(o) - x), Math.abs(BlockPos.unpackLongZ(o) - z)) < ENTRANCE_SPACING) {
+                        near = true;
+                        break;
+                    }
+                }
+                if (!near) kept.add(t);
+            }
+        }
+
+        long[] from = new long[kept.size()];
+        long[] to = new long[kept.size()];
+        float[] cost = new float[kept.size()];
+        for (int i = 0; i < kept.size(); i++) {
+            long[] t = kept.get(i);
+            from[i] = t[0];
+            to[i] = t[1];
+            cost[i] = Float.intBitsToFloat((int) t[2]);
+        }
+        return new Region(versions, from, to, cost);
+    }
+
+    /** Row of r.costs holding the local cost from c to each of r's transition sources. */
+    private int costsFrom(Region r, long rk, long c) {
+        int row = r.costRows.get(c);
+        if (row >= 0) return row;
+
+        localDijkstra(rk, c);
+        int n = r.from.length;
+        row = r.rowCount++;
+        if ((row + 1) * n > r.costs.length) r.costs = Arrays.copyOf(r.costs, Math.max(n * 4, r.costs.length << 1));
+        for (int i = 0; i < n; i++) {
+            int id = localIndex.get(r.from[i]);
+            r.costs[row * n + i] = (id < 0) ? INF : localDist[id];
+        }
+        r.costRows.put(c, row);
+        return row;
+    }
+
+    /** Dijkstra from src over AStar edges that stay inside region rk; results in localIndex/localDist. */
+    private void localDijkstra(long rk, long src) {
+        localIndex.clear();
+        localOpen.clear();
+        localCount = 0;
+
+        int s = localNode(src, 0f);
+        localOpen.push(s, 0.0);
+
+        while (!localOpen.isEmpty()) {
+            int u = localOpen.pop();
+            long c = localCell[u];
+            float du = localDist[u];
+
+            AStar.neighbors(snap, scratch, BlockPos.unpackLongX(c), BlockPos.unpackLongY(c), BlockPos.unpackLongZ(c),
+                    ALLOW_DIAGONALS, ALLOW_STEP_UP, ALLOW_DROP_DOWN, MAX_DROP_DOWN, avoided);
+            for (int k = 0; k < scratch.nbCount; k++) {
+                long nk = scratch.nbCell[k];
+                if (regionOf(nk) != rk) continue;
+
+                float nd = du + (float) (scratch.nbCost[k] + AStar.wallPenalty(snap,
+                        BlockPos.unpackLongX(nk), BlockPos.unpackLongY(nk), BlockPos.unpackLongZ(nk)));
+                int id = localIndex.get(nk);
+                if (id < 0) {
+                    id = localNode(nk, nd);
+                    localOpen.push(id, nd);
+                } else if (nd < localDist[id]) {
+                    localDist[id] = nd;
+                    localOpen.push(id, nd);
+                }
+            }
+        }
+    }
+
+    private int localNode(long k, float d) {
+        if (localCount == localCell.length) {
+            localCell = Arrays.copyOf(localCell, localCount << 1);
+            localDist = Arrays.copyOf(localDist, localCount << 1);
+        }
+        int id = localCount++;
+        localCell[id] = k;
+        localDist[id] = d;
+        localIndex.put(k, id);
+        return id;
+    }
+
+    private static long regionOf(long cellKey) {
+        return ChunkSectionPos.asLong(BlockPos.unpackLongX(cellKey) >> 4, BlockPos.unpackLongY(cellKey) >> 4, BlockPos.unpackLongZ(cellKey) >> 4);
+    }
+
+    // Octile XZ; vertical moves always come with a horizontal one.
+    private static double heuristic(int ax, int az, int bx, int bz) {
+        int dx = Math.abs(ax - bx);
+        int dz = Math.abs(az - bz);
+        return Math.max(dx, dz) + 0.4142 * Math.min(dx, dz);
+    }
+}
@@ -0,0 +1,157 @@
+package name.atlasclient.pathing;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A path pulled taut into straight segments, built once per plan (on the planner thread for worker
+ * plans). Segment k runs from path node nodes[k] to nodes[k + 1]; every sample on it is standable for
+ * the player's hitbox and within CORRIDOR_MAX_DIST_TO_PATH of the raw edges it skips, the same rules
+ * the LOS search checks with NavRay sweeps every few ticks.
+ *
+ * Each segment also gets a corridor half-width: the widest band (up to CORRIDOR_MAX_DIST_TO_PATH)
+ * around the line that is equally safe. While the player stays inside it the straight line to the
+ * segment end is clear, so target() is O(1). Segments never span a Y change; step-ups and drops stay
+ * node to node for the jump logic.
+ */
+public final class Waypoints {
+
+    // Shared with the LOS search in PathfindScript.
+    public static final int LOS_LOOKAHEAD_MAX_NODES = 18;
+    public static final double CORRIDOR_MAX_DIST_TO_PATH = 0.60;
+    public static final double CORRIDOR_SAMPLE_STEP = 0.45;
+    private static final double WAYPOINT_WIDTH_STEP = 0.15;
+
+    private final List<BlockPos> path;
+    public final PathIndex index;    // built here on the planner thread; the client takes it over
+    private final int[] nodes;       // path index of every waypoint: 0, ..., path.size() - 1
+    private final int[] segmentOf;   // path index -> segment it starts or lies inside
+    private final double[] halfWidth;
+
+    private Waypoints(List<BlockPos> path, PathIndex index, int[] nodes, int count, int[] segmentOf, double[] halfWidth) {
+        this.path = path;
+        this.index = index;
+        this.nodes = Arrays.copyOf(nodes, count);
+        this.segmentOf = segmentOf;
+        this.halfWidth = halfWidth;
+    }
+
+    /**
+     * Pulls the first maxNodes nodes of path; anything past them is one segment with no corridor, so
+     * the follower takes the LOS search there.
+     */
+    public static Waypoints build(NavGrid grid, List<BlockPos> path, int maxNodes) {
+        PathIndex index = new PathIndex(path);
+        int n = path.size();
+        int last = Math.min(n - 1, Math.max(1, maxNodes - 1)); // last node pulled
+        int[] nodes = new int[n];
+        int count = 0;
+        int a = 0;
+        nodes[count++] = 0;
+        while (a < last) {
+            int best = a + 1;
+            int max = Math.min(last, a + LOS_LOOKAHEAD_MAX_NODES);
+            for (int j = a + 2; j <= max; j++) {
+                if (path.get(j).getY() != path.get(a).getY() || path.get(j - 1).getY() != path.get(a).getY()) break;
+                if (!isClear(grid, path, index, a, j, 0.0, true)) break;
+                best = j;
+            }
+            nodes[count++] = best;
+            a = best;
+        }
+        boolean tail = last < n - 1;
+        if (tail) nodes[count++] = n - 1;
+
+        int segments = Math.max(1, count - 1);
+        int[] segmentOf = new int[n];
+        double[] halfWidth = new double[segments];
+        for (int k = 0; k < count - 1; k++) {
+            for (int i = nodes[k]; i < nodes[k + 1]; i++) segmentOf[i] = k;
+
+            // Widest safe band; step edges (Y change) get none and are always followed by the LOS search.
+            BlockPos s = path.get(nodes[k]), e = path.get(nodes[k + 1]);
+            double w = -1.0;
+            if (s.getY() == e.getY() && !(tail && k == count - 2)) {
+                for (int step = (int) (CORRIDOR_MAX_DIST_TO_PATH / WAYPOINT_WIDTH_STEP + 1e-6); step >= 0; step--) {
+                    if (isClear(grid, path, index, nodes[k], nodes[k + 1], step * WAYPOINT_WIDTH_STEP, false)) {
+                        w = step * WAYPOINT_WIDTH_STEP;
+                        break;
+                    }
+                }
+            }
+            halfWidth[k] = w;
+        }
+        if (n > 0) segmentOf[n - 1] = segments - 1;
+
+        return new Waypoints(path, index, nodes, count, segmentOf, halfWidth);
+    }
+
+    /** Number of waypoints (segments + 1). */
+    public int size() {
+        return nodes.length;
+    }
+
+    public BlockPos waypoint(int i) {
+        return path.get(nodes[i]);
+    }
+
+    /**
+     * End of the segment the player is on, or null when path is not the one these were pulled from or
+     * the player is outside the segment's corridor (then the caller falls back to the LOS search).
+     */
+    public BlockPos target(List<BlockPos> path, int nodeIndex, double x, double y, double z) {
+        if (path != this.path || nodes.length < 2 || nodeIndex < 0 || nodeIndex >= segmentOf.length) return null;
+
+        int k = segmentOf[nodeIndex];
+        double w = halfWidth[k];
+        if (w < 0.0) return null;
+
+        BlockPos s = path.get(nodes[k]), e = path.get(nodes[k + 1]);
+        if (y < s.getY() - 0.5 || y > s.getY() + 1.25) return null;
+        if (distanceToSegmentXZ(x, z, s, e) > w + 1e-6) return null;
+        return e;
+    }
+
+    /**
+     * Player-box sweeps (NavRay, floor required) from node a to node b (centers), and with width > 0
+     * also along both lines offset by width across it. checkPath also bounds the distance to the raw
+     * edges a..b (sampled every CORRIDOR_SAMPLE_STEP; no world reads).
+     */
+    private static boolean isClear(NavGrid grid, List<BlockPos> path, PathIndex index, int a, int b,
+                                   double width, boolean checkPath) {
+        BlockPos s = path.get(a), e = path.get(b);
+        int y = s.getY();
+        double ax = s.getX() + 0.5, az = s.getZ() + 0.5;
+        double dx = e.getX() + 0.5 - ax, dz = e.getZ() + 0.5 - az;
+        double len = Math.sqrt(dx * dx + dz * dz);
+        if (len < 1e-6) return true;
+
+        if (checkPath) {
+            int samples = (int) Math.ceil(len / CORRIDOR_SAMPLE_STEP);
+            for (int i = 1; i < samples; i++) {
+                double t = (double) i / (double) samples;
+                if (!index.nearestSegment(ax + dx * t, az + dz * t, a, b, CORRIDOR_MAX_DIST_TO_PATH)) return false;
+            }
+        }
+
+        if (!NavRay.sweep(grid, ax, y, az, ax + dx, y, az + dz, true)) return false;
+        if (width == 0.0) return true;
+
+        // Boxes on the center and both offset lines overlap for width <= 2 * half-width, covering the band.
+        double ox = -dz / len * width, oz = dx / len * width;
+        return NavRay.sweep(grid, ax + ox, y, az + oz, ax + dx + ox, y, az + dz + oz, true)
+                && NavRay.sweep(grid, ax - ox, y, az - oz, ax + dx - ox, y, az + dz - oz, true);
+    }
+
+    private static double distanceToSegmentXZ(double x, double z, BlockPos s, BlockPos e) {
+        double ax = s.getX() + 0.5, az = s.getZ() + 0.5;
+        double dx = e.getX() + 0.5 - ax, dz = e.getZ() + 0.5 - az;
+        double len2 = dx * dx + dz * dz;
+        double t = (len2 < 1e-9) ? 0.0 : MathHelper.clamp(((x - ax) * dx + (z - az) * dz) / len2, 0.0, 1.0);
+        double cx = ax + dx * t - x, cz = az + dz * t - z;
+        return Math.sqrt(cx * cx + cz * cz);
+    }
+}
@@ -0,0 +1,382 @@
+package name.atlasclient.render;
+
+import name.atlasclient.pathing.LongIntHashMap;
+import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderContext;
+import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderEvents;
+import net.minecraft.client.render.Frustum;
+import net.minecraft.client.render.RenderLayer;
+import net.minecraft.client.render.VertexConsumer;
+import net.minecraft.client.render.VertexConsumerProvider;
+import net.minecraft.client.render.debug.DebugRenderer;
+import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import org.joml.Matrix4f;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Shared retained world overlay: the one WorldRenderEvents.LAST hook for every script highlight.
+ *
+ * Scripts own a named Layer and keep persistent shapes in it (filled boxes and lines, each under a
+ * caller-chosen long id), submitting from their tick only what changed. Re-submitting an identical shape
+ * is a no-op, so callers may also resubmit every tick. A changed layer is repacked once, on the next
+ * frame, into flat float arrays relative to an origin near its first shape, with world bounds for every
+ * CULL_GROUP shapes (submission order; paths submitted node by node therefore group spatially). Shapes
+ * sit in a dense array indexed through a LongIntHashMap; removing one moves the last shape into its slot,
+ * so removals are O(1) and only disturb the grouping of that one moved shape.
+ *
+ * Each frame: all boxes of all layers go to the debug filled-box layer first, then all lines to a single
+ * RenderLayer.getLines() buffer, so every layer type is fetched from the provider once per frame. Groups
+ * outside the frustum or farther than CULL_DISTANCE are skipped; per layer the matrix stack is translated
+ * once by (origin - camera) and no Box/Vec3d is allocated.
+ *
+ * A layer draws only while its visibility predicate holds (typically "owner script enabled"), so a script
+ * stopped without onDisable does not leave highlights behind.
+ *
+ * Client/render thread only (ticks and world rendering both run there).
+ */
+public final class WorldOverlay {
+
+    private static final int CULL_GROUP = 16;
+    private static final double CULL_DISTANCE = 192.0;
+
+    private static final LinkedHashMap<String, Layer> LAYERS = new LinkedHashMap<>();
+    private static boolean registered = false;
+
+    private WorldOverlay() {}
+
+    /** Registers the render hook; safe to call more than once. */
+    public static void init() {
+        if (registered) return;
+        registered = true;
+        WorldRenderEvents.LAST.register(WorldOverlay::onWorldRender);
+    }
+
+    /** The layer called name, created (visible, empty) on first use. */
+    public static Layer layer(String name) {
+        init();
+        return LAYERS.computeIfAbsent(name, k -> new Layer());
+    }
+
+    private static void onWorldRender(WorldRenderContext ctx) {
+        if (LAYERS.isEmpty()) return;
+
+        MatrixStack matrices = ctx.matrixStack();
+        VertexConsumerProvider consumers = ctx.consumers();
+        if (matrices == null || consumers == null) return;
+        if (ctx.camera() == null) return;
+
+        double cx = ctx.camera().getPos().x;
+        double cy = ctx.camera().getPos().y;
+        double cz = ctx.camera().getPos().z;
+        Frustum frustum = ctx.frustum();
+
+        boolean anyLines = false;
+        for (Layer layer : LAYERS.values()) {
+            if (!layer.isShown()) continue;
+            layer.pack();
+            layer.renderBoxes(matrices, consumers, frustum, cx, cy, cz);
+            anyLines |= layer.lineCount > 0;
+        }
+        if (!anyLines) return;
+
+        VertexConsumer vc = consumers.getBuffer(RenderLayer.getLines());
+        for (Layer layer : LAYERS.values()) {
+            if (!layer.isShown()) continue;
+            layer.renderLines(matrices, vc, frustum, cx, cy, cz);
+        }
+    }
+
+    private static boolean isVisible(Box bounds, Frustum frustum, double camX, double camY, double camZ) {
+        if (bounds == null) return false;
+        double dx = Math.max(0.0, Math.max(bounds.minX - camX, camX - bounds.maxX));
+        double dy = Math.max(0.0, Math.max(bounds.minY - camY, camY - bounds.maxY));
+        double dz = Math.max(0.0, Math.max(bounds.minZ - camZ, camZ - bounds.maxZ));
+        if (dx * dx + dy * dy + dz * dz > CULL_DISTANCE * CULL_DISTANCE) return false;
+        return frustum == null || frustum.isVisible(bounds);
+    }
+
+    /** Mutable so resubmitting an id updates in place instead of allocating. */
+    private static final class Shape {
+        boolean line;
+        double x0, y0, z0, x1, y1, z1;
+        float r, g, b, a;
+
+        boolean matches(boolean line, double x0, double y0, double z0, double x1, double y1, double z1,
+                        float r, float g, float b, float a) {
+            return this.line == line
+                    && this.x0 == x0 && this.y0 == y0 && this.z0 == z0
+                    && this.x1 == x1 && this.y1 == y1 && this.z1 == z1
+                    && this.r == r && this.g == g && this.b == b && this.a == a;
+        }
+
+        void set(boolean line, double x0, double y0, double z0, double x1, double y1, double z1,
+                 float r, float g, float b, float a) {
+            this.line = line;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.z0 = z0;
+            this.x1 = x1;
+            this.y1 = y1;
+            this.z1 = z1;
+            this.r = r;
+            this.g = g;
+            this.b = b;
+            this.a = a;
+        }
+    }
+
+    /** One script's shapes. Ids are per layer; a box and a line may not share one. */
+    public static final class Layer {
+        private final LongIntHashMap slotOf = new LongIntHashMap(64, -1); // id -> slot
+        private long[] ids = new long[16];          // slot -> id
+        private Shape[] shapes = new Shape[16];     // slot -> shape; slots >= count keep objects for reuse
+        private int count = 0;                      // submission order, for spatial grouping
+        private BooleanSupplier visibleWhen = () -> true;
+        private boolean dirty = false;
+
+        private double ox, oy, oz;
+
+        private int boxCount = 0;
+        private float[] boxVerts = new float[0];   // 6 per box: min xyz, max xyz (relative to origin)
+        private float[] boxColors = new float[0];  // 4 per box
+        private Box[] boxBounds = new Box[0];      // per CULL_GROUP boxes
+
+        private int lineCount = 0;
+        private float[] lineVerts = new float[0];  // 9 per line: a xyz, b xyz, unit direction
+        private float[] lineColors = new float[0];
+        private Box[] lineBounds = new Box[0];
+
+        private Layer() {}
+
+        /** Draw this layer only while visible returns true (checked every frame). */
+        public void setVisibleWhen(BooleanSupplier visible) {
+            this.visibleWhen = (visible != null) ? visible : () -> true;
+        }
+
+        /** Block outline fill: pos expanded by expand on every side. */
+        public void box(long id, BlockPos pos, double expand, float r, float g, float b, float a) {
+            put(id, false, pos.getX() - expand, pos.getY() - expand, pos.getZ() - expand,
+                    pos.getX() + 1 + expand, pos.getY() + 1 + expand, pos.getZ() + 1 + expand, r, g, b, a);
+        }
+
+        public void box(long id, double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                        float r, float g, float b, float a) {
+            put(id, false, minX, minY, minZ, maxX, maxY, maxZ, r, g, b, a);
+        }
+
+        /** Small cube of half-size half centered on (x, y, z). */
+        public void marker(long id, double x, double y, double z, double half, float r, float g, float b, float a) {
+            put(id, false, x - half, y - half, z - half, x + half, y + half, z + half, r, g, b, a);
+        }
+
+        public void line(long id, double ax, double ay, double az, double bx, double by, double bz,
+                         float r, float g, float b, float a) {
+            put(id, true, ax, ay, az, bx, by, bz, r, g, b, a);
+        }
+
+        public boolean contains(long id) {
+            return slotOf.containsKey(id);
+        }
+
+        public void remove(long id) {
+            int slot = slotOf.remove(id);
+            if (slot < 0) return;
+            removeSlot(slot);
+            dirty = true;
+        }
+
+        /** Removes every id in [from, to). */
+        public void removeRange(long from, long to) {
+            boolean changed = false;
+            // Backward, so the shape moved into a freed slot has already been looked at.
+            for (int i = count - 1; i >= 0; i--) {
+                long id = ids[i];
+                if (id < from || id >= to) continue;
+                slotOf.remove(id);
+                removeSlot(i);
+                changed = true;
+            }
+            dirty |= changed;
+        }
+
+        public void clear() {
+            if (count == 0) return;
+            slotOf.clear();
+            count = 0;
+            dirty = true;
+        }
+
+        public boolean isEmpty() {
+            return count == 0;
+        }
+
+        // Moves the last shape into slot; the freed Shape object is parked past count for reuse.
+        private void removeSlot(int slot) {
+            int last = --count;
+            if (slot == last) return;
+            Shape freed = shapes[slot];
+            ids[slot] = ids[last];
+            shapes[slot] = shapes[last];
+            shapes[last] = freed;
+            slotOf.put(ids[slot], slot);
+        }
+
+        private void put(long id, boolean line, double x0, double y0, double z0, double x1, double y1, double z1,
+                         float r, float g, float b, float a) {
+            int slot = slotOf.get(id);
+            Shape s;
+            if (slot >= 0) {
+                s = shapes[slot];
+                if (s.matches(line, x0, y0, z0, x1, y1, z1, r, g, b, a)) return;
+            } else {
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, count << 1);
+                    shapes = Arrays.copyOf(shapes, count << 1);
+                }
+                slot = count++;
+                ids[slot] = id;
+                s = shapes[slot];
+                if (s == null) {
+                    s = new Shape();
+                    shapes[slot] = s;
+                }
+                slotOf.put(id, slot);
+            }
+            s.set(line, x0, y0, z0, x1, y1, z1, r, g, b, a);
+            dirty = true;
+        }
+
+        private boolean isShown() {
+            if (count == 0) return false;
+            try {
+                return visibleWhen.getAsBoolean();
+            } catch (Throwable ignored) {
+                return false;
+            }
+        }
+
+        /** Repacks the shapes if anything changed since the last frame. */
+        private void pack() {
+            if (!dirty) return;
+            dirty = false;
+
+            int boxes = 0, lines = 0;
+            for (int i = 0; i < count; i++) {
+                if (shapes[i].line) lines++;
+                else boxes++;
+            }
+            Shape first = shapes[0];
+            ox = Math.floor(first.x0);
+            oy = Math.floor(first.y0);
+            oz = Math.floor(first.z0);
+
+            boxVerts = new float[boxes * 6];
+            boxColors = new float[boxes * 4];
+            boxBounds = new Box[(boxes + CULL_GROUP - 1) / CULL_GROUP];
+            lineVerts = new float[lines * 9];
+            lineColors = new float[lines * 4];
+            lineBounds = new Box[(lines + CULL_GROUP - 1) / CULL_GROUP];
+
+            int bi = 0, li = 0;
+            for (int i = 0; i < count; i++) {
+                Shape s = shapes[i];
+                Box bounds = new Box(s.x0, s.y0, s.z0, s.x1, s.y1, s.z1);
+                if (s.line) {
+                    int o = li * 9;
+                    lineVerts[o] = (float) (s.x0 - ox);
+                    lineVerts[o + 1] = (float) (s.y0 - oy);
+                    lineVerts[o + 2] = (float) (s.z0 - oz);
+                    lineVerts[o + 3] = (float) (s.x1 - ox);
+                    lineVerts[o + 4] = (float) (s.y1 - oy);
+                    lineVerts[o + 5] = (float) (s.z1 - oz);
+                    double dx = s.x1 - s.x0, dy = s.y1 - s.y0, dz = s.z1 - s.z0;
+                    double len = Math.sqrt(dx * dx + dy * dy + dz * dz);
+                    if (len < 1.0e-6) {
+                        dx = 0.0;
+                        dy = 1.0;
+                        dz = 0.0;
+                        len = 1.0;
+                    }
+                    lineVerts[o + 6] = (float) (dx / len);
+                    lineVerts[o + 7] = (float) (dy / len);
+                    lineVerts[o + 8] = (float) (dz / len);
+                    putColor(lineColors, li, s);
+                    int g = li / CULL_GROUP;
+                    lineBounds[g] = (lineBounds[g] == null) ? bounds : lineBounds[g].union(bounds);
+                    li++;
+                } else {
+                    int o = bi * 6;
+                    boxVerts[o] = (float) (s.x0 - ox);
+                    boxVerts[o + 1] = (float) (s.y0 - oy);
+                    boxVerts[o + 2] = (float) (s.z0 - oz);
+                    boxVerts[o + 3] = (float) (s.x1 - ox);
+                    boxVerts[o + 4] = (float) (s.y1 - oy);
+                    boxVerts[o + 5] = (float) (s.z1 - oz);
+                    putColor(boxColors, bi, s);
+                    int g = bi / CULL_GROUP;
+                    boxBounds[g] = (boxBounds[g] == null) ? bounds : boxBounds[g].union(bounds);
+                    bi++;
+                }
+            }
+            boxCount = boxes;
+            lineCount = lines;
+        }
+
+        private static void putColor(float[] out, int i, Shape s) {
+            int o = i * 4;
+            out[o] = s.r;
+            out[o + 1] = s.g;
+            out[o + 2] = s.b;
+            out[o + 3] = s.a;
+        }
+
+        private void renderBoxes(MatrixStack matrices, VertexConsumerProvider consumers, Frustum frustum,
+                                 double camX, double camY, double camZ) {
+            if (boxCount == 0) return;
+            matrices.push();
+            matrices.translate(ox - camX, oy - camY, oz - camZ);
+            try {
+                for (int g = 0; g < boxBounds.length; g++) {
+                    if (!isVisible(boxBounds[g], frustum, camX, camY, camZ)) continue;
+                    int end = Math.min(boxCount, (g + 1) * CULL_GROUP);
+                    for (int i = g * CULL_GROUP; i < end; i++) {
+                        int o = i * 6, c = i * 4;
+                        DebugRenderer.drawBox(matrices, consumers, boxVerts[o], boxVerts[o + 1], boxVerts[o + 2],
+                                boxVerts[o + 3], boxVerts[o + 4], boxVerts[o + 5],
+                                boxColors[c], boxColors[c + 1], boxColors[c + 2], boxColors[c + 3]);
+                    }
+                }
+            } finally {
+                matrices.pop();
+            }
+        }
+
+        private void renderLines(MatrixStack matrices, VertexConsumer vc, Frustum frustum,
+                                 double camX, double camY, double camZ) {
+            if (lineCount == 0) return;
+            matrices.push();
+            matrices.translate(ox - camX, oy - camY, oz - camZ);
+            try {
+                MatrixStack.Entry entry = matrices.peek();
+                Matrix4f mat = entry.getPositionMatrix();
+                for (int g = 0; g < lineBounds.length; g++) {
+                    if (!isVisible(lineBounds[g], frustum, camX, camY, camZ)) continue;
+                    int end = Math.min(lineCount, (g + 1) * CULL_GROUP);
+                    for (int i = g * CULL_GROUP; i < end; i++) {
+                        int o = i * 9, c = i * 4;
+                        float r = lineColors[c], gr = lineColors[c + 1], b = lineColors[c + 2], a = lineColors[c + 3];
+                        float nx = lineVerts[o + 6], ny = lineVerts[o + 7], nz = lineVerts[o + 8];
+                        vc.vertex(mat, lineVerts[o], lineVerts[o + 1], lineVerts[o + 2]).color(r, gr, b, a).normal(entry, nx, ny, nz);
+                        vc.vertex(mat, lineVerts[o + 3], lineVerts[o + 4], lineVerts[o + 5]).color(r, gr, b, a).normal(entry, nx, ny, nz);
+                    }
+                }
+            } finally {
+                matrices.pop();
+            }
+        }
+    }
+}
@@ -1,13 +1,12 @@
 package name.atlasclient.script.foraging;
 
 import name.atlasclient.config.Rotation;
+import name.atlasclient.render.WorldOverlay;
 import name.atlasclient.script.Script;
 import name.atlasclient.script.misc.PathfindScript;
 
 import net.fabricmc.fabric.api.client.message.v1.ClientReceiveMessageEvents;
 import net.fabricmc.fabric.api.client.rendering.v1.HudRenderCallback;
-import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderContext;
-import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderEvents;
 import net.minecraft.client.font.TextRenderer;
 import net.minecraft.client.gui.DrawContext;
 import net.minecraft.client.render.RenderTickCounter;
@@ -18,14 +17,10 @@ import net.minecraft.util.Formatting;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.network.ClientPlayerEntity;
 import net.minecraft.entity.player.PlayerInventory;
-import net.minecraft.client.render.VertexConsumerProvider;
-import net.minecraft.client.render.debug.DebugRenderer;
-import net.minecraft.client.util.math.MatrixStack;
 import net.minecraft.network.message.MessageType;
 import net.minecraft.network.message.SignedMessage;
 import net.minecraft.text.Text;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.Box;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
@@ -76,7 +71,6 @@ public final class HubForagingScript implements Script {
         this.enabled = enabled;
         if (enabled) {
             ACTIVE_INSTANCE = this;
-            ensureRenderHook();
             ensureHudHook();
         } else {
             if (ACTIVE_INSTANCE == this) ACTIVE_INSTANCE = null;
@@ -221,9 +215,13 @@ public final class HubForagingScript implements Script {
     private float noiseYaw = 0f;
     private float noisePitch = 0f;
 
-    // Render hook
-    private static boolean RENDER_HOOK_REGISTERED = false;
+    // World overlay layer (target + connected logs); drawn while the active instance is enabled
     private static HubForagingScript ACTIVE_INSTANCE = null;
+    private static final WorldOverlay.Layer OVERLAY = WorldOverlay.layer("hub_foraging");
+
+    static {
+        OVERLAY.setVisibleWhen(() -> ACTIVE_INSTANCE != null && ACTIVE_INSTANCE.enabled);
+    }
 
     // ---------------------------------------------------------------------
     // Lifecycle
@@ -258,6 +256,7 @@ public final class HubForagingScript implements Script {
         currentTarget = null;
         targetTicks = 0;
         connectedLogs = Set.of();
+        syncOverlay();
 
         rotating = false;
         rotT = 0f;
@@ -438,6 +437,7 @@ public final class HubForagingScript implements Script {
             // Connected set might be incomplete if chunk isn't loaded yet;
             // it is forced refreshed on arrival and when starting the actual break.
             connectedLogs = floodFillRadius1(mc.world, target);
+            syncOverlay();
 
             planRotationToBlock(mc, target);
         }
@@ -447,6 +447,7 @@ public final class HubForagingScript implements Script {
         currentTarget = target;
         targetTicks = 0;
         connectedLogs = floodFillRadius1(mc.world, target);
+        syncOverlay();
         planRotationToBlock(mc, target);
     }
 
@@ -656,12 +657,6 @@ private static long parseLongWithCommas(String v) {
     // Rendering
     // ---------------------------------------------------------------------
 
-    private static void ensureRenderHook() {
-        if (RENDER_HOOK_REGISTERED) return;
-        RENDER_HOOK_REGISTERED = true;
-        WorldRenderEvents.LAST.register(HubForagingScript::onWorldRender);
-    }
-
     private static void ensureHudHook() {
         if (HUD_HOOK_REGISTERED) return;
         HUD_HOOK_REGISTERED = true;
@@ -834,28 +829,19 @@ private static long parseLongWithCommas(String v) {
         return String.valueOf((long) Math.floor(v));
     }
 
-    private static void onWorldRender(WorldRenderContext ctx) {
-        HubForagingScript inst = ACTIVE_INSTANCE;
-        if (inst == null || !inst.enabled) return;
-        if (inst.currentTarget == null) return;
-
-        MatrixStack matrices = ctx.matrixStack();
-        VertexConsumerProvider consumers = ctx.consumers();
-        if (matrices == null || consumers == null) return;
-        if (ctx.camera() == null) return;
-
-        Vec3d cam = ctx.camera().getPos();
+    /** Resubmits the highlight layer; called whenever currentTarget/connectedLogs change. */
+    private void syncOverlay() {
+        OVERLAY.clear();
+        if (currentTarget == null) return;
 
         // Selected target (visible during TRAVEL and BREAK)
-        Box main = new Box(inst.currentTarget).expand(0.002).offset(-cam.x, -cam.y, -cam.z);
-        DebugRenderer.drawBox(matrices, consumers, main, H_R, H_G, H_B, TARGET_ALPHA);
+        OVERLAY.box(currentTarget.asLong(), currentTarget, 0.002, H_R, H_G, H_B, TARGET_ALPHA);
 
         // Connected oak blocks
-        if (inst.connectedLogs != null && !inst.connectedLogs.isEmpty()) {
-            for (BlockPos p : inst.connectedLogs) {
-                if (p.equals(inst.currentTarget)) continue;
-                Box b = new Box(p).expand(0.002).offset(-cam.x, -cam.y, -cam.z);
-                DebugRenderer.drawBox(matrices, consumers, b, H_R, H_G, H_B, CONNECTED_ALPHA);
+        if (connectedLogs != null && !connectedLogs.isEmpty()) {
+            for (BlockPos p : connectedLogs) {
+                if (p.equals(currentTarget)) continue;
+                OVERLAY.box(p.asLong(), p, 0.002, H_R, H_G, H_B, CONNECTED_ALPHA);
             }
         }
     }
@@ -0,0 +1,71 @@
+package name.atlasclient.script.mining;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+
+import java.util.IdentityHashMap;
+
+/**
+ * Target classification for the mining scripts: tier (0 = best) of a BlockState, or NONE, from a dense
+ * table indexed by BlockState raw id (like PassabilityTable).
+ *
+ * Configured block ids are resolved through the registry once, when the table is built (lazily, on the
+ * first lookup); scans then do one array read per block with no registry or string work. A table is
+ * immutable; scripts build a new one when the settings that choose their targets change.
+ */
+public final class BlockTiers {
+
+    public static final int NONE = -1;
+
+    private final String[][] ids;
+    private byte[] table = null;
+
+    private BlockTiers(String[][] ids) {
+        this.ids = ids;
+    }
+
+    /** One array of block ids per tier, best tier first; null and unknown ids are skipped. */
+    public static BlockTiers of(String[]... tiers) {
+        return new BlockTiers(tiers);
+    }
+
+    public int tierCount() {
+        return ids.length;
+    }
+
+    public int tier(BlockState state) {
+        byte[] t = table;
+        if (t == null) t = build();
+        int id = Block.getRawIdFromState(state);
+        return (id >= 0 && id < t.length) ? t[id] : NONE;
+    }
+
+    public boolean contains(BlockState state) {
+        return tier(state) != NONE;
+    }
+
+    private byte[] build() {
+        IdentityHashMap<Block, Integer> byBlock = new IdentityHashMap<>();
+        for (int tier = ids.length - 1; tier >= 0; tier--) {
+            // Reverse order, so a block listed twice keeps its best tier.
+            for (String id : ids[tier]) {
+                if (id == null) continue;
+                Identifier key = Identifier.tryParse(id);
+                if (key == null || !Registries.BLOCK.containsId(key)) continue;
+                byBlock.put(Registries.BLOCK.get(key), tier);
+            }
+        }
+
+        int n = Block.STATE_IDS.size();
+        byte[] t = new byte[n];
+        for (int id = 0; id < n; id++) {
+            BlockState state = Block.STATE_IDS.get(id);
+            Integer tier = (state != null) ? byBlock.get(state.getBlock()) : null;
+            t[id] = (byte) ((tier != null) ? tier : NONE);
+        }
+        table = t;
+        return t;
+    }
+}
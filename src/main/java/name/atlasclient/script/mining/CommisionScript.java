@@ -24,6 +24,7 @@ import net.minecraft.util.math.Vec3d;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.function.IntConsumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -214,17 +215,12 @@ public final class CommisionScript implements Script {
         ClientPlayerEntity p = client.player;
         if (p == null) return;
 
-        Vec3d pos = p.getPos();
-        emissaryAnchor = EMISSARY_ANCHORS.stream()
-                .min(Comparator.comparingDouble(a -> a.squaredDistanceTo(pos)))
-                .orElse(null);
-
-        if (emissaryAnchor == null) return;
-        lastEmissaryPos = emissaryAnchor;
-
-        dbg(client, "nearest emissary anchor: " + emissaryAnchor);
-
-        startPathTo(client, emissaryAnchor, () -> {
+        // One multi-goal search picks the emissary that is cheapest to walk to (not just nearest by air).
+        startPathToAny(client, EMISSARY_ANCHORS, i -> {
+            emissaryAnchor = EMISSARY_ANCHORS.get(i);
+            lastEmissaryPos = emissaryAnchor;
+            dbg(client, "emissary anchor: " + emissaryAnchor);
+        }, () -> {
             dbg(client, "arrived at emissary anchor");
             state = State.OPEN_EMISSARY_GUI;
         });
@@ -698,6 +694,21 @@ public final class CommisionScript implements Script {
         } catch (Throwable ignored) {}
     }
 
+    private void startPathToAny(MinecraftClient client, List<Vec3d> targets, IntConsumer onChosen, Runnable onArrived) {
+        if (pathfind == null) return;
+
+        try {
+            pathfind.setOnArrived(() -> {
+                tryStopPathfind();
+                if (onArrived != null) onArrived.run();
+            });
+
+            pathfind.setEnabled(true);
+            pathfind.onEnable(client);
+            pathfind.navigateToAny(targets, null, onChosen);
+        } catch (Throwable ignored) {}
+    }
+
     private void tryStopPathfind() {
         if (pathfind == null) return;
         try { pathfind.setEnabled(false); } catch (Throwable ignored) {}
@@ -1,35 +1,30 @@
 package name.atlasclient.script.mining;
 
 import name.atlasclient.config.Rotation;
+import name.atlasclient.pathing.FlowField;
+import name.atlasclient.render.WorldOverlay;
 import name.atlasclient.script.Script;
-import net.minecraft.block.Block;
+import name.atlasclient.script.misc.PathfindScript;
+import name.atlasclient.world.BlockChangeEvents;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.network.ClientPlayerEntity;
-import net.minecraft.registry.Registries;
 import net.minecraft.text.Text;
-import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
-import net.minecraft.util.math.Box;
 import net.minecraft.util.hit.HitResult;
 import net.minecraft.util.hit.BlockHitResult;
 import net.minecraft.world.RaycastContext;
 
-import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderContext;
-import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderEvents;
 import net.minecraft.client.render.VertexConsumer;
-import net.minecraft.client.render.VertexConsumerProvider;
 import net.minecraft.client.render.RenderLayer;
 import net.minecraft.client.render.WorldRenderer;
 import net.minecraft.client.util.math.MatrixStack;
-import net.minecraft.client.render.debug.DebugRenderer;
 
 import org.joml.Matrix4f;
 import org.joml.Matrix3f;
 
-import java.util.ArrayDeque;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -192,7 +187,10 @@ public final class MithrilMiningScript implements Script {
     // State
     // ---------------------------------------------------------------------
 
-    private final Set<Block> targets = new HashSet<>();
+    private BlockTiers targets = BlockTiers.of();
+    private int targetsKey = -1; // strictness/titanium the targets were built for
+    private final TargetIndex targetIndex = new TargetIndex();
+    private final VisibilityCache visibility = new VisibilityCache();
     private final java.util.HashMap<BlockPos, Integer> targetBlacklistTicks = new java.util.HashMap<>();
     private Vec3d startPos = null;
 
@@ -223,31 +221,124 @@ public final class MithrilMiningScript implements Script {
     private long lastCritLookNanos = 0L;
 
     // ---------------------------------------------------------------------
-    // CRIT particle queue API (called by a mixin)
+    // CRIT particle ring API (called by a mixin)
     // ---------------------------------------------------------------------
 
-    private static final class CritEvent {
-        final double x, y, z;
-        final long tNanos;
-        CritEvent(double x, double y, double z, long tNanos) {
-            this.x = x; this.y = y; this.z = z; this.tNanos = tNanos;
+    /**
+     * Ring of CRIT particle events in primitive slots (x, y, z, time), replacing the locked ArrayDeque of
+     * CritEvent objects. Single-threaded: the particle mixin records on the client thread (onParticle's
+     * network-thread pass is skipped) and the tick polls there, so head and tail are plain fields.
+     *
+     * record() fills slot head & MASK and advances head, overwriting the oldest event once CAPACITY are
+     * held; a poll only reads slots in [tail, head). Nothing is removed or re-enqueued:
+     *   - expiry is by sequence: events are recorded in time order, so a poll advances tail past events
+     *     older than the max age (and past any that were overwritten), never rescanning,
+     *   - a polled event is marked taken (by its sequence) instead of being dequeued,
+     *   - each slot also stores its 4-block cell, a cheap reject: a poll still visits every live slot
+     *     in [tail, head), but skips events outside the reach cube with integer compares before any
+     *     distance math. Live events are the few from the last critMaxAgeMs, so no spatial index.
+     * pollNearest() leaves the result in x()/y()/z()/tNanos() instead of allocating.
+     */
+    private static final class CritRing {
+        private static final int CAPACITY = 256; // power of two
+        private static final int MASK = CAPACITY - 1;
+        private static final int CELL_SHIFT = 2;
+
+        private final double[] xs = new double[CAPACITY];
+        private final double[] ys = new double[CAPACITY];
+        private final double[] zs = new double[CAPACITY];
+        private final long[] times = new long[CAPACITY];
+        private final int[] cellX = new int[CAPACITY];
+        private final int[] cellY = new int[CAPACITY];
+        private final int[] cellZ = new int[CAPACITY];
+        private final long[] taken = new long[CAPACITY]; // sequence last polled from the slot
+
+        private long head = 0L; // sequence of the next event
+        private long tail = 0L; // oldest sequence not yet expired
+
+        // Result of the last successful pollNearest()
+        private double x, y, z;
+        private long tNanos;
+
+        CritRing() {
+            java.util.Arrays.fill(taken, -1L);
         }
-    }
 
-    private static final int CRIT_QUEUE_MAX = 256;
-    private static final ArrayDeque<CritEvent> CRIT_QUEUE = new ArrayDeque<>(CRIT_QUEUE_MAX);
+        void record(double x, double y, double z, long tNanos) {
+            int i = (int) (head & MASK);
+            xs[i] = x;
+            ys[i] = y;
+            zs[i] = z;
+            times[i] = tNanos;
+            cellX[i] = MathHelper.floor(x) >> CELL_SHIFT;
+            cellY[i] = MathHelper.floor(y) >> CELL_SHIFT;
+            cellZ[i] = MathHelper.floor(z) >> CELL_SHIFT;
+            head++;
+        }
 
-    public static void recordCritParticle(double x, double y, double z) {
-        synchronized (CRIT_QUEUE) {
-            if (CRIT_QUEUE.size() >= CRIT_QUEUE_MAX) CRIT_QUEUE.pollFirst();
-            CRIT_QUEUE.addLast(new CritEvent(x, y, z, System.nanoTime()));
+        /** Events recorded and not yet expired, polled ones included (upper bound). */
+        int size() {
+            return (int) Math.min(head - tail, CAPACITY);
         }
-    }
 
-    private static CritEvent pollCrit() {
-        synchronized (CRIT_QUEUE) {
-            return CRIT_QUEUE.pollFirst();
+        /**
+         * Takes the fresh, untaken event closest to (ex, ey, ez) within maxDist, if any, scanning every
+         * live slot. Events out of range stay available in case the player moves.
+         */
+        boolean pollNearest(double ex, double ey, double ez, double maxDist, long maxAgeNanos, long nowNanos) {
+            if (head - tail > CAPACITY) tail = head - CAPACITY;
+            while (tail < head && nowNanos - times[(int) (tail & MASK)] > maxAgeNanos) tail++;
+
+            int minCX = MathHelper.floor(ex - maxDist) >> CELL_SHIFT, maxCX = MathHelper.floor(ex + maxDist) >> CELL_SHIFT;
+            int minCY = MathHelper.floor(ey - maxDist) >> CELL_SHIFT, maxCY = MathHelper.floor(ey + maxDist) >> CELL_SHIFT;
+            int minCZ = MathHelper.floor(ez - maxDist) >> CELL_SHIFT, maxCZ = MathHelper.floor(ez + maxDist) >> CELL_SHIFT;
+
+            long best = -1L;
+            double bestDistSq = maxDist * maxDist;
+            for (long seq = tail; seq < head; seq++) {
+                int i = (int) (seq & MASK);
+                if (taken[i] == seq) continue;
+                if (cellX[i] < minCX || cellX[i] > maxCX || cellY[i] < minCY || cellY[i] > maxCY
+                        || cellZ[i] < minCZ || cellZ[i] > maxCZ) continue;
+                double dx = xs[i] - ex, dy = ys[i] - ey, dz = zs[i] - ez;
+                double d = dx * dx + dy * dy + dz * dz;
+                if (d <= bestDistSq) {
+                    bestDistSq = d;
+                    best = seq;
+                }
+            }
+            if (best < 0) return false;
+
+            int i = (int) (best & MASK);
+            x = xs[i];
+            y = ys[i];
+            z = zs[i];
+            tNanos = times[i];
+            taken[i] = best;
+            return true;
         }
+
+        double x() {
+            return x;
+        }
+
+        double y() {
+            return y;
+        }
+
+        double z() {
+            return z;
+        }
+
+        long tNanos() {
+            return tNanos;
+        }
+    }
+
+    private static final CritRing CRITS = new CritRing();
+
+    public static void recordCritParticle(double x, double y, double z) {
+        CRITS.record(x, y, z, System.nanoTime());
     }
 
     private static long LAST_PARTICLE_SEEN_DEBUG_NANOS = 0L;
@@ -268,7 +359,7 @@ public final class MithrilMiningScript implements Script {
     }
 
     private static int getCritQueueSize() {
-        synchronized (CRIT_QUEUE) { return CRIT_QUEUE.size(); }
+        return CRITS.size();
     }
 
     private static String fmt3(double v) {
@@ -276,48 +367,15 @@ public final class MithrilMiningScript implements Script {
     }
 
     /**
-     * Removes and returns the closest valid CRIT event to the player, discarding stale ones.
+     * Takes the closest valid CRIT event to the player (into CRITS.x()/y()/z()/tNanos()); stale ones expire.
      */
-    private static CritEvent pollClosestCrit(MinecraftClient client, long nowNanos) {
-        if (client == null || client.player == null) return null;
-
-        double maxD = Settings.getCritMaxDistance();
-        double maxDistSq = maxD * maxD;
-        long maxAgeMs = Settings.getCritMaxAgeMs();
-
-        CritEvent best = null;
-        double bestDistSq = Double.MAX_VALUE;
-
-        synchronized (CRIT_QUEUE) {
-            int n = CRIT_QUEUE.size();
-            for (int i = 0; i < n; i++) {
-                CritEvent ev = CRIT_QUEUE.pollFirst();
-                if (ev == null) break;
-
-                long ageMs = (nowNanos - ev.tNanos) / 1_000_000L;
-                if (ageMs > maxAgeMs) {
-                    // drop stale
-                    continue;
-                }
+    private static boolean pollClosestCrit(MinecraftClient client, long nowNanos) {
+        if (client == null || client.player == null) return false;
 
-                double distSq = squaredDistanceFromEye(client.player, ev.x, ev.y, ev.z);
-                if (distSq > maxDistSq) {
-                    // keep (still fresh) in case player moves
-                    CRIT_QUEUE.addLast(ev);
-                    continue;
-                }
-
-                if (distSq < bestDistSq) {
-                    if (best != null) CRIT_QUEUE.addLast(best);
-                    best = ev;
-                    bestDistSq = distSq;
-                } else {
-                    CRIT_QUEUE.addLast(ev);
-                }
-            }
-        }
-
-        return best;
+        ClientPlayerEntity p = client.player;
+        // Same eye point as squaredDistanceFromEye.
+        return CRITS.pollNearest(p.getX(), p.getY() + 1.5, p.getZ(), Settings.getCritMaxDistance(),
+                Settings.getCritMaxAgeMs() * 1_000_000L, nowNanos);
     }
 
     // ---------------------------------------------------------------------
@@ -331,8 +389,10 @@ public final class MithrilMiningScript implements Script {
     @Override
     public void onEnable(MinecraftClient client) {
         refreshTargets();
-        ensureRenderHook();
+        targetIndex.invalidate();
+        visibility.clear();
         ACTIVE_INSTANCE = this;
+        ensureChangeHook();
         ClientPlayerEntity p = client.player;
         if (p != null) startPos = p.getPos();
 
@@ -351,6 +411,7 @@ public final class MithrilMiningScript implements Script {
     @Override
     public void onDisable() {
         ACTIVE_INSTANCE = null;
+        OVERLAY.clear();
         MinecraftClient client = MinecraftClient.getInstance();
         if (client != null && client.options != null) {
             client.options.attackKey.setPressed(false);
@@ -359,15 +420,6 @@ public final class MithrilMiningScript implements Script {
     }
 
 
-    private static void ensureRenderHook() {
-        if (RENDER_HOOK_REGISTERED) return;
-        RENDER_HOOK_REGISTERED = true;
-
-        WorldRenderEvents.LAST.register(MithrilMiningScript::onWorldRender);
-    }
-
-
-
     /** Draw a thin debug line in world render context (RenderLayer.getLines()) */
     private static void drawLine(MatrixStack matrices, VertexConsumer vc,
                                  double x1, double y1, double z1,
@@ -389,61 +441,38 @@ public final class MithrilMiningScript implements Script {
         vc.vertex(posMat, (float) x2, (float) y2, (float) z2).color(r, g, b, a).normal(entry, nx, ny, nz);
     }
 
-    private static void onWorldRender(WorldRenderContext ctx) {
-        MithrilMiningScript inst = ACTIVE_INSTANCE;
-        if (inst == null) return;
-        if (!inst.enabled) return;
-        if (!Settings.isMithrilMinerEnabled()) return;
-        if (inst.currentTarget == null) return;
-
-        // Render a subtle outline around the selected block
-        MatrixStack matrices = ctx.matrixStack();
-        VertexConsumerProvider consumers = ctx.consumers();
-        if (matrices == null || consumers == null) return;
-
-        var camera = ctx.camera();
-        if (camera == null) return;
-
-        double cx = camera.getPos().x;
-        double cy = camera.getPos().y;
-        double cz = camera.getPos().z;
-
-        Box box = new Box(inst.currentTarget).expand(0.002).offset(-cx, -cy, -cz);
+    /**
+     * Target box, cursor marker and CRIT highlight in the shared "mithril" WorldOverlay layer; synced after
+     * every tick (unchanged shapes are no-ops there). The CRIT box expires here, on tick.
+     */
+    private void syncOverlay(MinecraftClient client) {
+        if (!enabled || !Settings.isMithrilMinerEnabled() || currentTarget == null) {
+            OVERLAY.clear();
+            return;
+        }
 
         // Color: light cyan, low alpha. (r,g,b,a)
-        DebugRenderer.drawBox(matrices, consumers, box, 0.35f, 0.85f, 1.0f, 0.65f);
-
-
+        OVERLAY.box(OVERLAY_TARGET_ID, currentTarget, 0.002, 0.35f, 0.85f, 1.0f, 0.65f);
 
         // Cursor marker: small white box at the current crosshair hit position (world-space)
-        if (Settings.isRenderCursorMarker()) {
-            MinecraftClient mc = MinecraftClient.getInstance();
-            if (mc != null && mc.crosshairTarget != null && mc.crosshairTarget.getType() == HitResult.Type.BLOCK) {
-                BlockHitResult bhr = (BlockHitResult) mc.crosshairTarget;
-                Vec3d hp = bhr.getPos();
-                double s = 0.03; // half-size => small cube
-                Box hb = new Box(hp.x - s, hp.y - s, hp.z - s, hp.x + s, hp.y + s, hp.z + s).offset(-cx, -cy, -cz);
-                DebugRenderer.drawBox(matrices, consumers, hb, 1.0f, 1.0f, 1.0f, 0.95f);
-            }
+        HitResult hit = (client != null) ? client.crosshairTarget : null;
+        if (Settings.isRenderCursorMarker() && hit != null && hit.getType() == HitResult.Type.BLOCK) {
+            Vec3d hp = ((BlockHitResult) hit).getPos();
+            OVERLAY.marker(OVERLAY_CURSOR_ID, hp.x, hp.y, hp.z, 0.03, 1.0f, 1.0f, 1.0f, 0.95f);
+        } else {
+            OVERLAY.remove(OVERLAY_CURSOR_ID);
         }
 
-
         // CRIT highlight: small red box (20% block) around the last seen CRIT point
-        if (inst.lastCritPos != null) {
-            long now = System.nanoTime();
-            long ageMs = (now - inst.lastCritSeenNanos) / 1_000_000L;
+        if (lastCritPos != null) {
+            long ageMs = (System.nanoTime() - lastCritSeenNanos) / 1_000_000L;
             long maxShowMs = Math.max(1500L, Settings.getCritMaxAgeMs());
-            if (ageMs <= maxShowMs) {
-                double s = 0.10; // half-size => 0.2 block edge length
-                Box cb = new Box(
-                        inst.lastCritPos.x - s, inst.lastCritPos.y - s, inst.lastCritPos.z - s,
-                        inst.lastCritPos.x + s, inst.lastCritPos.y + s, inst.lastCritPos.z + s
-                ).offset(-cx, -cy, -cz);
-
-                DebugRenderer.drawBox(matrices, consumers, cb, 1.0f, 0.0f, 0.0f, 0.45f);
-            } else {
-                inst.lastCritPos = null;
-            }
+            if (ageMs > maxShowMs) lastCritPos = null;
+        }
+        if (lastCritPos != null) {
+            OVERLAY.marker(OVERLAY_CRIT_ID, lastCritPos.x, lastCritPos.y, lastCritPos.z, 0.10, 1.0f, 0.0f, 0.0f, 0.45f);
+        } else {
+            OVERLAY.remove(OVERLAY_CRIT_ID);
         }
     }
 
@@ -453,6 +482,11 @@ public final class MithrilMiningScript implements Script {
 
     @Override
     public void onTick(MinecraftClient client) {
+        tick(client);
+        syncOverlay(client);
+    }
+
+    private void tick(MinecraftClient client) {
         if (!enabled) return;
 
         if (!Settings.isMithrilMinerEnabled()) {
@@ -463,6 +497,7 @@ public final class MithrilMiningScript implements Script {
         if (client.player == null || client.world == null) return;
 
         tickBlacklist();
+        targetIndex.update(client, DEFAULT_RADIUS);
 
         // Walk-away safety
         if (startPos != null) {
@@ -851,55 +886,40 @@ public final class MithrilMiningScript implements Script {
     // ---------------------------------------------------------------------
 
     private void refreshTargets() {
-        targets.clear();
+        // Rebuilt (and the target index with it) only when the settings it depends on change.
+        int key = Settings.getStrictness() * 2 + (Settings.isMineTitanium() ? 1 : 0);
+        if (key == targetsKey) return;
+        targetsKey = key;
+        targetIndex.invalidate();
 
         // Strictness: higher = more strict
         // Convert strictness 1..5 into allowed depth 5..1
         int depth = 6 - Settings.getStrictness(); // 5 (loose) -> 1 (strict)
         depth = Math.max(1, Math.min(5, depth));
 
+        // Tier order: titanium first when enabled, then the allowed mithril tiers (best -> worst).
+        boolean titanium = Settings.isMineTitanium();
+        String[][] tiers = new String[depth + (titanium ? 1 : 0)][];
+        int t = 0;
+        if (titanium) tiers[t++] = new String[] { TITANIUM };
         for (int i = 0; i < depth; i++) {
-            addTarget(MITHRIL_TIERS[i]);
-        }
-
-        if (Settings.isMineTitanium()) {
-            addTarget(TITANIUM);
+            tiers[t++] = new String[] { MITHRIL_TIERS[i] };
         }
+        targets = BlockTiers.of(tiers);
     }
 
-    private void addTarget(String id) {
-        Block b = Registries.BLOCK.get(Identifier.of(id));
-        if (b != null) targets.add(b);
-    }
-
-    private boolean touchesAir(MinecraftClient client, BlockPos pos) {
+    private static boolean touchesAir(net.minecraft.world.World world, BlockPos pos) {
         for (Direction d : Direction.values()) {
-            if (client.world.isAir(pos.offset(d))) return true;
+            if (world.isAir(pos.offset(d))) return true;
         }
         return false;
     }
 
     private boolean isStillValidTarget(MinecraftClient client, BlockPos pos) {
-        Block b = client.world.getBlockState(pos).getBlock();
-        if (!targets.contains(b)) return false;
-        return touchesAir(client, pos);
+        if (!targets.contains(client.world.getBlockState(pos))) return false;
+        return touchesAir(client.world, pos);
     }
 
-    private int priority(Block b) {
-        Identifier id = Registries.BLOCK.getId(b);
-        if (id == null) return 999;
-        String s = id.toString();
-
-        if (Settings.isMineTitanium() && s.equals(TITANIUM)) return 0;
-
-        int base = Settings.isMineTitanium() ? 1 : 0;
-        for (int i = 0; i < MITHRIL_TIERS.length; i++) {
-            if (s.equals(MITHRIL_TIERS[i])) return base + i;
-        }
-        return 999;
-    }
-
-
     private static final class VisibleAim {
         final Direction face;
         final double u;
@@ -913,11 +933,106 @@ public final class MithrilMiningScript implements Script {
         }
     }
 
+    /**
+     * probeVisibleAim results per block, for one eye position. The first probe from an eye position
+     * anchors the cache; once the eye is more than EYE_MOVE_EPS away from the anchor everything is dropped
+     * (the cache is effectively keyed by block and quantized eye). Entries also remember the cell box their
+     * rays crossed (eye to block, one cell of margin), and a block change inside it drops them.
+     * Misses are cached too: an occluded block stays occluded until the eye moves or something in between
+     * changes. A chunk (re)send drops the entries whose box reaches into that chunk's columns.
+     *
+     * A hit depends on startIdx (the first face sample tried), so it is only returned for the same
+     * startIdx; a miss tried every sample and holds for any startIdx.
+     *
+     * Client thread only.
+     */
+    private static final class VisibilityCache {
+        private static final double EYE_MOVE_EPS = 0.05;
+
+        private static final class Entry {
+            final VisibleAim aim; // null: no visible point
+            final int startIdx;
+            final int minX, minY, minZ, maxX, maxY, maxZ;
+
+            Entry(VisibleAim aim, int startIdx, Vec3d eye, BlockPos target) {
+                this.aim = aim;
+                this.startIdx = startIdx;
+                minX = Math.min(MathHelper.floor(eye.x), target.getX()) - 1;
+                minY = Math.min(MathHelper.floor(eye.y), target.getY()) - 1;
+                minZ = Math.min(MathHelper.floor(eye.z), target.getZ()) - 1;
+                maxX = Math.max(MathHelper.floor(eye.x), target.getX()) + 1;
+                maxY = Math.max(MathHelper.floor(eye.y), target.getY()) + 1;
+                maxZ = Math.max(MathHelper.floor(eye.z), target.getZ()) + 1;
+            }
+
+            boolean covers(int x, int y, int z) {
+                return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+            }
+
+            boolean coversColumns(int x0, int z0, int x1, int z1) {
+                return maxX >= x0 && minX <= x1 && maxZ >= z0 && minZ <= z1;
+            }
+        }
+
+        private final java.util.HashMap<Long, Entry> entries = new java.util.HashMap<>();
+        private net.minecraft.world.World world = null;
+        private double ex = Double.NaN, ey = Double.NaN, ez = Double.NaN;
+
+        /** Drops every entry if the world changed or the eye left the anchor. */
+        void follow(net.minecraft.world.World w, Vec3d eye) {
+            if (w == world && Math.abs(eye.x - ex) <= EYE_MOVE_EPS && Math.abs(eye.y - ey) <= EYE_MOVE_EPS
+                    && Math.abs(eye.z - ez) <= EYE_MOVE_EPS) {
+                return;
+            }
+            entries.clear();
+            world = w;
+            ex = eye.x;
+            ey = eye.y;
+            ez = eye.z;
+        }
+
+        Entry get(BlockPos target, int startIdx) {
+            Entry e = entries.get(target.asLong());
+            return (e != null && (e.aim == null || e.startIdx == startIdx)) ? e : null;
+        }
+
+        void put(BlockPos target, int startIdx, VisibleAim aim, Vec3d eye) {
+            entries.put(target.asLong(), new Entry(aim, startIdx, eye, target));
+        }
+
+        void onBlockChanged(int x, int y, int z) {
+            if (entries.isEmpty()) return;
+            entries.values().removeIf(e -> e.covers(x, y, z));
+        }
+
+        void onChunkChanged(int chunkX, int chunkZ) {
+            if (entries.isEmpty()) return;
+            int x0 = chunkX << 4, z0 = chunkZ << 4;
+            entries.values().removeIf(e -> e.coversColumns(x0, z0, x0 + 15, z0 + 15));
+        }
+
+        void clear() {
+            entries.clear();
+        }
+    }
+
+    /** probeVisibleAimUncached through the VisibilityCache. */
+    private VisibleAim probeVisibleAim(MinecraftClient client, BlockPos target, int startIdx) {
+        Vec3d eye = client.player.getCameraPosVec(1.0f);
+        visibility.follow(client.world, eye);
+        VisibilityCache.Entry cached = visibility.get(target, startIdx);
+        if (cached != null) return cached.aim;
+
+        VisibleAim aim = probeVisibleAimUncached(client, target, startIdx);
+        visibility.put(target, startIdx, aim, eye);
+        return aim;
+    }
+
     /**
      * Probe for an actually visible aim point on any face of the target using raycasts from the eye to sample points.
      * This does not require turning the camera, and lets us skip fully occluded/unreachable blocks immediately.
      */
-    private VisibleAim probeVisibleAim(MinecraftClient client, BlockPos target, int startIdx) {
+    private VisibleAim probeVisibleAimUncached(MinecraftClient client, BlockPos target, int startIdx) {
         BlockHitResult bestHit = null;
         Direction bestFace = null;
         double bestU = 0, bestV = 0;
@@ -949,79 +1064,212 @@ public final class MithrilMiningScript implements Script {
     }
 
     /**
-     * Python-parity selection: find best tier present, then pick closest within that tier.
+     * Python-parity selection: best tier present, then closest within that tier. Candidates come from the
+     * maintained TargetIndex (exposed target blocks around the player, bucketed by tier), so this only
+     * looks at the best non-empty buckets instead of scanning the cube.
      */
     private BlockPos findBestTarget(MinecraftClient client, int radius) {
-        BlockPos origin = client.player.getBlockPos();
-
+        targetIndex.update(client, radius);
 
         double maxD = Settings.getMaxMineDistance();
         double maxDistSq = maxD * maxD;
 
-        int bestTier = Integer.MAX_VALUE;
-
-        // pass 1: best tier present
-        for (int dx = -radius; dx <= radius; dx++) {
-            for (int dy = -radius; dy <= radius; dy++) {
-                for (int dz = -radius; dz <= radius; dz++) {
-                    BlockPos p = origin.add(dx, dy, dz);
-                    if (targetBlacklistTicks.containsKey(p)) continue;
-                    Block b = client.world.getBlockState(p).getBlock();
-                    if (!targets.contains(b)) continue;
-                    if (!touchesAir(client, p)) continue;
-                    double d = squaredDistanceFromEye(client.player, p.getX() + 0.5, p.getY() + 0.5, p.getZ() + 0.5);
-                    if (d > maxDistSq) continue;
-
-                    // Skip blocks with no currently visible aim point (prevents counterproductive snap-to-test behavior)
-                    if (probeVisibleAim(client, p, faceAimIndex) == null) {
-                        targetBlacklistTicks.put(p, BLACKLIST_TICKS);
-                        continue;
-                    }
+        FlowField field = null;
+        java.util.ArrayList<BlockPos> stale = null;
+
+        for (int tier = 0; tier < TargetIndex.TIERS; tier++) {
+            Set<BlockPos> bucket = targetIndex.bucket(tier);
+            if (bucket.isEmpty()) continue;
+
+            // Closest within the tier (by walking cost first, so blocks in the player's own tunnel win)
+            BlockPos best = null;
+            VisibleAim bestAim = null;
+            double bestCost = Double.POSITIVE_INFINITY;
+            double bestDistSq = Double.MAX_VALUE;
+
+            for (BlockPos p : bucket) {
+                if (targetBlacklistTicks.containsKey(p)) continue;
+                // Client-side changes (predicted breaks) do not come through block update packets.
+                if (targets.tier(client.world.getBlockState(p)) != tier) {
+                    if (stale == null) stale = new java.util.ArrayList<>();
+                    stale.add(p);
+                    continue;
+                }
+
+                double d = squaredDistanceFromEye(client.player, p.getX() + 0.5, p.getY() + 0.5, p.getZ() + 0.5);
+                if (d > maxDistSq) continue;
 
-                    int t = priority(b);
-                    if (t < bestTier) bestTier = t;
+                // Skip blocks with no currently visible aim point (prevents counterproductive snap-to-test behavior)
+                VisibleAim va = probeVisibleAim(client, p, faceAimIndex);
+                if (va == null) {
+                    targetBlacklistTicks.put(p, BLACKLIST_TICKS);
+                    continue;
+                }
+
+                if (field == null) field = PathfindScript.flowField(client.player, radius + 1);
+                double cost = (field != null) ? field.reachCost(p, maxD) : 0.0;
+                if (cost < bestCost || (cost == bestCost && d < bestDistSq)) {
+                    bestCost = cost;
+                    bestDistSq = d;
+                    best = p;
+                    bestAim = va;
                 }
             }
+
+            if (stale != null) {
+                for (BlockPos p : stale) targetIndex.onBlockChanged(p.getX(), p.getY(), p.getZ());
+                stale.clear();
+            }
+
+            if (best != null) {
+                // Pre-lock the aim point so we do not need to "look at" the block to know the face.
+                currentTargetFace = bestAim.face;
+                lockedAimU = bestAim.u;
+                lockedAimV = bestAim.v;
+                faceAimIndex = bestAim.idx;
+                return best;
+            }
         }
+        return null;
+    }
 
-        if (bestTier == Integer.MAX_VALUE) return null;
-
-        // pass 2: closest within best tier
-        BlockPos best = null;
-        double bestDistSq = Double.MAX_VALUE;
-
-        for (int dx = -radius; dx <= radius; dx++) {
-            for (int dy = -radius; dy <= radius; dy++) {
-                for (int dz = -radius; dz <= radius; dz++) {
-                    BlockPos p = origin.add(dx, dy, dz);
-                    if (targetBlacklistTicks.containsKey(p)) continue;
-                    Block b = client.world.getBlockState(p).getBlock();
-                    if (!targets.contains(b)) continue;
-                    if (!touchesAir(client, p)) continue;
-                    if (priority(b) != bestTier) continue;
-
-                    double d = squaredDistanceFromEye(client.player, p.getX() + 0.5, p.getY() + 0.5, p.getZ() + 0.5);
-                    if (d > maxDistSq) continue;
-                    VisibleAim va = probeVisibleAim(client, p, faceAimIndex);
-                    if (va == null) {
-                        targetBlacklistTicks.put(p, BLACKLIST_TICKS);
-                        continue;
-                    }
+    /**
+     * Exposed target blocks (in targets, touching air) in the (2r+1)^3 window around the player's block,
+     * bucketed by BlockTiers tier.
+     *
+     * Built once by scanning the window; afterwards kept current from:
+     *   - player movement: when the anchor block moves, only the cells that entered the window are
+     *     scanned (a slab per moved axis) and bucket entries that left it are dropped,
+     *   - block update packets: the changed cell and its 6 neighbours (their exposure) are reclassified,
+     *   - chunk (re)sends: the window's cells in that chunk's columns (plus one for exposure) are
+     *     reclassified; chunks that do not touch the window are ignored,
+     *   - world changes, target-set changes and jumps further than the radius: rebuild.
+     * Selection is then a walk over the best non-empty bucket, so tick cost no longer grows with the
+     * window volume.
+     *
+     * Client thread only (ticks and block change events both run there).
+     */
+    private final class TargetIndex {
+        static final int TIERS = MITHRIL_TIERS.length + 1; // titanium shifts mithril tiers down by one
+
+        @SuppressWarnings("unchecked")
+        private final HashSet<BlockPos>[] buckets = new HashSet[TIERS];
+        private final BlockPos.Mutable scratch = new BlockPos.Mutable();
+
+        private net.minecraft.world.World world = null;
+        private boolean valid = false;
+        private int radius = 0;
+        private int ax, ay, az;
+
+        TargetIndex() {
+            for (int i = 0; i < TIERS; i++) buckets[i] = new HashSet<>();
+        }
+
+        void invalidate() {
+            valid = false;
+        }
+
+        Set<BlockPos> bucket(int tier) {
+            return buckets[tier];
+        }
 
-                    if (d < bestDistSq) {
-                        bestDistSq = d;
-                        best = p;
+        /** Follows the player's block position; rebuilds when needed. */
+        void update(MinecraftClient client, int radius) {
+            if (client.player == null || client.world == null) return;
+            BlockPos a = client.player.getBlockPos();
+            int x = a.getX(), y = a.getY(), z = a.getZ();
 
-                        // Pre-lock the aim point so we do not need to "look at" the block to know the face.
-                        currentTargetFace = va.face;
-                        lockedAimU = va.u;
-                        lockedAimV = va.v;
-                        faceAimIndex = va.idx;
+            if (!valid || world != client.world || this.radius != radius
+                    || Math.abs(x - ax) > radius || Math.abs(y - ay) > radius || Math.abs(z - az) > radius) {
+                rebuild(client.world, radius, x, y, z);
+                return;
+            }
+            if (x == ax && y == ay && z == az) return;
+
+            int ox = ax, oy = ay, oz = az;
+            ax = x;
+            ay = y;
+            az = z;
+
+            // Drop what left the window.
+            for (HashSet<BlockPos> b : buckets) b.removeIf(p -> !inWindow(p.getX(), p.getY(), p.getZ()));
+
+            // Scan what entered it: cells of the new window outside the old one.
+            for (int cx = x - radius; cx <= x + radius; cx++) {
+                boolean xIn = Math.abs(cx - ox) <= radius;
+                for (int cy = y - radius; cy <= y + radius; cy++) {
+                    boolean yIn = Math.abs(cy - oy) <= radius;
+                    if (xIn && yIn) {
+                        // Only the Z slab is new in this column.
+                        for (int cz = z - radius; cz <= Math.min(z + radius, oz - radius - 1); cz++) classify(cx, cy, cz);
+                        for (int cz = Math.max(z - radius, oz + radius + 1); cz <= z + radius; cz++) classify(cx, cy, cz);
+                    } else {
+                        for (int cz = z - radius; cz <= z + radius; cz++) classify(cx, cy, cz);
                     }
                 }
             }
         }
-        return best;
+
+        /** A block changed: it and its neighbours may have gained/lost target status or exposure. */
+        void onBlockChanged(int x, int y, int z) {
+            if (!valid) return;
+            classifyIfInWindow(x, y, z);
+            for (Direction d : Direction.values()) {
+                classifyIfInWindow(x + d.getOffsetX(), y + d.getOffsetY(), z + d.getOffsetZ());
+            }
+        }
+
+        /** A chunk was (re)sent: reclassify the part of the window it (or its exposure margin) covers. */
+        void onChunkChanged(int chunkX, int chunkZ) {
+            if (!valid) return;
+            int minX = Math.max((chunkX << 4) - 1, ax - radius), maxX = Math.min((chunkX << 4) + 16, ax + radius);
+            int minZ = Math.max((chunkZ << 4) - 1, az - radius), maxZ = Math.min((chunkZ << 4) + 16, az + radius);
+            if (minX > maxX || minZ > maxZ) return;
+
+            for (HashSet<BlockPos> b : buckets) {
+                b.removeIf(p -> p.getX() >= minX && p.getX() <= maxX && p.getZ() >= minZ && p.getZ() <= maxZ);
+            }
+            for (int cx = minX; cx <= maxX; cx++) {
+                for (int cy = ay - radius; cy <= ay + radius; cy++) {
+                    for (int cz = minZ; cz <= maxZ; cz++) classify(cx, cy, cz);
+                }
+            }
+        }
+
+        private void rebuild(net.minecraft.world.World w, int radius, int x, int y, int z) {
+            for (HashSet<BlockPos> b : buckets) b.clear();
+            world = w;
+            this.radius = radius;
+            ax = x;
+            ay = y;
+            az = z;
+            valid = true;
+            for (int cx = x - radius; cx <= x + radius; cx++) {
+                for (int cy = y - radius; cy <= y + radius; cy++) {
+                    for (int cz = z - radius; cz <= z + radius; cz++) classify(cx, cy, cz);
+                }
+            }
+        }
+
+        private boolean inWindow(int x, int y, int z) {
+            return Math.abs(x - ax) <= radius && Math.abs(y - ay) <= radius && Math.abs(z - az) <= radius;
+        }
+
+        private void classifyIfInWindow(int x, int y, int z) {
+            if (!inWindow(x, y, z)) return;
+            scratch.set(x, y, z);
+            for (HashSet<BlockPos> b : buckets) b.remove(scratch);
+            classify(x, y, z);
+        }
+
+        /** Adds the cell to its bucket if it is an exposed target (callers ensure it is not in one yet). */
+        private void classify(int x, int y, int z) {
+            scratch.set(x, y, z);
+            int tier = targets.tier(world.getBlockState(scratch));
+            if (tier < 0 || tier >= TIERS) return;
+            if (!touchesAir(world, scratch)) return;
+            buckets[tier].add(scratch.toImmutable());
+        }
     }
 
     // ---------------------------------------------------------------------
@@ -1182,26 +1430,20 @@ public final class MithrilMiningScript implements Script {
         long minInterval = 1_000_000_000L / Math.max(1, maxPerSec);
         if (now - lastCritLookNanos < minInterval) return;
 
-        CritEvent ev = pollClosestCrit(client, now);
-        if (ev == null) {
+        if (!pollClosestCrit(client, now)) {
             if (Settings.isDebugMessages()) debug(client, "CRIT none q=" + getCritQueueSize());
             return;
         }
-
-        long ageMs = (now - ev.tNanos) / 1_000_000L;
-        if (ageMs > Settings.getCritMaxAgeMs()) return;
-
-        double distSq = squaredDistanceFromEye(client.player, ev.x, ev.y, ev.z);
-        double maxD = Settings.getCritMaxDistance();
-        if (distSq > maxD * maxD) return;
+        // Age and distance were checked by the ring.
+        double cx = CRITS.x(), cy = CRITS.y(), cz = CRITS.z();
 
         // Begin a short look animation
-        float[] yp = computeYawPitchToPoint(client, ev.x, ev.y, ev.z);
+        float[] yp = computeYawPitchToPoint(client, cx, cy, cz);
         beginRotation(client.player.getYaw(), client.player.getPitch(), yp[0], yp[1]);
         lastCritLookNanos = now;
-        lastCritPos = new Vec3d(ev.x, ev.y, ev.z);
+        lastCritPos = new Vec3d(cx, cy, cz);
         lastCritSeenNanos = now;
-        if (Settings.isDebugMessages()) debug(client, "CRIT aim (" + fmt3(ev.x) + "," + fmt3(ev.y) + "," + fmt3(ev.z) + ")");
+        if (Settings.isDebugMessages()) debug(client, "CRIT aim (" + fmt3(cx) + "," + fmt3(cy) + "," + fmt3(cz) + ")");
     }
 
     // ---------------------------------------------------------------------
@@ -1214,7 +1456,37 @@ public final class MithrilMiningScript implements Script {
         client.player.sendMessage(Text.literal("[Mithril Miner] " + msg), false);
     }
 
-    // Active instance used by render hook (Fabric events are static)
+    // Active instance whose overlay layer is drawn and whose target index follows block changes
     private static volatile MithrilMiningScript ACTIVE_INSTANCE = null;
-    private static volatile boolean RENDER_HOOK_REGISTERED = false;
+    private static boolean CHANGE_HOOK_REGISTERED = false;
+
+    private static void ensureChangeHook() {
+        if (CHANGE_HOOK_REGISTERED) return;
+        CHANGE_HOOK_REGISTERED = true;
+
+        BlockChangeEvents.BLOCK_CHANGED.register((x, y, z) -> {
+            MithrilMiningScript inst = ACTIVE_INSTANCE;
+            if (inst == null) return;
+            inst.targetIndex.onBlockChanged(x, y, z);
+            inst.visibility.onBlockChanged(x, y, z);
+        });
+        BlockChangeEvents.CHUNK_CHANGED.register((chunkX, chunkZ) -> {
+            MithrilMiningScript inst = ACTIVE_INSTANCE;
+            if (inst == null) return;
+            inst.targetIndex.onChunkChanged(chunkX, chunkZ);
+            inst.visibility.onChunkChanged(chunkX, chunkZ);
+        });
+    }
+
+    private static final long OVERLAY_TARGET_ID = 0L;
+    private static final long OVERLAY_CURSOR_ID = 1L;
+    private static final long OVERLAY_CRIT_ID = 2L;
+    private static final WorldOverlay.Layer OVERLAY = WorldOverlay.layer("mithril");
+
+    static {
+        OVERLAY.setVisibleWhen(() -> {
+            MithrilMiningScript inst = ACTIVE_INSTANCE;
+            return inst != null && inst.enabled && Settings.isMithrilMinerEnabled();
+        });
+    }
 }
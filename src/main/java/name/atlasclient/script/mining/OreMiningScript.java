@@ -1,11 +1,10 @@
 package name.atlasclient.script.mining;
 
+import name.atlasclient.pathing.FlowField;
 import name.atlasclient.script.Script;
-import net.minecraft.block.Block;
+import name.atlasclient.script.misc.PathfindScript;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.network.ClientPlayerEntity;
-import net.minecraft.registry.Registries;
-import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
 
@@ -15,6 +14,7 @@ public final class OreMiningScript implements Script {
     private boolean enabled = false;
 
     private static final int DEFAULT_RADIUS = 4;
+    private static final double MINE_REACH = 4.5; // survival block reach from the eye
     private static final int WALKAWAY_DIST_SQ = 9;
     private static final int BLOCK_TIMEOUT_TICKS = 80;
     private static final float LOOK_STEP_DEG = 6.0f;
@@ -42,7 +42,7 @@ public final class OreMiningScript implements Script {
 
     private OreChoice selected = OreChoice.COAL;
 
-    private final Set<Block> targets = new HashSet<>();
+    private BlockTiers targets = BlockTiers.of();
 
     private Vec3d startPos = null;
     private BlockPos currentTarget = null;
@@ -62,15 +62,8 @@ public final class OreMiningScript implements Script {
     }
 
     private void rebuildTargets() {
-        targets.clear();
-        if (selected.oreId != null) addTarget(selected.oreId);
-        if (selected.blockId != null) addTarget(selected.blockId);
-
-    }
-
-    private void addTarget(String id) {
-        Block b = Registries.BLOCK.get(Identifier.of(id));
-        if (b != null) targets.add(b);
+        // Single tier: the ore and its block (null ids are skipped).
+        targets = BlockTiers.of(new String[] { selected.oreId, selected.blockId });
     }
 
     @Override public String id() { return "ore_miner"; }
@@ -143,7 +136,7 @@ public final class OreMiningScript implements Script {
     }
 
     private boolean isStillTarget(MinecraftClient client, BlockPos pos) {
-        if (!targets.contains(client.world.getBlockState(pos).getBlock())) return false;
+        if (!targets.contains(client.world.getBlockState(pos))) return false;
         return touchesAir(client, pos);
     }
 
@@ -159,17 +152,23 @@ public final class OreMiningScript implements Script {
     private BlockPos findNearestTarget(MinecraftClient client, int radius) {
         BlockPos origin = client.player.getBlockPos();
         BlockPos best = null;
+        double bestCost = Double.POSITIVE_INFINITY;
         double bestDistSq = Double.MAX_VALUE;
 
+        // Walking cost first (ore in the player's own tunnel before ore behind a wall), then distance.
+        FlowField field = PathfindScript.flowField(client.player, radius + 1);
+
         for (int dx = -radius; dx <= radius; dx++) {
             for (int dy = -radius; dy <= radius; dy++) {
                 for (int dz = -radius; dz <= radius; dz++) {
                     BlockPos p = origin.add(dx, dy, dz);
-                    if (!targets.contains(client.world.getBlockState(p).getBlock())) continue;
+                    if (!targets.contains(client.world.getBlockState(p))) continue;
                     if (!touchesAir(client, p)) continue;
 
                     double d = client.player.squaredDistanceTo(p.getX() + 0.5, p.getY() + 0.5, p.getZ() + 0.5);
-                    if (d < bestDistSq) {
+                    double cost = (field != null) ? field.reachCost(p, MINE_REACH) : 0.0;
+                    if (cost < bestCost || (cost == bestCost && d < bestDistSq)) {
+                        bestCost = cost;
                         bestDistSq = d;
                         best = p;
                     }
@@ -0,0 +1,48 @@
+package name.atlasclient.script.misc;
+
+import name.atlasclient.pathing.ArrayNavGrid;
+import name.atlasclient.pathing.BlockSnapshot;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * In-game side of the planner benchmark: /pathbench dump x y z writes the box PathfindScript would plan
+ * in as an ArrayNavGrid dump. The comparison itself (AStar against the original object-based A* and the
+ * other planners) runs offline in the JMH suite (src/jmh, PlannerBenchmark).
+ */
+public final class PathfindBenchmark {
+
+    private static final String DUMP_DIR = "atlas-navdumps";
+
+    // The box PathfindScript plans in.
+    private static final int SNAPSHOT_MARGIN_XZ = PathfindScript.SNAPSHOT_MARGIN_XZ;
+    private static final int SNAPSHOT_MARGIN_Y = PathfindScript.SNAPSHOT_MARGIN_Y;
+
+    private PathfindBenchmark() {}
+
+    /** Captures the box a plan from start to goal would read and writes it to <game dir>/atlas-navdumps; returns the file. */
+    public static Path dump(World world, BlockPos start, BlockPos goal) throws IOException {
+        BlockSnapshot snap = BlockSnapshot.capture(world, start, goal, SNAPSHOT_MARGIN_XZ, SNAPSHOT_MARGIN_Y);
+
+        int minY = Math.max(world.getBottomY(), Math.min(start.getY(), goal.getY()) - SNAPSHOT_MARGIN_Y);
+        int maxY = Math.min(world.getTopYInclusive(), Math.max(start.getY(), goal.getY()) + SNAPSHOT_MARGIN_Y);
+        ArrayNavGrid grid = ArrayNavGrid.copyOf(snap,
+                Math.min(start.getX(), goal.getX()) - SNAPSHOT_MARGIN_XZ, minY, Math.min(start.getZ(), goal.getZ()) - SNAPSHOT_MARGIN_XZ,
+                Math.max(start.getX(), goal.getX()) + SNAPSHOT_MARGIN_XZ, maxY, Math.max(start.getZ(), goal.getZ()) + SNAPSHOT_MARGIN_XZ);
+
+        Path dir = FabricLoader.getInstance().getGameDir().resolve(DUMP_DIR);
+        Files.createDirectories(dir);
+        Path file = dir.resolve("navdump-" + start.getX() + "_" + start.getY() + "_" + start.getZ()
+                + "-" + goal.getX() + "_" + goal.getY() + "_" + goal.getZ() + ".navdump.gz");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            grid.write(out, start, goal);
+        }
+        return file;
+    }
+}
@@ -1,25 +1,31 @@
 package name.atlasclient.script.misc;
 
+import name.atlasclient.AtlasClient;
 import name.atlasclient.config.Rotation;
+import name.atlasclient.pathing.AStar;
+import name.atlasclient.pathing.BlockSnapshot;
+import name.atlasclient.pathing.DStarLite;
+import name.atlasclient.pathing.FlowField;
+import name.atlasclient.pathing.JumpPointSearch;
+import name.atlasclient.pathing.Landmarks;
+import name.atlasclient.pathing.NavCache;
+import name.atlasclient.pathing.NavGrid;
+import name.atlasclient.pathing.NavRay;
+import name.atlasclient.pathing.PassabilityTable;
+import name.atlasclient.pathing.PathIndex;
+import name.atlasclient.pathing.PathOverlay;
+import name.atlasclient.pathing.PathWatch;
+import name.atlasclient.pathing.RegionRouter;
+import name.atlasclient.pathing.Waypoints;
 import name.atlasclient.script.Script;
-import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderContext;
-import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderEvents;
+import name.atlasclient.world.BlockChangeEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientChunkEvents;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.network.ClientPlayerEntity;
-import net.minecraft.client.render.BufferBuilder;
-import net.minecraft.client.render.RenderLayer;
-import net.minecraft.client.render.VertexConsumer;
-import net.minecraft.client.render.VertexConsumerProvider;
-import net.minecraft.client.render.VertexFormats;
-import net.minecraft.client.render.WorldRenderer;
-import net.minecraft.client.render.debug.DebugRenderer;
-import net.minecraft.client.util.math.MatrixStack;
-import com.mojang.blaze3d.systems.RenderSystem;
 import net.minecraft.text.Text;
 import net.minecraft.util.Hand;
 import net.minecraft.util.hit.HitResult;
 import net.minecraft.util.math.*;
-import org.joml.Matrix4f;
 import net.minecraft.util.shape.VoxelShape;
 import net.minecraft.world.RaycastContext;
 import net.minecraft.world.World;
@@ -27,6 +33,14 @@ import net.minecraft.world.World;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
 
 /**
  * PathfindScript
@@ -64,7 +78,7 @@ public final class PathfindScript implements Script {
         this.enabled = enabled;
         if (enabled) {
             ACTIVE_INSTANCE = this;
-            ensureRenderHook();
+            ensureChangeHook();
         } else {
             if (ACTIVE_INSTANCE == this) ACTIVE_INSTANCE = null;
             releaseKeys();
@@ -103,6 +117,11 @@ public final class PathfindScript implements Script {
     private BlockPos cachedLosTarget = null;
     private int losRetargetCooldown = 0;
 
+    // String-pulled segments of currentPath (null: follow with the LOS search).
+    private Waypoints currentWaypoints = null;
+    // Spatial index of currentPath for the following queries; see pathIndex().
+    private PathIndex currentPathIndex = null;
+
     private final List<BlockPos> routeCheckpoints = new ArrayList<>();
     private int checkpointIndex = 0;
     private boolean checkpointsReady = false;
@@ -111,6 +130,52 @@ public final class PathfindScript implements Script {
     private int offPathRepathCooldown = 0;
     private boolean forceRepathNow = false;
 
+    // Cells the current path depends on; block changes on them (fed from ensureChangeHook) trigger the repath.
+    private final PathWatch pathWatch = new PathWatch();
+
+    // Async planning handoff (worker -> client thread). Generation is bumped whenever the
+    // destination changes so results planned for an old goal are dropped instead of applied.
+    private Future<PlanResult> inFlightPlan = null;
+    private long planGeneration = 0L;
+
+    // Time-sliced search (client thread) and whether currentPath is only its best partial path so far
+    private final AStar.Resumable slicedPlan = new AStar.Resumable();
+    private BlockSnapshot slicedPlanSnapshot = null; // what the search reads; its paths are pulled against it too
+    private BlockPos slicedPlanGoal = null;
+    private long slicedPlanWatchSeq = 0L;
+    private boolean slicedPlanBootstrap = false; // only until it yields a walkable partial; the worker plans the rest
+    private boolean currentPathPartial = false;
+    private double partialPathH = Double.MAX_VALUE;
+
+    // navigateToAny: the running multi-goal search, its targets (centers + snapped cells) and the current pick
+    private Future<List<BlockPos>> inFlightAny = null;
+    private BlockSnapshot.Capture anyCapture = null; // copied a few chunks per tick before the search is submitted
+    private BlockPos anyStart = null;
+    private double[] anyBonus = null;
+    private List<Vec3d> anyTargets = null;
+    private List<BlockPos> anyGoals = null;
+    private int anyChosen = -1;
+    private IntConsumer onAnyChosen = null;
+
+    // Incremental planning session (goal + the two corners its fixed snapshot box is built from)
+    private BlockPos incrementalGoal = null;
+    private BlockPos sessionA = null;
+    private BlockPos sessionB = null;
+
+    // Macro route (RegionRouter waypoints toward finalTargetBlock; planned on the worker)
+    private List<BlockPos> macroRoute = Collections.emptyList();
+    private BlockPos macroRouteGoal = null;
+    private int macroRouteIndex = 0;
+    private Future<List<BlockPos>> inFlightRoute = null;
+    private BlockPos inFlightRouteGoal = null;
+    private BlockSnapshot.Capture routeCapture = null; // copied a few chunks per tick before the route is planned
+    private BlockPos routeCaptureStart = null;
+    private int routeRequestCooldown = 0;
+
+    // Next-segment plan computed while the current segment is walked (see SEGMENT_PREFETCH)
+    private SegmentPrefetch prefetch = null;
+    private int prefetchCooldown = 0;
+
     private Runnable onArrived = null;
 
     // Desired input states
@@ -147,8 +212,13 @@ public final class PathfindScript implements Script {
     private int trackedStepAttemptTimer = 0;
     private int trackedStepFailCount = 0;
 
-    // Render hook
-    private static boolean RENDER_HOOK_REGISTERED = false;
+    // World overlay (shared "pathfind" layer)
+    private final PathOverlay overlay = new PathOverlay(
+            () -> ACTIVE_INSTANCE != null && ACTIVE_INSTANCE.enabled, RENDER_MAX_WHITE_NODES, BOX_EXPAND,
+            H_R, H_G, H_B, CONNECTED_ALPHA, TARGET_ALPHA,
+            BLOCK_R, BLOCK_G, BLOCK_B, BLOCK_ALPHA,
+            PATH_R, PATH_G, PATH_B, PATH_A,
+            PathfindScript::renderPos, PathfindScript::buildVisibleSegmentPoints);
 
     // Visuals: match HubForagingScript highlight
     private static final float H_R = 0.35f;
@@ -163,17 +233,8 @@ public final class PathfindScript implements Script {
     private static final float BLOCK_G = PATH_G;
     private static final float BLOCK_B = PATH_B;
     private static final float BLOCK_ALPHA = 0.50f;
-    private static final float NODE_RADIUS = 0.24f;
-    private static final int NODE_SEGS = 16;
     private static final double FLOOR_RIBBON_Y_OFFSET = 0.02; // visible above floor
 
-    // Path polyline rendering: draw dense tiny boxes (DebugRenderer.drawBox) along segments.
-    // This uses the same debug renderer pipeline as HubForagingScript highlights, which
-    // yields consistent perceived color/opacity vs. the RenderLayer.getLines() pipeline.
-    private static final float PATH_SEGMENT_ALPHA = 0.55f;
-    private static final float PATH_DOT_HALF_EXTENT = 0.08f; // smaller looks like a line, not blocks
-    private static final double PATH_DOT_STEP = 0.12;        // sampling density along segment
-
     // Camera rotation smoothing
     private static final float YAW_DEADZONE_DEG = 3.0f;
     private static final int LOS_RETARGET_COOLDOWN_TICKS = 5;
@@ -187,6 +248,7 @@ public final class PathfindScript implements Script {
     // ---------------------------------------------------------------------
 
     public void navigateTo(Vec3d targetCenter) {
+        clearAnySearch();
         this.finalTargetCenter = targetCenter;
         this.finalTargetBlock = blockFromCenter(targetCenter);
 
@@ -197,7 +259,12 @@ public final class PathfindScript implements Script {
         this.checkpointIndex = 0;
         this.checkpointsReady = false;
 
+        invalidatePendingPlan();
+        clearMacroRoute();
         resetPathState();
+
+        // Plan (and, with time slicing, start walking) on the very next tick instead of waiting for the cadence.
+        forceRepathNow = true;
     }
 
     public void navigateTo(BlockPos targetBlock) {
@@ -205,7 +272,70 @@ public final class PathfindScript implements Script {
         navigateTo(center);
     }
 
+    /**
+     * Navigates to whichever target is cheapest to walk to, found with one multi-goal search instead of one
+     * search per target. bonusCosts (optional, blocks of walking) is added to the matching target's cost.
+     *
+     * Walking starts at once toward the straight-line nearest target; when the search lands it re-targets
+     * if another one is cheaper. onChosen receives the index of the current target each time it is picked.
+     */
+    public void navigateToAny(List<Vec3d> targetCenters, double[] bonusCosts, IntConsumer onChosen) {
+        if (targetCenters == null || targetCenters.isEmpty()) return;
+
+        MinecraftClient mc = MinecraftClient.getInstance();
+        ClientPlayerEntity player = (mc != null) ? mc.player : null;
+
+        int first = 0;
+        if (player != null) {
+            Vec3d pos = player.getPos();
+            double best = Double.MAX_VALUE;
+            for (int i = 0; i < targetCenters.size(); i++) {
+                double bonus = (bonusCosts != null && i < bonusCosts.length) ? bonusCosts[i] : 0.0;
+                double d = Math.sqrt(targetCenters.get(i).squaredDistanceTo(pos)) + bonus;
+                if (d < best) {
+                    best = d;
+                    first = i;
+                }
+            }
+        }
+
+        navigateTo(targetCenters.get(first));
+        if (onChosen != null) onChosen.accept(first);
+        if (player == null || mc.world == null || targetCenters.size() < 2) return;
+
+        World world = mc.world;
+        BlockPos start = standableStart(world, player);
+        if (start == null) return;
+
+        // Goals are snapped like the start (anchors are often a block off the floor); far ones stay in the
+        // list (indices match targetCenters) but out of the box, and beginAny skips them by the same test.
+        List<BlockPos> goals = new ArrayList<>(targetCenters.size());
+        int minX = start.getX(), minY = start.getY(), minZ = start.getZ();
+        int maxX = minX, maxY = minY, maxZ = minZ;
+        for (Vec3d c : targetCenters) {
+            BlockPos g = blockFromCenter(c);
+            BlockPos snapped = snapStartToStandable(world, g);
+            if (snapped != null) g = snapped;
+            goals.add(g);
+            if (!AStar.inAnyRange(start, g, ANY_MAX_RANGE)) continue;
+            minX = Math.min(minX, g.getX()); minY = Math.min(minY, g.getY()); minZ = Math.min(minZ, g.getZ());
+            maxX = Math.max(maxX, g.getX()); maxY = Math.max(maxY, g.getY()); maxZ = Math.max(maxZ, g.getZ());
+        }
+
+        // Up to ~33x33 chunks: copied over the next ticks (the straight-line pick is walked meanwhile).
+        anyCapture = BlockSnapshot.begin(world, new BlockPos(minX, minY, minZ), new BlockPos(maxX, maxY, maxZ),
+                SNAPSHOT_MARGIN_XZ, SNAPSHOT_MARGIN_Y);
+        anyStart = start;
+        anyBonus = (bonusCosts != null) ? bonusCosts.clone() : null;
+        anyTargets = new ArrayList<>(targetCenters);
+        anyGoals = goals;
+        anyChosen = first;
+        onAnyChosen = onChosen;
+        stepAnyCapture(world);
+    }
+
     public void cancelNavigation() {
+        clearAnySearch();
         this.finalTargetCenter = null;
         this.finalTargetBlock = null;
 
@@ -216,6 +346,8 @@ public final class PathfindScript implements Script {
         this.checkpointIndex = 0;
         this.checkpointsReady = false;
 
+        invalidatePendingPlan();
+        clearMacroRoute();
         resetPathState();
         releaseKeys();
     }
@@ -260,25 +392,82 @@ public final class PathfindScript implements Script {
     private static final int REPATH_EVERY_TICKS = 10;
     private static final int OFFPATH_REPATH_COOLDOWN_TICKS = 35;
 
+    // Event-driven repath: a full path is only replanned when a block on it changes (PathWatch), the player
+    // leaves its corridor, or the slow safety cadence runs out. Empty/partial paths keep REPATH_EVERY_TICKS.
+    private static final boolean EVENT_DRIVEN_REPATH = true;
+    private static final int SAFETY_REPATH_TICKS = 100;
+    private static final double PATH_DEVIATION_MAX_DIST = 2.0;
+    private static final int DEVIATION_REPATH_COOLDOWN_TICKS = 10;
+
     // A*
-    private static final int MAX_ITERATIONS = 40_000;
-    private static final int MAX_RANGE = 170;
+    static final int MAX_ITERATIONS = 40_000;
+    static final int MAX_RANGE = 170;
+
+    // Async planning: A* runs on a worker thread against a BlockSnapshot and the result is swapped in
+    // on a later tick. The snapshot covers start/goal plus a margin; cells outside read as void air.
+    private static final boolean ASYNC_PLANNING = true;
+    static final int SNAPSHOT_MARGIN_XZ = 32;
+    static final int SNAPSHOT_MARGIN_Y = 16;
+
+    // Time-sliced planning: a resumable A* stepped on the client thread for at most PLAN_SLICE_BUDGET_NANOS
+    // per tick, keeping its frontier between ticks. The best partial path is walked while it runs.
+    // With ASYNC_PLANNING it only bootstraps a fresh destination (nothing to walk yet), on the worker's
+    // snapshot, until its first walkable partial; without it, it replaces the blocking synchronous search.
+    private static final boolean TIME_SLICED_PLANNING = true;
+    private static final long PLAN_SLICE_BUDGET_NANOS = 2_000_000L;
+    private static final double PARTIAL_ADOPT_MIN_GAIN = 2.0; // heuristic blocks closer before re-adopting
+
+    // Incremental planning: D* Lite keeps its search between replans toward the same segment goal and only
+    // repairs what the player's movement or changed cells (block packets, avoided step-ups) invalidated.
+    // The snapshot box is fixed per session so cells never appear or vanish behind the planner's back.
+    // AStar is the fallback when the incremental search is cut short (iteration cap, interrupt), not when
+    // it settles that there is no path. Opt-in: D* Lite keys on AStar.octileHeuristic, which expands more
+    // than AStar.find's estimate and can settle on a cheaper but different path than the default planner.
+    private static final boolean INCREMENTAL_PLANNING = false;
+    private static final int MAX_PENDING_CELL_CHANGES = 8192;
+
+    // Same-Y trips try JPS first (see JumpPointSearch); step-ups/drops/wall-adjacent routes fall through,
+    // and so does a layer path costing over JPS_MAX_DETOUR times the octile distance (a 3D route may cut it).
+    private static final boolean JPS_FAST_PATH = true;
+    static final double JPS_MAX_DETOUR = 1.2;
+
+    // navigateToAny: one multi-goal A* over a snapshot spanning the start and every target within range.
+    private static final int ANY_MAX_RANGE = 256;
+    private static final int ANY_MAX_ITERATIONS = 150_000;
+    private static final int ANY_CAPTURE_CHUNKS_PER_TICK = 32;
+
+
+    // Landmark (ALT) heuristic: per-island distance tables built from NavStore in the background (see
+    // Landmarks); A* takes the larger of its octile estimate and the landmark bound.
+    private static final boolean ALT_HEURISTIC = true;
 
     // Macro segments
     // Long-distance friendliness (requested: 100 block radius)
     private static final int MACRO_STEP = 100;
     private static final int MACRO_SNAP_SEARCH_RADIUS = 10;
 
-    // Movement topology
-    private static final boolean ALLOW_DIAGONALS = true;
-    private static final boolean ALLOW_STEP_UP   = true;
+    // Macro routing: long trips follow a RegionRouter route over 16^3 regions; the straight-line projection
+    // below is only used until the first route lands (or when no route can be found).
+    private static final boolean MACRO_ROUTING = true;
+    private static final int ROUTE_MAX_RADIUS_XZ = 256; // about the loaded area; farther goals get a partial route
+    private static final int ROUTE_SNAPSHOT_MARGIN_XZ = 16;
+    private static final int ROUTE_SNAPSHOT_MARGIN_Y = 24;
+    private static final int ROUTE_MIN_WAYPOINT_DIST = 12;
+    private static final int ROUTE_REQUEST_COOLDOWN_TICKS = 20;
+    private static final int ROUTE_CAPTURE_CHUNKS_PER_TICK = 32; // ~1.2k chunks at full radius: ~2 s of ticks
+
+    // Segment prefetch: once the player is within SEGMENT_PREFETCH_LEAD_DIST of a (non-final) segment end,
+    // the next segment is planned on the worker from that end, so the boundary hands straight over to it.
+    private static final boolean SEGMENT_PREFETCH = true;
+    private static final int SEGMENT_PREFETCH_LEAD_DIST = 48;
+    private static final int SEGMENT_PREFETCH_RETRY_TICKS = 40;
 
-    private static final boolean ALLOW_DROP_DOWN = true;
-    private static final int MAX_DROP_DOWN = 4;
-    private static final int DROP_ESCAPE_SEARCH_LIMIT = 200;
-    private static final int DROP_ESCAPE_MAX_RADIUS = 9;
+    // Movement topology
+    private static final boolean ALLOW_DIAGONALS = AStar.ALLOW_DIAGONALS;
+    private static final boolean ALLOW_STEP_UP   = AStar.ALLOW_STEP_UP;
 
-    private static final boolean AVOID_FLUIDS = true;
+    private static final boolean ALLOW_DROP_DOWN = AStar.ALLOW_DROP_DOWN;
+    private static final int MAX_DROP_DOWN = AStar.MAX_DROP_DOWN;
 
     // Checkpoints
     private static final int CHECKPOINT_EVERY_N_NODES = 40;
@@ -288,15 +477,9 @@ public final class PathfindScript implements Script {
 
     // Rendering (visible)
     private static final int RENDER_MAX_WHITE_NODES = 220;
-    // Maximum number of corner marker blocks to render for a path (start/end included).
-    private static final int CORNER_MARK_MAX = 64;
     // Render checkpoint boxes one block lower than the walk target.
     private static final boolean RENDER_ONE_Y_LOWER = true;
 
-    private static final float WHITE_R = 0.0f, WHITE_G = 1.0f, WHITE_B = 1.0f, WHITE_A = 0.55f; // aqua
-private static final float GOAL_R  = 0.0f, GOAL_G  = 1.0f, GOAL_B  = 1.0f, GOAL_A  = 0.80f; // aqua
-private static final float DEST_R  = 0.0f, DEST_G  = 1.0f, DEST_B  = 1.0f, DEST_A  = 0.80f; // aqua
-
     // Visual overlay: target is ~1.01x a block (avoid 1.1x-1.2x appearance).
     // Box.expand(e) expands on both sides: final size = 1.0 + 2e.
     // 1.0 + 2e = 1.01 => e = 0.005.
@@ -311,8 +494,8 @@ private static final float DEST_R  = 0.0f, DEST_G  = 1.0f, DEST_B  = 1.0f, DEST_
     private static final int STEPUP_FAIL_MAX_ATTEMPTS = 3;
     private static final int STEPUP_ATTEMPT_TIMEOUT_TICKS = 26; // ~1.3s
 
-    // Clearance for slab-ish blocks
-    private static final double BODY_CLEARANCE_MIN_Y = 0.60;
+    // Clearance for slab-ish blocks (same rule the planner's PassabilityTable uses)
+    private static final double BODY_CLEARANCE_MIN_Y = PassabilityTable.BODY_CLEARANCE_MIN_Y;
 
     // Start snap
     private static final int START_SNAP_MAX_VERTICAL = 2;
@@ -323,14 +506,20 @@ private static final float DEST_R  = 0.0f, DEST_G  = 1.0f, DEST_B  = 1.0f, DEST_
     private static final float YAW_STEP_FAST   = 18.0f;
 
     // LOS steering
-    private static final int LOS_LOOKAHEAD_MAX_NODES = 18;
+    private static final int LOS_LOOKAHEAD_MAX_NODES = Waypoints.LOS_LOOKAHEAD_MAX_NODES;
     private static final double LOS_EYE_HEIGHT = 1.62;
 
     // Corridor safety
     // Keep this fairly strict; too-lenient corridor acceptance causes "arrival" under/aside the goal and
     // encourages early corner cutting that can lead to falling off ledges.
-    private static final double CORRIDOR_MAX_DIST_TO_PATH = 0.60;
-    private static final double CORRIDOR_SAMPLE_STEP = 0.45;
+    private static final double CORRIDOR_MAX_DIST_TO_PATH = Waypoints.CORRIDOR_MAX_DIST_TO_PATH;
+    private static final double CORRIDOR_SAMPLE_STEP = Waypoints.CORRIDOR_SAMPLE_STEP;
+
+    // String pulling: each plan is pulled once into straight body-safe segments (Waypoints), which the
+    // follower aims along with no per-tick traversal. The LOS search above is only the fallback off the corridor.
+    private static final boolean STRING_PULLING = true;
+    // Partial paths (replaced every few ticks while a sliced search runs) are only pulled this far.
+    private static final int PARTIAL_PULL_MAX_NODES = 2 * LOS_LOOKAHEAD_MAX_NODES;
 
     // Off-path sensitivity (less trigger-happy)
     private static final double OFFPATH_MAX_DIST = 4.5;
@@ -350,7 +539,7 @@ private static final float DEST_R  = 0.0f, DEST_G  = 1.0f, DEST_B  = 1.0f, DEST_
     public void onEnable(MinecraftClient client) {
         // Ensure state is safe on enable; avoid jump spam right after enabling.
         jumpGraceTicks = JUMP_GRACE_TICKS_ON_START;
-        ensureRenderHook();
+        ensureChangeHook();
     }
 
     @Override
@@ -364,6 +553,10 @@ private static final float DEST_R  = 0.0f, DEST_G  = 1.0f, DEST_B  = 1.0f, DEST_
         // Atlas ScriptManager ticks scripts via onTick(...).
         // Delegate to the existing run(...) tick loop to preserve behavior.
         run(client);
+        if (ACTIVE_INSTANCE == this) {
+            overlay.sync(currentPath, routeCheckpoints, finalTargetBlock, currentSegmentGoal, pathNodeIndex,
+                    (client != null) ? client.world : null);
+        }
     }
 
 
@@ -389,11 +582,19 @@ private static final float DEST_R  = 0.0f, DEST_G  = 1.0f, DEST_B  = 1.0f, DEST_
             navigateTo(DEFAULT_TARGET_CENTER);
         }
 
+        // navigateToAny: switch targets before anything below plans toward the old one.
+        pollAnySearch();
+        stepAnyCapture(world);
+
         // Cooldowns
         if (offPathRepathCooldown > 0) offPathRepathCooldown--;
         if (aoteCooldownTicks > 0) aoteCooldownTicks--;
+        if (routeRequestCooldown > 0) routeRequestCooldown--;
+        if (prefetchCooldown > 0) prefetchCooldown--;
 
-        BlockPos startFeet = snapStartToStandable(world, feetBlock(player));
+        stepRouteCapture(world);
+
+        BlockPos startFeet = standableStart(world, player);
         if (startFeet == null) {
             releaseKeys();
             return;
@@ -421,63 +622,99 @@ private static final float DEST_R  = 0.0f, DEST_G  = 1.0f, DEST_B  = 1.0f, DEST_
                 checkpointIndex++;
             } else {
                 // End of current segment
+                boolean handedOver = false;
                 if (segmentEnd.equals(finalTargetBlock)) {
                     // We'll finish when stop-goal triggers (stricter).
                 } else {
-                    // Advance macro segment.
-                    macroGoalBlock = null;
-                    macroGoalCenter = null;
+                    // Advance macro segment (onto the prefetched next one when it was planned in time).
+                    handedOver = advanceMacroSegment(segmentEnd);
+                    if (handedOver) {
+                        segmentEnd = macroGoalBlock;
+                        currentSegmentGoal = getCurrentCheckpointGoal(segmentEnd);
+                    }
+                }
+                if (!handedOver) {
+                    // Force fresh path/checkpoints for the next segment.
+                    checkpointsReady = false;
+                    currentPath = Collections.emptyList();
+                    currentWaypoints = null;
+                    pathNodeIndex = 0;
+                    pathWatch.clear();
                 }
-                // Force fresh path/checkpoints for the next segment.
-                checkpointsReady = false;
-                currentPath = Collections.emptyList();
-                pathNodeIndex = 0;
             }
         }
 
+        // Adopt a finished async plan (dropped if the goal changed while it was computing).
+        pollAsyncPlan();
+
+        if (SEGMENT_PREFETCH) {
+            pollSegmentPrefetch();
+            maybePrefetchNextSegment(world, startFeet, segmentEnd);
+        }
+
+        if (ALT_HEURISTIC) Landmarks.tick(startFeet);
+
         // Repath triggers
+        boolean watched = EVENT_DRIVEN_REPATH && !currentPath.isEmpty() && !currentPathPartial;
         boolean shouldRepath = forceRepathNow;
         if (!shouldRepath) {
             ticksSinceLastPath++;
-            if (ticksSinceLastPath >= REPATH_EVERY_TICKS) shouldRepath = true;
+            if (watched) {
+                if (pathWatch.consumeDirty() || ticksSinceLastPath >= SAFETY_REPATH_TICKS) shouldRepath = true;
+            } else if (ticksSinceLastPath >= REPATH_EVERY_TICKS) {
+                shouldRepath = true;
+            }
         }
 
         if (!shouldRepath && offPathRepathCooldown <= 0) {
-            if (isOffPath(player.getPos(), currentPath, pathNodeIndex, OFFPATH_MAX_DIST)) {
+            // Without the fixed cadence small drifts are no longer corrected for free, so the corridor is tighter.
+            double maxDist = watched ? PATH_DEVIATION_MAX_DIST : OFFPATH_MAX_DIST;
+            if (isOffPath(player.getPos(), pathNodeIndex, maxDist)) {
                 shouldRepath = true;
-                offPathRepathCooldown = OFFPATH_REPATH_COOLDOWN_TICKS;
+                offPathRepathCooldown = watched ? DEVIATION_REPATH_COOLDOWN_TICKS : OFFPATH_REPATH_COOLDOWN_TICKS;
             }
         }
 
         if (shouldRepath) {
+            boolean forced = forceRepathNow;
             forceRepathNow = false;
             ticksSinceLastPath = 0;
+            // Whatever replaces the path is watched from its own capture point.
+            pathWatch.consumeDirty();
 
             // Compute fresh path to the current checkpoint goal.
             BlockPos goal = (currentSegmentGoal != null) ? currentSegmentGoal : segmentEnd;
-            List<BlockPos> raw;
 
             // Direct-path shortcut: if the corridor is clear and walkable (common in superflat / open fields),
             // skip A* and generate a straight-line path to eliminate unnecessary diagonal-then-straight patterns.
             if (isDirectWalkable(world, startFeet, goal)) {
-                raw = buildDirectLinePath(startFeet, goal);
+                invalidatePendingPlan();
+                cancelSlicedPlan();
+                // No snapshot here: pulled against NavCache's flags (no block-state lookups); a straight
+                // line only checks a few segments.
+                List<BlockPos> line = buildDirectLinePath(startFeet, goal);
+                applyPlannedPath(line, pullWaypoints(NavCache.view(world), line), goal, pathWatch.changeSeq());
+            } else if (ASYNC_PLANNING) {
+                BlockSnapshot snapshot = submitAsyncPlan(world, startFeet, goal, forced);
+                // Nothing to walk while the worker plans: bootstrap with a sliced search on the worker's snapshot
+                // so movement starts now. It stops at its first walkable partial (or when the worker's plan lands).
+                if (TIME_SLICED_PLANNING && currentPath.isEmpty()) {
+                    beginSlicedPlan(world, snapshot, startFeet, goal, forced, true);
+                }
+            } else if (TIME_SLICED_PLANNING) {
+                beginSlicedPlan(world, null, startFeet, goal, forced, false);
             } else {
-                raw = AStar.find(world, startFeet, goal, MAX_RANGE, MAX_ITERATIONS,
-                        ALLOW_DIAGONALS, ALLOW_STEP_UP, ALLOW_DROP_DOWN, MAX_DROP_DOWN);
-            }
-
-            if (raw != null && !raw.isEmpty()) {
-                currentPath = raw;
-                pathNodeIndex = 0;
-                currentWalkTarget = null;
-
-                routeCheckpoints.clear();
-                routeCheckpoints.addAll(generateSparseCheckpointsFromRawPath(raw, goal));
-                checkpointIndex = 0;
-                checkpointsReady = true;
+                // Snapshot even when synchronous so the search reads NavCache bits instead of live chunks.
+                BlockSnapshot snapshot = captureForPlan(world, startFeet, goal);
+                long watchSeq = pathWatch.changeSeq();
+                List<BlockPos> path = planOnSnapshot(snapshot, startFeet, goal, takeCellChangeSeq(), avoidedStepUpEdges);
+                applyPlannedPath(path, pullWaypoints(snapshot, path), goal, watchSeq);
             }
         }
 
+        // Spend this tick's planning budget (no-op when no sliced search is running).
+        stepSlicedPlan((currentSegmentGoal != null) ? currentSegmentGoal : segmentEnd);
+
         // If no path, do not press keys.
         if (currentPath == null || currentPath.isEmpty()) {
             releaseKeys();
@@ -499,6 +736,333 @@ private static final float DEST_R  = 0.0f, DEST_G  = 1.0f, DEST_B  = 1.0f, DEST_
         applyKeys(client);
     }
 
+    /** watchSeq: PathWatch.changeSeq() when the world the path was planned on was captured. */
+    private void applyPlannedPath(List<BlockPos> raw, Waypoints waypoints, BlockPos goal, long watchSeq) {
+        if (raw == null || raw.isEmpty()) return;
+
+        currentPath = raw;
+        currentWaypoints = waypoints;
+        pathNodeIndex = 0;
+        currentWalkTarget = null;
+        currentPathPartial = false;
+        pathWatch.watch(raw, watchSeq);
+
+        routeCheckpoints.clear();
+        routeCheckpoints.addAll(generateSparseCheckpointsFromRawPath(raw, goal));
+        checkpointIndex = 0;
+        checkpointsReady = true;
+    }
+
+    // ---------------------------------------------------------------------
+    // Async planning (worker thread + client-thread handoff)
+    // ---------------------------------------------------------------------
+
+    private static final ExecutorService PLANNER_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Atlas Pathfinder");
+        t.setDaemon(true);
+        t.setPriority(Thread.NORM_PRIORITY - 1);
+        return t;
+    });
+
+    private static final class PlanResult {
+        final long generation;
+        final BlockPos goal;
+        final List<BlockPos> path;
+        final Waypoints waypoints; // pulled on the worker, against the snapshot the path was planned on
+        final long watchSeq;
+
+        PlanResult(long generation, BlockPos goal, List<BlockPos> path, Waypoints waypoints, long watchSeq) {
+            this.generation = generation;
+            this.goal = goal;
+            this.path = path;
+            this.waypoints = waypoints;
+            this.watchSeq = watchSeq;
+        }
+    }
+
+    /** Returns the snapshot the worker plans on, or null if a running plan was kept instead. */
+    private BlockSnapshot submitAsyncPlan(World world, BlockPos start, BlockPos goal, boolean replaceInFlight) {
+        if (inFlightPlan != null) {
+            // A plan is already running; let it land unless something (e.g. an avoided step-up) made it stale.
+            if (!replaceInFlight) return null;
+            invalidatePendingPlan();
+        }
+
+        // Everything the worker reads is captured here, on the client thread.
+        final long generation = planGeneration;
+        final BlockSnapshot snapshot = captureForPlan(world, start, goal);
+        final long changeSeq = takeCellChangeSeq();
+        final long watchSeq = pathWatch.changeSeq();
+        final Set<Long> avoided = new HashSet<>(avoidedStepUpEdges);
+
+        inFlightPlan = PLANNER_EXECUTOR.submit(() -> {
+            List<BlockPos> path = planOnSnapshot(snapshot, start, goal, changeSeq, avoided);
+            return new PlanResult(generation, goal, path, pullWaypoints(snapshot, path), watchSeq);
+        });
+        return snapshot;
+    }
+
+    /** Captures the planner snapshot; with incremental planning the box stays fixed for the whole session. */
+    private BlockSnapshot captureForPlan(World world, BlockPos start, BlockPos goal) {
+        if (!INCREMENTAL_PLANNING) {
+            return BlockSnapshot.capture(world, start, goal, SNAPSHOT_MARGIN_XZ, SNAPSHOT_MARGIN_Y);
+        }
+
+        if (incrementalGoal == null || !incrementalGoal.equals(goal) || !isInsideSession(start)) {
+            incrementalGoal = goal;
+            sessionA = start;
+            sessionB = goal;
+            recordCellChange(RESET_CELL_CHANGE);
+        }
+        return BlockSnapshot.capture(world, sessionA, sessionB, SNAPSHOT_MARGIN_XZ, SNAPSHOT_MARGIN_Y);
+    }
+
+    // Keep half the margin as slack so the start never walks off the captured box mid-session.
+    private boolean isInsideSession(BlockPos p) {
+        if (sessionA == null || sessionB == null) return false;
+        int slackXZ = SNAPSHOT_MARGIN_XZ / 2, slackY = SNAPSHOT_MARGIN_Y / 2;
+        return p.getX() >= Math.min(sessionA.getX(), sessionB.getX()) - slackXZ
+                && p.getX() <= Math.max(sessionA.getX(), sessionB.getX()) + slackXZ
+                && p.getZ() >= Math.min(sessionA.getZ(), sessionB.getZ()) - slackXZ
+                && p.getZ() <= Math.max(sessionA.getZ(), sessionB.getZ()) + slackXZ
+                && p.getY() >= Math.min(sessionA.getY(), sessionB.getY()) - slackY
+                && p.getY() <= Math.max(sessionA.getY(), sessionB.getY()) + slackY;
+    }
+
+    private boolean sessionTouches(int minX, int minZ, int maxX, int maxZ) {
+        if (incrementalGoal == null || sessionA == null || sessionB == null) return false;
+        return maxX >= Math.min(sessionA.getX(), sessionB.getX()) - SNAPSHOT_MARGIN_XZ
+                && minX <= Math.max(sessionA.getX(), sessionB.getX()) + SNAPSHOT_MARGIN_XZ
+                && maxZ >= Math.min(sessionA.getZ(), sessionB.getZ()) - SNAPSHOT_MARGIN_XZ
+                && minZ <= Math.max(sessionA.getZ(), sessionB.getZ()) + SNAPSHOT_MARGIN_XZ;
+    }
+
+    /** Runs on the planner thread (or the client thread in synchronous mode); never both. */
+    private static List<BlockPos> planOnSnapshot(BlockSnapshot snapshot, BlockPos start, BlockPos goal,
+                                                 long changeSeq, Set<Long> avoided) {
+        if (JPS_FAST_PATH && start.getY() == goal.getY()) {
+            // Flat trips: jump point search over the uniform-cost layer; 3D planners only when that fails.
+            List<BlockPos> flat = JumpPointSearch.find(snapshot, start, goal, MAX_RANGE, MAX_ITERATIONS, JPS_MAX_DETOUR);
+            if (!flat.isEmpty()) return flat;
+        }
+
+        if (INCREMENTAL_PLANNING) {
+            // Only consume changes recorded before this snapshot was captured; later ones belong to the next plan.
+            boolean reset = false;
+            long[] changed = new long[16];
+            int n = 0;
+            CellChange c;
+            while ((c = CELL_CHANGES.peek()) != null && c.seq <= changeSeq) {
+                CELL_CHANGES.poll();
+                if (c.cell == RESET_CELL_CHANGE) {
+                    reset = true;
+                    n = 0;
+                    continue;
+                }
+                if (n == changed.length) changed = Arrays.copyOf(changed, n << 1);
+                changed[n++] = c.cell;
+            }
+
+            List<BlockPos> path = INCREMENTAL.plan(snapshot, start, goal, reset, changed, n, avoided, MAX_RANGE, MAX_ITERATIONS);
+            // A* only if D* Lite was cut short; when it settled "no path", A* would spend its iterations agreeing.
+            if (!path.isEmpty() || INCREMENTAL.provedNoPath()) return path;
+        }
+
+        return AStar.find(snapshot, start, goal, MAX_RANGE, MAX_ITERATIONS,
+                ALLOW_DIAGONALS, ALLOW_STEP_UP, ALLOW_DROP_DOWN, MAX_DROP_DOWN, avoided, landmarkTable());
+    }
+
+    /** Landmark table for the ALT bound, if enabled and one covers the open store session. */
+    private static Landmarks.Table landmarkTable() {
+        return ALT_HEURISTIC ? Landmarks.active() : null;
+    }
+
+    // ---------------------------------------------------------------------
+    // Cell change log for the incremental planner (client thread writes, planner thread drains)
+    // ---------------------------------------------------------------------
+
+    private static final DStarLite INCREMENTAL = new DStarLite();
+
+    // Not a reachable cell (x = -2^25 is far outside the world border).
+    private static final long RESET_CELL_CHANGE = Long.MIN_VALUE;
+
+    private static final class CellChange {
+        final long seq;
+        final long cell;
+
+        CellChange(long seq, long cell) {
+            this.seq = seq;
+            this.cell = cell;
+        }
+    }
+
+    private static final ConcurrentLinkedQueue<CellChange> CELL_CHANGES = new ConcurrentLinkedQueue<>();
+    private static long cellChangeSeq = 0;
+    private static int pendingCellChanges = 0;
+    private static boolean CHANGE_HOOK_REGISTERED = false;
+
+    private static void ensureChangeHook() {
+        if (CHANGE_HOOK_REGISTERED) return;
+        CHANGE_HOOK_REGISTERED = true;
+
+        BlockChangeEvents.BLOCK_CHANGED.register((x, y, z) -> {
+            PathfindScript inst = ACTIVE_INSTANCE;
+            if (inst == null) return;
+            inst.pathWatch.onBlockChanged(x, y, z);
+            if (inst.sessionTouches(x, z, x, z)) recordCellChange(BlockPos.asLong(x, y, z));
+        });
+        // A chunk (re)sent or unloaded inside the session box changes too much to repair; start over.
+        BlockChangeEvents.CHUNK_CHANGED.register(PathfindScript::onChunkChanged);
+        ClientChunkEvents.CHUNK_UNLOAD.register((w, chunk) -> onChunkChanged(chunk.getPos().x, chunk.getPos().z));
+    }
+
+    private static void onChunkChanged(int cx, int cz) {
+        PathfindScript inst = ACTIVE_INSTANCE;
+        if (inst != null) inst.pathWatch.onChunkChanged(cx, cz);
+        if (inst != null && inst.sessionTouches(cx << 4, cz << 4, (cx << 4) + 15, (cz << 4) + 15)) {
+            recordCellChange(RESET_CELL_CHANGE);
+        }
+    }
+
+    private static void recordCellChange(long cell) {
+        if (cell != RESET_CELL_CHANGE && ++pendingCellChanges > MAX_PENDING_CELL_CHANGES) {
+            // Nobody has planned in a while; one reset covers everything that changed meanwhile.
+            if (pendingCellChanges == MAX_PENDING_CELL_CHANGES + 1) {
+                CELL_CHANGES.add(new CellChange(++cellChangeSeq, RESET_CELL_CHANGE));
+            }
+            return;
+        }
+        CELL_CHANGES.add(new CellChange(++cellChangeSeq, cell));
+    }
+
+    /** Sequence number a new snapshot covers; the plan for it drains the log up to here. */
+    private static long takeCellChangeSeq() {
+        pendingCellChanges = 0;
+        return cellChangeSeq;
+    }
+
+    private void pollAsyncPlan() {
+        Future<PlanResult> f = inFlightPlan;
+        if (f == null || !f.isDone()) return;
+        inFlightPlan = null;
+
+        PlanResult r;
+        try {
+            r = f.get();
+        } catch (CancellationException | InterruptedException e) {
+            return;
+        } catch (ExecutionException e) {
+            AtlasClient.LOGGER.warn("Async path planning failed", e.getCause());
+            return;
+        }
+
+        if (r == null || r.generation != planGeneration) return;
+
+        // The checkpoint goal may have advanced while the worker was busy; plan again for the new one.
+        BlockPos goal = (currentSegmentGoal != null) ? currentSegmentGoal : macroGoalBlock;
+        if (goal == null || !goal.equals(r.goal)) {
+            forceRepathNow = true;
+            return;
+        }
+
+        applyPlannedPath(r.path, r.waypoints, r.goal, r.watchSeq);
+        // The worker's plan supersedes a bootstrap slice toward the same goal.
+        if (!r.path.isEmpty()) cancelSlicedPlan();
+    }
+
+    // ---------------------------------------------------------------------
+    // Time-sliced planning (client thread, bounded per tick)
+    // ---------------------------------------------------------------------
+
+    /**
+     * Starts a sliced search toward goal; a running one toward the same goal keeps its frontier unless forced.
+     * snapshot is the async plan's (snapshots are read-only, so both threads can search it); null captures one.
+     * A bootstrap search stops at its first walkable partial and leaves the full search to the worker.
+     */
+    private void beginSlicedPlan(World world, BlockSnapshot snapshot, BlockPos start, BlockPos goal,
+                                 boolean restart, boolean bootstrap) {
+        if (!restart && slicedPlan.isRunning() && goal.equals(slicedPlanGoal)) return;
+
+        if (snapshot == null) snapshot = BlockSnapshot.capture(world, start, goal, SNAPSHOT_MARGIN_XZ, SNAPSHOT_MARGIN_Y);
+        slicedPlanSnapshot = snapshot;
+        slicedPlanBootstrap = bootstrap;
+        slicedPlanGoal = goal;
+        slicedPlanWatchSeq = pathWatch.changeSeq();
+        partialPathH = Double.MAX_VALUE;
+        slicedPlan.begin(snapshot, start, goal, MAX_RANGE, MAX_ITERATIONS,
+                ALLOW_DIAGONALS, ALLOW_STEP_UP, ALLOW_DROP_DOWN, MAX_DROP_DOWN, new HashSet<>(avoidedStepUpEdges),
+                landmarkTable());
+    }
+
+    private void stepSlicedPlan(BlockPos goal) {
+        if (!slicedPlan.isRunning()) return;
+        if (!goal.equals(slicedPlanGoal)) {
+            // Checkpoint/segment advanced; the next repath starts a search toward the new goal.
+            cancelSlicedPlan();
+            return;
+        }
+
+        int status = slicedPlan.step(PLAN_SLICE_BUDGET_NANOS);
+        if (status == AStar.Resumable.FOUND) {
+            List<BlockPos> path = slicedPlan.result();
+            applyPlannedPath(path, pullWaypoints(slicedPlanSnapshot, path), slicedPlanGoal, slicedPlanWatchSeq);
+            slicedPlanSnapshot = null;
+            return;
+        }
+        if (status != AStar.Resumable.RUNNING) return;
+
+        // Anytime: walk toward the most promising frontier node until the full path (or the worker's) lands.
+        if (!currentPath.isEmpty() && !currentPathPartial) return;
+        if (slicedPlan.bestHeuristic() > partialPathH - PARTIAL_ADOPT_MIN_GAIN) return;
+
+        List<BlockPos> partial = slicedPlan.bestPartial();
+        if (partial.size() < 2) return;
+        applyPartialPath(partial);
+        partialPathH = slicedPlan.bestHeuristic();
+        // Movement has started; the worker is already running the same search to completion.
+        if (slicedPlanBootstrap) cancelSlicedPlan();
+    }
+
+    /**
+     * Walks a partial path without touching checkpoints, so the segment/checkpoint goal (and with it the
+     * async result handoff) stays the real one.
+     */
+    private void applyPartialPath(List<BlockPos> partial) {
+        // Partial paths share the same start, so keep the player's progress along the previous one.
+        // The next one replaces this within a few ticks, so only the stretch walked by then is pulled.
+        Waypoints waypoints = pullWaypoints(slicedPlanSnapshot, partial, PARTIAL_PULL_MAX_NODES);
+        PathIndex index = (waypoints != null) ? waypoints.index : new PathIndex(partial);
+        int idx = -1;
+        if (!currentPath.isEmpty()) {
+            idx = index.indexOf(currentPath.get(MathHelper.clamp(pathNodeIndex, 0, currentPath.size() - 1)));
+        }
+
+        currentPath = partial;
+        currentWaypoints = waypoints;
+        currentPathIndex = index;
+        pathNodeIndex = Math.max(0, idx);
+        currentWalkTarget = null;
+        currentPathPartial = true;
+        // Partial paths are replaced on the fixed cadence anyway; nothing to watch.
+        pathWatch.clear();
+    }
+
+    private void cancelSlicedPlan() {
+        slicedPlan.cancel();
+        slicedPlanSnapshot = null;
+        slicedPlanGoal = null;
+        slicedPlanBootstrap = false;
+        partialPathH = Double.MAX_VALUE;
+    }
+
+    private void invalidatePendingPlan() {
+        planGeneration++;
+        if (inFlightPlan != null) {
+            inFlightPlan.cancel(true);
+            inFlightPlan = null;
+        }
+    }
+
     private void applyKeys(MinecraftClient client) {
         if (client == null || client.options == null) return;
 
@@ -522,12 +1086,22 @@ if (!prevForward && desiredForward && client.player != null) {
     private BlockPos getSmoothedLosTarget(World world, ClientPlayerEntity player, List<BlockPos> path, int startIndex) {
         if (world == null || player == null || path == null || path.isEmpty()) return null;
 
+        // Inside the pulled segment's corridor the segment end is body-safe by construction.
+        Waypoints w = currentWaypoints;
+        BlockPos pulled = (w != null) ? w.target(path, startIndex, player.getX(), player.getY(), player.getZ()) : null;
+        if (pulled != null) {
+            cachedLosTarget = pulled;
+            losRetargetCooldown = 0;
+            return pulled;
+        }
+
         if (losRetargetCooldown > 0 && cachedLosTarget != null) {
             losRetargetCooldown--;
             return cachedLosTarget;
         }
 
-        BlockPos fresh = selectLineOfSightTarget(world, player, path, startIndex);
+        BlockPos fresh = selectLineOfSightTarget(world, player, path,
+                (path == currentPath) ? pathIndex() : new PathIndex(path), startIndex);
         if (fresh != null) {
             cachedLosTarget = fresh;
             losRetargetCooldown = LOS_RETARGET_COOLDOWN_TICKS;
@@ -677,20 +1251,9 @@ if (currentPath != null && pathNodeIndex + 1 < currentPath.size()) {
         int start = MathHelper.clamp(pathNodeIndex, 0, currentPath.size() - 1);
         int end = Math.min(currentPath.size() - 1, start + PATH_INDEX_FORWARD_WINDOW);
 
-        // Choose best index only in forward window (never regress)
-        int bestIdx = start;
-        double bestD2 = Double.POSITIVE_INFINITY;
-
-        for (int i = start; i <= end; i++) {
-            Vec3d c = centerOf(currentPath.get(i));
-            double dx = c.x - playerPos.x;
-            double dz = c.z - playerPos.z;
-            double d2 = dx * dx + dz * dz;
-            if (d2 < bestD2) {
-                bestD2 = d2;
-                bestIdx = i;
-            }
-        }
+        // Choose best index only in forward window (never regress); farther than the off-path distance
+        // the repath takes over, so nothing beyond it is considered.
+        int bestIdx = pathIndex().nearestNode(playerPos.x, playerPos.z, start, end, OFFPATH_MAX_DIST);
 
         if (bestIdx > pathNodeIndex) pathNodeIndex = bestIdx;
 
@@ -829,15 +1392,8 @@ if (currentPath != null && pathNodeIndex + 1 < currentPath.size()) {
         return false;
     }
 
-        private static long edgeKey(BlockPos from, BlockPos to) {
-        // Deterministic 64-bit mixing of two BlockPos values
-        long a = from.asLong();
-        long b = to.asLong();
-        long x = a ^ (b * 0x9E3779B97F4A7C15L);
-        x ^= (x >>> 33);
-        x *= 0xC2B2AE3D27D4EB4FL;
-        x ^= (x >>> 29);
-        return x;
+    private static long edgeKey(BlockPos from, BlockPos to) {
+        return AStar.edgeKey(from.asLong(), to.asLong());
     }
     
     private static boolean isStepUpEdgeAvoided(BlockPos from, BlockPos to) {
@@ -883,6 +1439,7 @@ if (currentPath != null && pathNodeIndex + 1 < currentPath.size()) {
     
         if (trackedStepFailCount >= STEPUP_FAIL_MAX_ATTEMPTS) {
             avoidedStepUpEdges.add(edgeKey(trackedStepLead, trackedUpNode));
+            if (incrementalGoal != null) recordCellChange(trackedStepLead.asLong());
             forceRepathNow = true;
             clearStepUpTracking();
             return;
@@ -1052,7 +1609,7 @@ onStepUpAttemptStarted(stepLead, upNode);
             BlockPos stand = null;
             for (int dy = -1; dy <= 1; dy++) {
                 BlockPos cand = p.add(0, dy, 0);
-                if (AStar.isStandablePublic(world, cand)) {
+                if (AStar.isStandable(world, cand)) {
                     stand = cand;
                     break;
                 }
@@ -1120,6 +1677,25 @@ onStepUpAttemptStarted(stepLead, upNode);
             if (d <= MAX_RANGE && d >= 12) return macroGoalBlock;
         }
 
+        if (MACRO_ROUTING) {
+            BlockPos routed = nextRouteWaypoint(world, start, finalGoal);
+            if (routed != null) {
+                macroGoalBlock = routed;
+                macroGoalCenter = centerOf(routed);
+                return routed;
+            }
+        }
+
+        BlockPos snapped = projectMacroGoal(world, start, finalGoal);
+        if (snapped == null) return null;
+
+        macroGoalBlock = snapped;
+        macroGoalCenter = centerOf(snapped);
+        return snapped;
+    }
+
+    /** Standable cell about MACRO_STEP blocks from start on the straight line toward finalGoal; null if none. */
+    private static BlockPos projectMacroGoal(World world, BlockPos start, BlockPos finalGoal) {
         Vec3d s = centerOf(start);
         Vec3d g = centerOf(finalGoal);
 
@@ -1136,175 +1712,369 @@ onStepUpAttemptStarted(stepLead, upNode);
 
         if (snapped == null) return null;
         if (manhattan(start, snapped) > MAX_RANGE) return null;
-
-        macroGoalBlock = snapped;
-        macroGoalCenter = centerOf(snapped);
         return snapped;
     }
 
-    private static BlockPos snapToNearestStandable(World world, BlockPos around, int radiusXZ, int radiusY) {
-        for (int r = 0; r <= radiusXZ; r++) {
-            for (int dx = -r; dx <= r; dx++) {
-                int dz1 = r - Math.abs(dx);
-                int dz2 = -dz1;
+    /**
+     * Furthest route cell within MACRO_STEP of start, past the ones already walked; null while no usable
+     * route exists (one is requested in the background and the caller falls back to the projection).
+     */
+    private BlockPos nextRouteWaypoint(World world, BlockPos start, BlockPos finalGoal) {
+        pollMacroRoute();
 
-                for (int dz : new int[]{dz1, dz2}) {
-                    for (int dy = 0; dy <= radiusY; dy++) {
-                        BlockPos cand1 = around.add(dx, -dy, dz);
-                        if (AStar.isStandablePublic(world, cand1)) return cand1;
+        int pick = routeWaypointIndex(start, finalGoal);
+        if (pick == ROUTE_NEEDS_REQUEST) {
+            requestMacroRoute(world, start, finalGoal);
+            return null;
+        }
+        if (pick < 0) return null;
 
-                        if (dy != 0) {
-                            BlockPos cand2 = around.add(dx, dy, dz);
-                            if (AStar.isStandablePublic(world, cand2)) return cand2;
-                        }
-                    }
-                }
+        macroRouteIndex = pick;
+        return macroRoute.get(pick);
+    }
+
+    private static final int ROUTE_NO_WAYPOINT = -1;
+    private static final int ROUTE_NEEDS_REQUEST = -2;
+
+    /** Index of the waypoint nextRouteWaypoint would use from start (no side effects), or a ROUTE_ code. */
+    private int routeWaypointIndex(BlockPos start, BlockPos finalGoal) {
+        if (macroRouteGoal == null || !macroRouteGoal.equals(finalGoal) || macroRoute.isEmpty()) return ROUTE_NEEDS_REQUEST;
+
+        // Resync to the closest route cell at or after the last one used.
+        int closest = -1;
+        int closestDist = Integer.MAX_VALUE;
+        for (int i = macroRouteIndex; i < macroRoute.size(); i++) {
+            int d = manhattan(start, macroRoute.get(i));
+            if (d < closestDist) {
+                closestDist = d;
+                closest = i;
             }
         }
-        return null;
+        // Wandered off the route (or it was used up); get a new one from here.
+        if (closest < 0 || closestDist > MACRO_STEP / 2) return ROUTE_NEEDS_REQUEST;
+
+        int pick = -1;
+        for (int i = closest; i < macroRoute.size(); i++) {
+            if (manhattan(start, macroRoute.get(i)) > MACRO_STEP) break;
+            pick = i;
+        }
+        if (pick < 0) return ROUTE_NO_WAYPOINT;
+
+        BlockPos wp = macroRoute.get(pick);
+        boolean routeEnd = (pick == macroRoute.size() - 1);
+        if (routeEnd && !wp.equals(finalGoal) && manhattan(start, wp) < ROUTE_MIN_WAYPOINT_DIST) {
+            // Partial route (goal beyond the loaded area) nearly used up; extend it from here.
+            return ROUTE_NEEDS_REQUEST;
+        }
+        if (manhattan(start, wp) < ROUTE_MIN_WAYPOINT_DIST && !wp.equals(finalGoal)) return ROUTE_NO_WAYPOINT;
+
+        return pick;
     }
 
-    // ---------------------------------------------------------------------
-    // Rendering
-    // ---------------------------------------------------------------------
+    private void requestMacroRoute(World world, BlockPos start, BlockPos finalGoal) {
+        if (inFlightRoute != null || routeCapture != null || routeRequestCooldown > 0) return;
+        routeRequestCooldown = ROUTE_REQUEST_COOLDOWN_TICKS;
+
+        // Clamp the captured box to roughly the loaded area around the player.
+        int dx = MathHelper.clamp(finalGoal.getX() - start.getX(), -ROUTE_MAX_RADIUS_XZ, ROUTE_MAX_RADIUS_XZ);
+        int dz = MathHelper.clamp(finalGoal.getZ() - start.getZ(), -ROUTE_MAX_RADIUS_XZ, ROUTE_MAX_RADIUS_XZ);
+        BlockPos corner = new BlockPos(start.getX() + dx, finalGoal.getY(), start.getZ() + dz);
 
-    private static void ensureRenderHook() {
-        if (RENDER_HOOK_REGISTERED) return;
-        RENDER_HOOK_REGISTERED = true;
-        WorldRenderEvents.LAST.register(PathfindScript::onWorldRender);
+        // Up to ~34x34 chunks: copied over the next ticks (the projection is used meanwhile), not in one frame.
+        routeCapture = BlockSnapshot.begin(world, start, corner, ROUTE_SNAPSHOT_MARGIN_XZ, ROUTE_SNAPSHOT_MARGIN_Y);
+        routeCaptureStart = start;
+        inFlightRouteGoal = finalGoal;
+        stepRouteCapture(world);
     }
 
-    private static void onWorldRender(WorldRenderContext ctx) {
-        PathfindScript inst = ACTIVE_INSTANCE;
-        if (inst == null || !inst.enabled) return;
+    /** Copies the next chunks of a pending route capture; submits the route once the box is complete. */
+    private void stepRouteCapture(World world) {
+        BlockSnapshot.Capture capture = routeCapture;
+        if (capture == null) return;
+        if (capture.world() != world || inFlightRouteGoal == null || !inFlightRouteGoal.equals(finalTargetBlock)) {
+            routeCapture = null;
+            return;
+        }
+        if (!capture.step(ROUTE_CAPTURE_CHUNKS_PER_TICK)) return;
 
-        MatrixStack matrices = ctx.matrixStack();
-        VertexConsumerProvider consumers = ctx.consumers();
-        if (matrices == null || consumers == null) return;
+        routeCapture = null;
+        final BlockSnapshot snapshot = capture.snapshot();
+        final BlockPos start = routeCaptureStart;
+        final BlockPos finalGoal = inFlightRouteGoal;
+        final Set<Long> avoided = new HashSet<>(avoidedStepUpEdges);
 
-        var camera = ctx.camera();
-        if (camera == null) return;
+        if (ASYNC_PLANNING) {
+            inFlightRoute = PLANNER_EXECUTOR.submit(() -> ROUTER.route(snapshot, start, finalGoal, avoided));
+        } else {
+            inFlightRoute = CompletableFuture.completedFuture(ROUTER.route(snapshot, start, finalGoal, avoided));
+            pollMacroRoute();
+        }
+    }
 
-        double cx = camera.getPos().x;
-        double cy = camera.getPos().y;
-        double cz = camera.getPos().z;
+    private void pollMacroRoute() {
+        Future<List<BlockPos>> f = inFlightRoute;
+        if (f == null || !f.isDone()) return;
+        inFlightRoute = null;
 
-        // Path highlight (HubForagingScript style)
-        if (inst.currentPath != null && !inst.currentPath.isEmpty()) {
-            renderPathHighlights(matrices, consumers, cx, cy, cz, inst.currentPath, inst.pathNodeIndex);
+        List<BlockPos> route;
+        try {
+            route = f.get();
+        } catch (CancellationException | InterruptedException e) {
+            return;
+        } catch (ExecutionException e) {
+            AtlasClient.LOGGER.warn("Macro route planning failed", e.getCause());
+            return;
         }
-renderCheckpointOverlays(matrices, consumers, cx, cy, cz, inst);
+
+        if (inFlightRouteGoal == null || !inFlightRouteGoal.equals(finalTargetBlock)) return;
+
+        macroRoute = (route != null) ? route : Collections.emptyList();
+        macroRouteGoal = inFlightRouteGoal;
+        macroRouteIndex = 0;
     }
 
-    /**
-     * Version-compatible rendering:
-     * - Avoids BufferRenderer/Tessellator/VertexFormat/GameRenderer APIs that change across MC versions.
-     * - Uses RenderLayer.getLines() via VertexConsumerProvider, which is stable.
-     * - Draws a single line segment between nodes.
-     * - Renders clear marker blocks at corners (wireframe outline + semi-transparent fill).
-     */
-    private static void renderPathHighlights(MatrixStack matrices, VertexConsumerProvider consumers,
-                                         double camX, double camY, double camZ,
-                                         List<BlockPos> path, int nodeIndex) {
-        if (path == null || path.isEmpty()) return;
+    private void clearMacroRoute() {
+        clearSegmentPrefetch();
+        if (inFlightRoute != null) {
+            inFlightRoute.cancel(true);
+            inFlightRoute = null;
+        }
+        inFlightRouteGoal = null;
+        routeCapture = null;
+        routeCaptureStart = null;
+        routeRequestCooldown = 0;
+        macroRoute = Collections.emptyList();
+        macroRouteGoal = null;
+        macroRouteIndex = 0;
+    }
 
-        int max = Math.min(path.size(), RENDER_MAX_WHITE_NODES);
-        int idx = MathHelper.clamp(nodeIndex, 0, max - 1);
+    // Planner-thread only (or the client thread in synchronous mode).
+    private static final RegionRouter ROUTER = new RegionRouter();
 
-        // Draw "connected" nodes
-        for (int i = 0; i < max; i++) {
-            BlockPos p0 = path.get(i);
-            if (p0 == null) continue;
+    // ---------------------------------------------------------------------
+    // Multi-goal selection (navigateToAny)
+    // ---------------------------------------------------------------------
 
-            // Path nodes are typically "air" positions where the player stands.
-            // For visuals (to match HubForagingScript block highlights), draw the solid block under air nodes.
-            World w = MinecraftClient.getInstance().world;
-            BlockPos p = p0;
-            if (w != null && w.getBlockState(p0).isAir() && !w.getBlockState(p0.down()).isAir()) {
-                p = p0.down();
-            }
-            if (i == idx) continue;
+    /** Re-targets once the multi-goal search lands, if it found a cheaper target than the one being walked. */
+    private void pollAnySearch() {
+        Future<List<BlockPos>> f = inFlightAny;
+        if (f == null || !f.isDone()) return;
+
+        List<Vec3d> targets = anyTargets;
+        List<BlockPos> goals = anyGoals;
+        int current = anyChosen;
+        IntConsumer onChosen = onAnyChosen;
+        clearAnySearch();
 
-            Box b = new Box(p).expand(BOX_EXPAND).offset(-camX, -camY, -camZ);
-            DebugRenderer.drawBox(matrices, consumers, b, H_R, H_G, H_B, CONNECTED_ALPHA);
+        List<BlockPos> path;
+        try {
+            path = f.get();
+        } catch (CancellationException | InterruptedException e) {
+            return;
+        } catch (ExecutionException e) {
+            AtlasClient.LOGGER.warn("Multi-goal search failed", e.getCause());
+            return;
         }
 
-        // Draw current/next node as "target"
-        if (idx >= 0 && idx < max) {
-            BlockPos np0 = path.get(idx);
-            World w2 = MinecraftClient.getInstance().world;
-            BlockPos np = np0;
-            if (np0 != null && w2 != null && w2.getBlockState(np0).isAir() && !w2.getBlockState(np0.down()).isAir()) {
-                np = np0.down();
-            }
-            if (np != null) {
-                Box nb = new Box(np).expand(BOX_EXPAND).offset(-camX, -camY, -camZ);
-                DebugRenderer.drawBox(matrices, consumers, nb, H_R, H_G, H_B, TARGET_ALPHA);
-            }
+        // Nothing reachable inside the search range: keep the straight-line pick.
+        if (path == null || path.isEmpty()) return;
+
+        int chosen = goals.indexOf(path.get(path.size() - 1));
+        if (chosen < 0 || chosen == current) return;
+
+        navigateTo(targets.get(chosen));
+        if (onChosen != null) onChosen.accept(chosen);
+    }
+
+    /** Copies the next chunks of a pending multi-goal capture; submits the search once the box is complete. */
+    private void stepAnyCapture(World world) {
+        BlockSnapshot.Capture capture = anyCapture;
+        if (capture == null) return;
+        if (capture.world() != world) {
+            clearAnySearch();
+            return;
         }
+        if (!capture.step(ANY_CAPTURE_CHUNKS_PER_TICK)) return;
+
+        anyCapture = null;
+        final BlockSnapshot snapshot = capture.snapshot();
+        final BlockPos start = anyStart;
+        final List<BlockPos> goals = anyGoals;
+        final double[] bonus = anyBonus;
+        final Set<Long> avoided = new HashSet<>(avoidedStepUpEdges);
+        inFlightAny = PLANNER_EXECUTOR.submit(() -> AStar.findAny(snapshot, start, goals, bonus, ANY_MAX_RANGE,
+                ANY_MAX_ITERATIONS, ALLOW_DIAGONALS, ALLOW_STEP_UP, ALLOW_DROP_DOWN, MAX_DROP_DOWN, avoided));
     }
 
+    private void clearAnySearch() {
+        if (inFlightAny != null) inFlightAny.cancel(true);
+        inFlightAny = null;
+        anyCapture = null;
+        anyStart = null;
+        anyBonus = null;
+        anyTargets = null;
+        anyGoals = null;
+        anyChosen = -1;
+        onAnyChosen = null;
+    }
+
+    // ---------------------------------------------------------------------
+    // Segment prefetch (plan segment N+1 from the end of segment N while N is walked)
+    // ---------------------------------------------------------------------
+
+    private static final class SegmentPrefetch {
+        final BlockPos from;      // end of the segment being walked
+        final BlockPos goal;      // predicted next macro goal
+        final BlockPos finalGoal; // destination it was planned for
+        final Future<PlanResult> plan; // path and its waypoints, both from the prefetch's own snapshot
+        final long watchSeq;      // PathWatch.changeSeq() at capture
 
+        SegmentPrefetch(BlockPos from, BlockPos goal, BlockPos finalGoal, Future<PlanResult> plan, long watchSeq) {
+            this.from = from;
+            this.goal = goal;
+            this.finalGoal = finalGoal;
+            this.plan = plan;
+            this.watchSeq = watchSeq;
+        }
+    }
 
+    private void maybePrefetchNextSegment(World world, BlockPos start, BlockPos segmentEnd) {
+        if (segmentEnd == null || finalTargetBlock == null || segmentEnd.equals(finalTargetBlock)) return;
+        if (prefetch != null && prefetch.from.equals(segmentEnd) && prefetch.finalGoal.equals(finalTargetBlock)) return;
+        if (prefetchCooldown > 0 || manhattan(start, segmentEnd) > SEGMENT_PREFETCH_LEAD_DIST) return;
 
+        BlockPos next = predictNextMacroGoal(world, segmentEnd, finalTargetBlock);
+        if (next == null || next.equals(segmentEnd)) {
+            prefetchCooldown = SEGMENT_PREFETCH_RETRY_TICKS;
+            return;
+        }
 
+        clearSegmentPrefetch();
 
-    private static void renderCheckpointOverlays(MatrixStack matrices, VertexConsumerProvider consumers,
-                                                 double camX, double camY, double camZ,
-                                                 PathfindScript inst) {
-        if (inst == null) return;
+        final BlockPos from = segmentEnd;
+        final BlockSnapshot snapshot = BlockSnapshot.capture(world, from, next, SNAPSHOT_MARGIN_XZ, SNAPSHOT_MARGIN_Y);
+        final Set<Long> avoided = new HashSet<>(avoidedStepUpEdges);
+        final long watchSeq = pathWatch.changeSeq();
 
-        // Boxes match HubForagingScript oak log highlight.
-        final float br = BLOCK_R;
-        final float bg = BLOCK_G;
-        final float bb = BLOCK_B;
-        // Lines keep PATH_COLOR_ARGB.
-        final float lr = PATH_R;
-        final float lg = PATH_G;
-        final float lb = PATH_B;
-        final float la = PATH_A;
-        // Highlight final destination block (if present).
-        if (inst.finalTargetBlock != null) {
-            drawBoxAt(renderPos(inst.finalTargetBlock), matrices, consumers, camX, camY, camZ, br, bg, bb, BLOCK_ALPHA);
+        Future<PlanResult> plan = ASYNC_PLANNING
+                ? PLANNER_EXECUTOR.submit(() -> planPrefetch(snapshot, from, next, avoided, watchSeq))
+                : CompletableFuture.completedFuture(planPrefetch(snapshot, from, next, avoided, watchSeq));
+        prefetch = new SegmentPrefetch(from, next, finalTargetBlock, plan, watchSeq);
+    }
+
+    /** The macro goal ensureMacroGoal would pick standing at from (no side effects). */
+    private BlockPos predictNextMacroGoal(World world, BlockPos from, BlockPos finalGoal) {
+        if (manhattan(from, finalGoal) <= MACRO_STEP) return finalGoal;
+
+        if (MACRO_ROUTING) {
+            int pick = routeWaypointIndex(from, finalGoal);
+            if (pick >= 0) return macroRoute.get(pick);
         }
+        return projectMacroGoal(world, from, finalGoal);
+    }
 
-        // Highlight current segment / checkpoint goal.
-        if (inst.currentSegmentGoal != null) {
-            drawBoxAt(renderPos(inst.currentSegmentGoal), matrices, consumers, camX, camY, camZ, br, bg, bb, BLOCK_ALPHA);
+    // Not the incremental planner: its session belongs to the segment being walked. Pulled here too, so
+    // adopting the prefetch at the segment boundary costs the client thread nothing. No generation: a
+    // prefetch is matched by its from/goal instead.
+    private static PlanResult planPrefetch(BlockSnapshot snapshot, BlockPos from, BlockPos goal, Set<Long> avoided,
+                                           long watchSeq) {
+        List<BlockPos> path = Collections.emptyList();
+        if (JPS_FAST_PATH && from.getY() == goal.getY()) {
+            path = JumpPointSearch.find(snapshot, from, goal, MAX_RANGE, MAX_ITERATIONS, JPS_MAX_DETOUR);
         }
+        if (path.isEmpty()) {
+            path = AStar.find(snapshot, from, goal, MAX_RANGE, MAX_ITERATIONS,
+                    ALLOW_DIAGONALS, ALLOW_STEP_UP, ALLOW_DROP_DOWN, MAX_DROP_DOWN, avoided, landmarkTable());
+        }
+        return new PlanResult(-1L, goal, path, pullWaypoints(snapshot, path), watchSeq);
+    }
+
+    /**
+     * Called when the player finishes segmentEnd. Without a matching prefetch the macro goal is cleared
+     * (ensureMacroGoal picks the next one). With one, its goal becomes the macro goal; returns true if
+     * its path was ready and is now the current path. If it is still being planned, pollSegmentPrefetch
+     * adopts it when it lands.
+     */
+    private boolean advanceMacroSegment(BlockPos segmentEnd) {
+        SegmentPrefetch p = SEGMENT_PREFETCH ? prefetch : null;
+        if (p == null || !p.from.equals(segmentEnd) || !p.finalGoal.equals(finalTargetBlock)) {
+            macroGoalBlock = null;
+            macroGoalCenter = null;
+            return false;
+        }
+
+        macroGoalBlock = p.goal;
+        macroGoalCenter = centerOf(p.goal);
+        if (!p.plan.isDone()) return false;
+
+        PlanResult r = takePrefetchedPlan();
+        if (r == null || r.path.isEmpty()) return false;
 
-        // Checkpoints: block highlights + a single line from each checkpoint to the next.
-        if (inst.routeCheckpoints == null || inst.routeCheckpoints.isEmpty()) return;
+        applyPlannedPath(r.path, r.waypoints, p.goal, p.watchSeq);
+        return true;
+    }
 
-        for (int i = 0; i < inst.routeCheckpoints.size(); i++) {
-            BlockPos cp = inst.routeCheckpoints.get(i);
-            if (cp == null) continue;
+    /** Prefetch that landed after the boundary: use it while nothing better is being walked. */
+    private void pollSegmentPrefetch() {
+        SegmentPrefetch p = prefetch;
+        if (p == null || !p.plan.isDone()) return;
+        if (!p.goal.equals(macroGoalBlock)) return; // still walking the segment before it
+        if (!currentPath.isEmpty() && !currentPathPartial) {
+            clearSegmentPrefetch();
+            return;
+        }
 
-            boolean isNext = (i == inst.checkpointIndex);
-            drawBoxAt(renderPos(cp), matrices, consumers, camX, camY, camZ, br, bg, bb, BLOCK_ALPHA);
+        PlanResult r = takePrefetchedPlan();
+        if (r != null && !r.path.isEmpty()) applyPlannedPath(r.path, r.waypoints, p.goal, p.watchSeq);
+    }
 
-            // Single line drawing from this checkpoint to the next checkpoint (or final goal).
-            BlockPos next = null;
-            if (i + 1 < inst.routeCheckpoints.size()) next = inst.routeCheckpoints.get(i + 1);
-            else if (inst.finalTargetBlock != null) next = inst.finalTargetBlock;
+    private PlanResult takePrefetchedPlan() {
+        SegmentPrefetch p = prefetch;
+        prefetch = null;
+        try {
+            return p.plan.get();
+        } catch (CancellationException | InterruptedException e) {
+            return null;
+        } catch (ExecutionException e) {
+            AtlasClient.LOGGER.warn("Segment prefetch failed", e.getCause());
+            return null;
+        }
+    }
+
+    private void clearSegmentPrefetch() {
+        if (prefetch != null) {
+            prefetch.plan.cancel(true);
+            prefetch = null;
+        }
+        prefetchCooldown = 0;
+    }
 
-            if (next != null) {
-                // depth test toggle omitted (compat)
-                try {
-                    List<Vec3d> pts = buildVisibleSegmentPoints(MinecraftClient.getInstance().world, renderPos(cp), renderPos(next));
-                    for (int k = 0; k + 1 < pts.size(); k++) {
-                        drawLine3d(matrices, consumers, camX, camY, camZ,
-                                pts.get(k), pts.get(k + 1),
-                                lr, lg, lb, la);
+    private static BlockPos snapToNearestStandable(World world, BlockPos around, int radiusXZ, int radiusY) {
+        for (int r = 0; r <= radiusXZ; r++) {
+            for (int dx = -r; dx <= r; dx++) {
+                int dz1 = r - Math.abs(dx);
+                int dz2 = -dz1;
+
+                for (int dz : new int[]{dz1, dz2}) {
+                    for (int dy = 0; dy <= radiusY; dy++) {
+                        BlockPos cand1 = around.add(dx, -dy, dz);
+                        if (AStar.isStandable(world, cand1)) return cand1;
+
+                        if (dy != 0) {
+                            BlockPos cand2 = around.add(dx, dy, dz);
+                            if (AStar.isStandable(world, cand2)) return cand2;
+                        }
                     }
-                } finally {
-                    // depth test toggle omitted (compat)
                 }
             }
         }
+        return null;
     }
 
-    
+    // ---------------------------------------------------------------------
+    // Rendering
+    // ---------------------------------------------------------------------
+
     /**
      * Returns a path point centered on the cell but placed on the computed walk surface (slab-aware),
      * with a tiny offset so the line never z-fights with the floor.
@@ -1355,142 +2125,10 @@ renderCheckpointOverlays(matrices, consumers, cx, cy, cz, inst);
         return List.of(p0, edgeLow, edgeHigh, p1);
     }
 
-private static void drawCircle3d(MatrixStack matrices, VertexConsumerProvider consumers,
-                                     double camX, double camY, double camZ,
-                                     Vec3d center, double radius, int segs,
-                                     float r, float g, float b, float a) {
-        if (segs < 3) return;
-        for (int i = 0; i < segs; i++) {
-            double a0 = (2.0 * Math.PI * i) / (double) segs;
-            double a1 = (2.0 * Math.PI * (i + 1)) / (double) segs;
-            Vec3d p0 = new Vec3d(center.x + Math.cos(a0) * radius, center.y, center.z + Math.sin(a0) * radius);
-            Vec3d p1 = new Vec3d(center.x + Math.cos(a1) * radius, center.y, center.z + Math.sin(a1) * radius);
-            drawLine3d(matrices, consumers, camX, camY, camZ, p0, p1, r, g, b, a);
-        }
-    }
-
     private static BlockPos renderPos(BlockPos logical) {
         return RENDER_ONE_Y_LOWER ? logical.down() : logical;
     }
 
-    private static void drawBoxAt(BlockPos pos, MatrixStack matrices, VertexConsumerProvider consumers,
-                                  double camX, double camY, double camZ,
-                                  float r, float g, float b, float a) {
-        Box box = new Box(pos).expand(BOX_EXPAND).offset(-camX, -camY, -camZ);
-        DebugRenderer.drawBox(matrices, consumers, box, r, g, b, a);
-    }
-
-    private static void drawMarkerBoxAt(BlockPos pos, MatrixStack matrices, VertexConsumerProvider consumers,
-                                        double camX, double camY, double camZ,
-                                        float r, float g, float b, float fillAlpha) {
-        if (pos == null) return;
-
-        // Slight expansion makes edges clearer and reduces Z-fighting.
-        Box fill = new Box(pos).expand(0.002).offset(-camX, -camY, -camZ);
-        DebugRenderer.drawBox(matrices, consumers, fill, r, g, b, fillAlpha);
-
-        // Strong outline: a second pass with a slightly larger box and full alpha.
-        Box outline = new Box(pos).expand(0.006).offset(-camX, -camY, -camZ);
-        DebugRenderer.drawBox(matrices, consumers, outline, r, g, b, 1.0f);
-    }
-
-    /**
-     * Draw a segment using the same DebugRenderer pipeline as block highlights by sampling
-     * a dense sequence of tiny boxes along the line. This preserves the perceived color/opacity
-     * that users see on highlight boxes (e.g., HubForagingScript).
-     */
-    private static void drawSegmentAsDots(MatrixStack matrices, VertexConsumerProvider consumers,
-                                         double camX, double camY, double camZ,
-                                         Vec3d a, Vec3d b,
-                                         float r, float g, float bl, float al) {
-        if (matrices == null || consumers == null || a == null || b == null) return;
-
-        double dx = b.x - a.x;
-        double dy = b.y - a.y;
-        double dz = b.z - a.z;
-        double len = Math.sqrt(dx * dx + dy * dy + dz * dz);
-        if (len < 1e-6) return;
-
-        int steps = Math.max(1, (int) Math.ceil(len / PATH_DOT_STEP));
-        for (int i = 0; i <= steps; i++) {
-            double t = (double) i / (double) steps;
-            double x = a.x + dx * t;
-            double y = a.y + dy * t;
-            double z = a.z + dz * t;
-
-            Box dot = new Box(
-                    x - PATH_DOT_HALF_EXTENT, y - 0.001, z - PATH_DOT_HALF_EXTENT,
-                    x + PATH_DOT_HALF_EXTENT, y + 0.001, z + PATH_DOT_HALF_EXTENT
-            ).offset(-camX, -camY, -camZ);
-
-            DebugRenderer.drawBox(matrices, consumers, dot, r, g, bl, al);
-        }
-    }
-
-
-private static void drawLine3d(MatrixStack matrices, VertexConsumerProvider consumers,
-                               double camX, double camY, double camZ,
-                               Vec3d a, Vec3d b,
-                               float r, float g, float bl, float al) {
-    VertexConsumer vc = consumers.getBuffer(RenderLayer.getLines());
-    Matrix4f mat = matrices.peek().getPositionMatrix();
-
-    float ax = (float) (a.x - camX);
-    float ay = (float) (a.y - camY);
-    float az = (float) (a.z - camZ);
-    float bx = (float) (b.x - camX);
-    float by = (float) (b.y - camY);
-    float bz = (float) (b.z - camZ);
-
-    endVertex(vc.vertex(mat, ax, ay, az).color(r, g, bl, al).normal(0f, 1f, 0f));
-    endVertex(vc.vertex(mat, bx, by, bz).color(r, g, bl, al).normal(0f, 1f, 0f));
-}
-
-    // ---------------------------------------------------------------------
-    // VertexConsumer terminal method compatibility
-    // ---------------------------------------------------------------------
-
-    // Across mappings/versions, the terminal method for a built vertex differs (e.g., next(), endVertex()).
-    // Use reflection so the code compiles even if one of them is absent.
-    private static volatile java.lang.reflect.Method VC_NEXT_METHOD;
-    private static volatile java.lang.reflect.Method VC_ENDVERTEX_METHOD;
-
-    private static void endVertex(Object maybeVertexConsumer) {
-        if (!(maybeVertexConsumer instanceof VertexConsumer)) return;
-        VertexConsumer vc = (VertexConsumer) maybeVertexConsumer;
-
-        try {
-            // Fast path: cached method
-            if (VC_NEXT_METHOD != null) {
-                VC_NEXT_METHOD.invoke(vc);
-                return;
-            }
-            if (VC_ENDVERTEX_METHOD != null) {
-                VC_ENDVERTEX_METHOD.invoke(vc);
-                return;
-            }
-
-            // Resolve once
-            Class<?> c = vc.getClass();
-            try {
-                VC_NEXT_METHOD = c.getMethod("next");
-                VC_NEXT_METHOD.invoke(vc);
-                return;
-            } catch (NoSuchMethodException ignored) {
-                // fall through
-            }
-
-            try {
-                VC_ENDVERTEX_METHOD = c.getMethod("endVertex");
-                VC_ENDVERTEX_METHOD.invoke(vc);
-            } catch (NoSuchMethodException ignored) {
-                // If neither exists, do nothing. (Some implementations may flush implicitly.)
-            }
-        } catch (Throwable ignored) {
-            // Rendering must never crash the client.
-        }
-    }
-
     // ---------------------------------------------------------------------
     // Rotation + target selection
     // ---------------------------------------------------------------------
@@ -1621,22 +2259,25 @@ private static float adaptiveYawStep(float yawErrorDeg) {
 
     // LOS steering (corridor-safe)
     private static BlockPos selectLineOfSightTarget(World world, ClientPlayerEntity player,
-                                                    List<BlockPos> path, int startIndex) {
+                                                    List<BlockPos> path, PathIndex index, int startIndex) {
         if (world == null || player == null || path == null || path.isEmpty()) return null;
 
         int start = MathHelper.clamp(startIndex, 0, path.size() - 1);
         int max = Math.min(path.size() - 1, start + LOS_LOOKAHEAD_MAX_NODES);
 
         Vec3d playerPos = player.getPos();
+        NavGrid grid = NavCache.view(world);
 
         BlockPos best = path.get(start);
 
         for (int i = start; i <= max; i++) {
             BlockPos cand = path.get(i);
 
-            if (!hasBodyLineOfSight(world, player, cand)) break;
+            // One swept player-box traversal: body clearance (was three raycasts) and the floor on the way.
+            if (!NavRay.sweep(grid, playerPos.x, playerPos.y, playerPos.z,
+                    cand.getX() + 0.5, cand.getY(), cand.getZ() + 0.5, true)) break;
 
-            if (!isCorridorSafe(world, playerPos, cand, path, start, i)) break;
+            if (!staysNearPath(playerPos, cand, index, start, i)) break;
 
             best = cand;
         }
@@ -1644,90 +2285,31 @@ private static float adaptiveYawStep(float yawErrorDeg) {
         return best;
     }
 
-    private static boolean isCorridorSafe(World world, Vec3d fromPos, BlockPos cand,
-                                          List<BlockPos> path, int startIdx, int candIdx) {
-        Vec3d toPos = new Vec3d(cand.getX() + 0.5, fromPos.y, cand.getZ() + 0.5);
-
-        double dx = toPos.x - fromPos.x;
-        double dz = toPos.z - fromPos.z;
+    // The straight walk must not stray more than CORRIDOR_MAX_DIST_TO_PATH from the stretch of path it skips.
+    private static boolean staysNearPath(Vec3d fromPos, BlockPos cand, PathIndex index, int startIdx, int candIdx) {
+        double dx = cand.getX() + 0.5 - fromPos.x;
+        double dz = cand.getZ() + 0.5 - fromPos.z;
         double dist = Math.sqrt(dx * dx + dz * dz);
         if (dist < 1e-6) return true;
 
         int samples = (int) Math.ceil(dist / CORRIDOR_SAMPLE_STEP);
         for (int s = 1; s <= samples; s++) {
             double t = (double) s / (double) samples;
-
-            double sx = fromPos.x + dx * t;
-            double sz = fromPos.z + dz * t;
-
-            BlockPos feet = BlockPos.ofFloored(sx, fromPos.y - 0.01, sz);
-            if (!AStar.isStandablePublic(world, feet)) return false;
-
-            if (distanceToPathXZ(sx, sz, path, startIdx, candIdx) > CORRIDOR_MAX_DIST_TO_PATH) return false;
+            if (!index.nearestSegment(fromPos.x + dx * t, fromPos.z + dz * t, startIdx, candIdx, CORRIDOR_MAX_DIST_TO_PATH)) {
+                return false;
+            }
         }
 
         return true;
     }
 
-    private static double distanceToPathXZ(double x, double z, List<BlockPos> path, int startIdx, int endIdx) {
-        int a = MathHelper.clamp(startIdx, 0, path.size() - 1);
-        int b = MathHelper.clamp(endIdx, 0, path.size() - 1);
-        if (b < a) { int tmp = a; a = b; b = tmp; }
-
-        double best = Double.MAX_VALUE;
-        for (int i = a; i <= b; i++) {
-            BlockPos p = path.get(i);
-            double px = p.getX() + 0.5;
-            double pz = p.getZ() + 0.5;
-            double dx = px - x;
-            double dz = pz - z;
-            double d = Math.sqrt(dx * dx + dz * dz);
-            if (d < best) best = d;
-        }
-        return best;
+    private static Waypoints pullWaypoints(NavGrid grid, List<BlockPos> path) {
+        return pullWaypoints(grid, path, Integer.MAX_VALUE);
     }
 
-    // Body-safe LOS: do not allow "seeing" a node if the feet/body would clip a block.
-    // This prevents selecting targets that are visible from the eye but blocked at player height.
-    private static boolean hasBodyLineOfSight(World world, ClientPlayerEntity player, BlockPos target) {
-        if (world == null || player == null || target == null) return false;
-
-        Vec3d base = player.getPos();
-        Vec3d tgt = new Vec3d(target.getX() + 0.5, target.getY(), target.getZ() + 0.5);
-
-        Vec3d srcFeet = new Vec3d(base.x, base.y + 0.15, base.z);
-        Vec3d srcMid  = new Vec3d(base.x, base.y + 0.95, base.z);
-        Vec3d srcEye  = new Vec3d(base.x, base.y + LOS_EYE_HEIGHT, base.z);
-
-        Vec3d dstFeet = new Vec3d(tgt.x, target.getY() + 0.15, tgt.z);
-        Vec3d dstMid  = new Vec3d(tgt.x, target.getY() + 0.95, tgt.z);
-        Vec3d dstEye  = new Vec3d(tgt.x, target.getY() + LOS_EYE_HEIGHT, tgt.z);
-
-        return rayClear(world, srcFeet, dstFeet, player)
-                && rayClear(world, srcMid,  dstMid,  player)
-                && rayClear(world, srcEye,  dstEye,  player);
-    }
-
-    private static boolean rayClear(World world, Vec3d from, Vec3d to, ClientPlayerEntity player) {
-        RaycastContext ctx = new RaycastContext(
-                from, to,
-                RaycastContext.ShapeType.COLLIDER,
-                RaycastContext.FluidHandling.NONE,
-                player
-        );
-        HitResult hit = world.raycast(ctx);
-        // Strict: any hit means the segment is not body-safe.
-        // A small distance tolerance here can incorrectly allow aiming "through" thin obstacles.
-        return hit.getType() == HitResult.Type.MISS;
-    }
-
-    private static int indexOfNode(List<BlockPos> path, BlockPos node, int a, int b) {
-        int start = Math.max(0, a);
-        int end = Math.min(path.size() - 1, b);
-        for (int i = start; i <= end; i++) {
-            if (path.get(i).equals(node)) return i;
-        }
-        return -1;
+    private static Waypoints pullWaypoints(NavGrid grid, List<BlockPos> path, int maxNodes) {
+        if (!STRING_PULLING || grid == null || path == null || path.isEmpty()) return null;
+        return Waypoints.build(grid, path, maxNodes);
     }
 
     // ---------------------------------------------------------------------
@@ -1850,26 +2432,31 @@ private static float adaptiveYawStep(float yawErrorDeg) {
         return BlockPos.ofFloored(p.x, p.y - 0.01, p.z);
     }
 
+    /** The standable cell the player's path starts from (feet block snapped like a planned start); null if none. */
+    public static BlockPos standableStart(World world, ClientPlayerEntity player) {
+        return snapStartToStandable(world, feetBlock(player));
+    }
+
     private static BlockPos snapStartToStandable(World world, BlockPos feet) {
         if (world == null) return null;
 
         if (START_SNAP_ALLOW_DOWN_FIRST) {
             for (int dy = 0; dy <= START_SNAP_MAX_VERTICAL; dy++) {
                 BlockPos cand = feet.down(dy);
-                if (AStar.isStandablePublic(world, cand)) return cand;
+                if (AStar.isStandable(world, cand)) return cand;
             }
             for (int dy = 1; dy <= START_SNAP_MAX_VERTICAL; dy++) {
                 BlockPos cand = feet.up(dy);
-                if (AStar.isStandablePublic(world, cand)) return cand;
+                if (AStar.isStandable(world, cand)) return cand;
             }
         } else {
             for (int dy = 0; dy <= START_SNAP_MAX_VERTICAL; dy++) {
                 BlockPos cand = feet.up(dy);
-                if (AStar.isStandablePublic(world, cand)) return cand;
+                if (AStar.isStandable(world, cand)) return cand;
             }
             for (int dy = 1; dy <= START_SNAP_MAX_VERTICAL; dy++) {
                 BlockPos cand = feet.down(dy);
-                if (AStar.isStandablePublic(world, cand)) return cand;
+                if (AStar.isStandable(world, cand)) return cand;
             }
         }
         return null;
@@ -1918,18 +2505,23 @@ private static float adaptiveYawStep(float yawErrorDeg) {
         return ang >= thresholdDeg;
     }
 
-    private static boolean isOffPath(Vec3d playerPos, List<BlockPos> path, int idx, double maxDist) {
-        if (path == null || path.isEmpty()) return true;
+    // Off path: none of the next 8 nodes within maxDist.
+    private boolean isOffPath(Vec3d playerPos, int idx, double maxDist) {
+        if (currentPath == null || currentPath.isEmpty()) return true;
 
-        int i = MathHelper.clamp(idx, 0, path.size() - 1);
-        int end = Math.min(path.size() - 1, i + 8);
+        int i = MathHelper.clamp(idx, 0, currentPath.size() - 1);
+        return pathIndex().nearestNode(playerPos.x, playerPos.z, i, i + 8, maxDist) < 0;
+    }
 
-        double best = Double.MAX_VALUE;
-        for (int k = i; k <= end; k++) {
-            double d = distanceXZ(playerPos, centerOf(path.get(k)));
-            if (d < best) best = d;
-        }
-        return best > maxDist;
+    /** Spatial index of currentPath (the worker-built one from its Waypoints when there is one). */
+    private PathIndex pathIndex() {
+        PathIndex index = currentPathIndex;
+        if (index != null && index.path() == currentPath) return index;
+
+        Waypoints w = currentWaypoints;
+        index = (w != null && w.index.path() == currentPath) ? w.index : new PathIndex(currentPath);
+        currentPathIndex = index;
+        return index;
     }
 
     // ---------------------------------------------------------------------
@@ -1993,9 +2585,14 @@ private static float adaptiveYawStep(float yawErrorDeg) {
 
     private void resetPathState() {
         avoidedStepUpEdges.clear();
+        incrementalGoal = null;
+        cancelSlicedPlan();
+        currentPathPartial = false;
         clearStepUpTracking();
         forceRepathNow = false;
         currentPath = Collections.emptyList();
+        currentWaypoints = null;
+        pathWatch.clear();
         pathNodeIndex = 0;
         currentWalkTarget = null;
         currentSegmentGoal = null;
@@ -2066,254 +2663,27 @@ private static float adaptiveYawStep(float yawErrorDeg) {
     }
 
     // ---------------------------------------------------------------------
-    // A* (diagonal corner checks + wall penalty)
+    // Flow field (walking distance from one cell to everything around it)
     // ---------------------------------------------------------------------
 
-    private static final class AStar {
-
-        private static final class Node {
-            final BlockPos pos;
-            final Node parent;
-            final double g;
-            final double f;
-
-            Node(BlockPos pos, Node parent, double g, double f) {
-                this.pos = pos;
-                this.parent = parent;
-                this.g = g;
-                this.f = f;
-            }
-        }
-
-        private static final class Neighbor {
-            final BlockPos pos;
-            final double cost;
-            Neighbor(BlockPos pos, double cost) { this.pos = pos; this.cost = cost; }
-        }
-
-        static List<BlockPos> find(World world,
-                                   BlockPos start,
-                                   BlockPos goal,
-                                   int maxRange,
-                                   int maxIterations,
-                                   boolean diagonals,
-                                   boolean stepUp,
-                                   boolean allowDropDown,
-                                   int maxDropDown) {
-
-            if (world == null) return Collections.emptyList();
-            if (manhattan(start, goal) > maxRange * 2) return Collections.emptyList();
-            if (!isStandable(world, start) || !isStandable(world, goal)) return Collections.emptyList();
-
-            PriorityQueue<Node> open = new PriorityQueue<>(Comparator.comparingDouble(n -> n.f));
-            Map<BlockPos, Node> best = new HashMap<>();
-            Set<BlockPos> closed = new HashSet<>();
-
-            Node s = new Node(start, null, 0.0, heuristic(start, goal));
-            open.add(s);
-            best.put(start, s);
-
-            int it = 0;
-            while (!open.isEmpty() && it++ < maxIterations) {
-                Node cur = open.poll();
-                if (cur.pos.equals(goal)) return reconstruct(cur);
-
-                if (!closed.add(cur.pos)) continue;
-
-                if (manhattan(start, cur.pos) > maxRange) continue;
-
-                for (Neighbor nb : neighbors(world, cur.pos, diagonals, stepUp, allowDropDown, maxDropDown)) {
-                    if (closed.contains(nb.pos)) continue;
-
-                    double ng = cur.g + nb.cost + wallPenalty(world, nb.pos);
-
-                    Node prev = best.get(nb.pos);
-                    if (prev == null || ng < prev.g) {
-                        Node nxt = new Node(nb.pos, cur, ng, ng + heuristic(nb.pos, goal));
-                        best.put(nb.pos, nxt);
-                        open.add(nxt);
-                    }
-                }
-            }
-
-            return Collections.emptyList();
-        }
-
-        private static List<BlockPos> reconstruct(Node goal) {
-            LinkedList<BlockPos> out = new LinkedList<>();
-            Node c = goal;
-            while (c != null) {
-                out.addFirst(c.pos);
-                c = c.parent;
-            }
-            return out;
-        }
-
-        private static double heuristic(BlockPos a, BlockPos b) {
-            int dx = Math.abs(a.getX() - b.getX());
-            int dy = Math.abs(a.getY() - b.getY());
-            int dz = Math.abs(a.getZ() - b.getZ());
-            return dx + dz + (dy * 1.25);
-        }
-
-        private static double wallPenalty(World world, BlockPos p) {
-            final double perSide = 0.20; // modest: reduces wall hugging without extreme detours
-
-            int solids = 0;
-            BlockPos n = p.north();
-            BlockPos s = p.south();
-            BlockPos e = p.east();
-            BlockPos w = p.west();
-
-            if (!world.getBlockState(n).getCollisionShape(world, n).isEmpty()) solids++;
-            if (!world.getBlockState(s).getCollisionShape(world, s).isEmpty()) solids++;
-            if (!world.getBlockState(e).getCollisionShape(world, e).isEmpty()) solids++;
-            if (!world.getBlockState(w).getCollisionShape(world, w).isEmpty()) solids++;
-
-            return solids * perSide;
-        }
-
-        private static List<Neighbor> neighbors(World world, BlockPos o,
-                                                boolean diagonals,
-                                                boolean stepUp,
-                                                boolean allowDropDown,
-                                                int maxDropDown) {
-            List<Neighbor> out = new ArrayList<>(diagonals ? 24 : 12);
-
-            int[][] deltas4 = new int[][] { {1,0},{-1,0},{0,1},{0,-1} };
-            int[][] deltas8 = new int[][] { {1,0},{-1,0},{0,1},{0,-1},{1,1},{1,-1},{-1,1},{-1,-1} };
-            int[][] deltas = diagonals ? deltas8 : deltas4;
-
-            for (int[] d : deltas) {
-                int dx = d[0], dz = d[1];
-                boolean diag = (dx != 0 && dz != 0);
-
-                if (diag && !canDiagonal(world, o, dx, dz)) continue;
-
-                BlockPos same = o.add(dx, 0, dz);
-                if (isStandable(world, same)) {
-                    out.add(new Neighbor(same, diag ? 1.4142 : 1.0));
-                    continue;
-                }
-
-                if (stepUp) {
-                    BlockPos up = o.add(dx, 1, dz);
-                    if (isStandable(world, up)) {
-                        // Avoid step-ups that have been observed to fail repeatedly.
-                        if (!PathfindScript.isStepUpEdgeAvoided(o, up)) {
-                            out.add(new Neighbor(up, diag ? 1.9 : 1.5));
-                        }
-                        continue;
-                    }
-                }
-
-                if (allowDropDown) {
-                    for (int drop = 1; drop <= Math.max(1, maxDropDown); drop++) {
-                        BlockPos down = o.add(dx, -drop, dz);
-                        if (!isStandable(world, down)) continue;
-                        if (!hasEscapeBackUp(world, down, o.getY())) continue;
-
-                        double cost = (diag ? 1.4142 : 1.0) + (drop * 0.55);
-                        out.add(new Neighbor(down, cost));
-                        break;
-                    }
-                }
-            }
-
-            return out;
-        }
-
-        private static boolean canDiagonal(World world, BlockPos o, int dx, int dz) {
-            BlockPos a = o.add(dx, 0, 0);
-            BlockPos b = o.add(0, 0, dz);
-
-            return isBodyPassable(world, a) && isHeadPassable(world, a.up())
-                    && isBodyPassable(world, b) && isHeadPassable(world, b.up());
-        }
-
-        private static boolean hasEscapeBackUp(World world, BlockPos start, int originY) {
-            if (start.getY() >= originY) return true;
-
-            ArrayDeque<BlockPos> q = new ArrayDeque<>();
-            HashSet<BlockPos> seen = new HashSet<>();
-
-            q.add(start);
-            seen.add(start);
-
-            int expanded = 0;
-            while (!q.isEmpty() && expanded < DROP_ESCAPE_SEARCH_LIMIT) {
-                BlockPos cur = q.poll();
-                expanded++;
-
-                if (cur.getY() >= originY) return true;
-                if (manhattan(cur, start) > DROP_ESCAPE_MAX_RADIUS) continue;
-
-                for (int[] d : new int[][] { {1,0},{-1,0},{0,1},{0,-1} }) {
-                    int dx = d[0], dz = d[1];
-                    enqueueIfOk(world, cur.add(dx, 0, dz), seen, q);
-                    enqueueIfOk(world, cur.add(dx, 1, dz), seen, q);
-                    enqueueIfOk(world, cur.add(dx, -1, dz), seen, q);
-                }
-            }
-
-            return false;
-        }
-
-        private static void enqueueIfOk(World world, BlockPos pos, Set<BlockPos> seen, ArrayDeque<BlockPos> q) {
-            if (seen.contains(pos)) return;
-            if (!isStandable(world, pos)) return;
-            seen.add(pos);
-            q.add(pos);
-        }
-
-        private static boolean isStandable(World world, BlockPos pos) {
-            if (AVOID_FLUIDS && containsFluid(world, pos)) return false;
-
-            if (!isBodyPassable(world, pos)) return false;
-            if (!isHeadPassable(world, pos.up())) return false;
-
-            if (AVOID_FLUIDS && containsFluid(world, pos.up())) return false;
-
-            return hasFloor(world, pos);
-        }
-
-        static boolean isStandablePublic(World world, BlockPos pos) {
-            return isStandable(world, pos);
-        }
-
-        private static boolean hasFloor(World world, BlockPos feetPos) {
-            if (!world.getBlockState(feetPos).getCollisionShape(world, feetPos).isEmpty()) {
-                if (AVOID_FLUIDS && containsFluid(world, feetPos)) return false;
-                return true;
-            }
-
-            BlockPos below = feetPos.down();
-            if (AVOID_FLUIDS && containsFluid(world, below)) return false;
-
-            return !world.getBlockState(below).getCollisionShape(world, below).isEmpty();
-        }
-
-        private static boolean isBodyPassable(World world, BlockPos pos) {
-            VoxelShape shape = world.getBlockState(pos).getCollisionShape(world, pos);
-            if (shape.isEmpty()) return true;
-
-            // Top-half blocks (e.g., upside-down stairs/top slabs) often have minY around 0.5.
-            // Those are NOT passable for the player's feet volume.
-            double minY = shape.getMin(Direction.Axis.Y);
-            double maxY = shape.getMax(Direction.Axis.Y);
-
-            if (minY > 0.20) return false;
+    /**
+     * FlowField from the standable cell at (or just above/below) feet, covering radius blocks in XZ and Y,
+     * with AStar's moves and costs (diagonals, step-ups, drops, wall penalty). Reuses the kept field when
+     * FlowField.cached allows it. Null if there is no standable cell there.
+     *
+     * Client thread only.
+     */
+    public static FlowField flowField(ClientPlayerEntity player, int radius) {
+        if (player == null || player.getWorld() == null) return null;
 
-            // Allow low-profile collision in the feet block (bottom slabs, carpet, etc.)
-            return maxY <= BODY_CLEARANCE_MIN_Y;
-        }
+        World world = player.getWorld();
+        BlockPos start = standableStart(world, player);
+        if (start == null) return null;
 
-        private static boolean isHeadPassable(World world, BlockPos pos) {
-            return world.getBlockState(pos).getCollisionShape(world, pos).isEmpty();
-        }
+        FlowField f = FlowField.cached(start, radius, player.age);
+        if (f != null) return f;
 
-        private static boolean containsFluid(World world, BlockPos pos) {
-            return !world.getFluidState(pos).isEmpty();
-        }
+        BlockSnapshot snapshot = BlockSnapshot.capture(world, start, start, radius + 2, radius + MAX_DROP_DOWN + 2);
+        return FlowField.compute(start, radius, player.age, AStar.moves(snapshot));
     }
-}
\ No newline at end of file
+}
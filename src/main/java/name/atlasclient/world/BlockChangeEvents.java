@@ -0,0 +1,36 @@
+package name.atlasclient.world;
+
+import net.fabricmc.fabric.api.event.Event;
+import net.fabricmc.fabric.api.event.EventFactory;
+
+/**
+ * Server-driven block changes seen by the client, fired from MixinClientPlayNetworkHandlerBlocks.
+ *
+ * Always invoked on the client thread, after vanilla has applied the packet to the world.
+ */
+public final class BlockChangeEvents {
+
+    private BlockChangeEvents() {}
+
+    /** A single block changed (block update packet, or one entry of a chunk delta packet). */
+    public static final Event<BlockChanged> BLOCK_CHANGED = EventFactory.createArrayBacked(BlockChanged.class,
+            listeners -> (x, y, z) -> {
+                for (BlockChanged l : listeners) l.onBlockChanged(x, y, z);
+            });
+
+    /** A whole chunk column was (re)sent by the server. */
+    public static final Event<ChunkChanged> CHUNK_CHANGED = EventFactory.createArrayBacked(ChunkChanged.class,
+            listeners -> (chunkX, chunkZ) -> {
+                for (ChunkChanged l : listeners) l.onChunkChanged(chunkX, chunkZ);
+            });
+
+    @FunctionalInterface
+    public interface BlockChanged {
+        void onBlockChanged(int x, int y, int z);
+    }
+
+    @FunctionalInterface
+    public interface ChunkChanged {
+        void onChunkChanged(int chunkX, int chunkZ);
+    }
+}